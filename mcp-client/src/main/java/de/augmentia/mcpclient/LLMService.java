@@ -21,6 +21,7 @@ import org.springframework.web.client.RestClient;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.function.BiPredicate;
 
 
@@ -136,9 +137,15 @@ public class LLMService {
      * @return An initialized McpSyncClient instance.
      */
     private McpSyncClient createMcpClient(String url) {
-        var client = McpClient
-                .sync(HttpClientSseClientTransport.builder(url).build())
-                .build();
+        var clientBuilder = McpClient
+                .sync(HttpClientSseClientTransport.builder(url).build());
+        String toolProfile = properties.getProperty("mcp_server.tool_profile");
+        if (toolProfile != null) {
+            clientBuilder.capabilities(McpSchema.ClientCapabilities.builder()
+                    .experimental(Map.of("toolProfile", toolProfile))
+                    .build());
+        }
+        var client = clientBuilder.build();
         client.initialize();
         return client;
     }
@@ -123,6 +123,11 @@ public class McpClientProperties {
             } else {
                 throw new IllegalArgumentException("Missing or empty 'url' in 'mcp_server' section in configuration file.");
             }
+            // Optional tool profile of the server; the session then only receives the tools of that profile
+            JsonNode toolProfile = mcpServerNode.get("tool_profile");
+            if (toolProfile != null && !toolProfile.asText().isEmpty()) {
+                configurations.put("mcp_server.tool_profile", toolProfile.asText());
+            }
         }
     }
 
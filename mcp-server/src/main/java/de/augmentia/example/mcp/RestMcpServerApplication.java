@@ -1,37 +1,22 @@
 package de.augmentia.example.mcp;
 
-import de.augmentia.example.mcp.service.McpServerService;
-import jakarta.annotation.PostConstruct;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
 
+/**
+ * Entry point of the MCP server. Tools are not loaded here: {@link de.augmentia.example.mcp.service.StartupToolLoader}
+ * compiles the configured specs in the background once the HTTP endpoint is up.
+ */
 @SpringBootApplication(exclude = {
         DataSourceAutoConfiguration.class,
         HibernateJpaAutoConfiguration.class
 })
 public class RestMcpServerApplication {
 
-    @Autowired
-    private McpServerService mcpServerService;
-
     public static void main(String[] args) {
         SpringApplication.run(RestMcpServerApplication.class, args);
     }
 
-    @PostConstruct
-    public void init() throws Exception {
-
-        try {
-            mcpServerService.initTools();
-        } catch (Exception e) {
-            System.out.println("Error during MCP server initialization" + ": " + e.getMessage());
-        }
-
-
-    }
-
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,30 @@
+package de.augmentia.example.mcp.config;
+
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.boot.web.servlet.server.ConfigurableServletWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Lets the servlet container gzip the JSON responses of the REST API and the Streamable HTTP transport
+ * according to {@code mcp.compression}. The tool catalog of {@code /api/tools} is compressed by the
+ * controller instead, so the compressed bytes are cached with the serialized catalog.
+ */
+@Configuration
+public class CompressionConfiguration {
+
+    @Bean
+    public WebServerFactoryCustomizer<ConfigurableServletWebServerFactory> compressionCustomizer(McpServerProperties mcpServerProperties) {
+        // Not ordered, so it runs after the customizer applying server.compression
+        return factory -> {
+            McpServerProperties.Compression properties = mcpServerProperties.getCompression();
+            Compression compression = new Compression();
+            compression.setEnabled(properties.isEnabled());
+            compression.setMinResponseSize(DataSize.ofBytes(properties.getMinResponseSize()));
+            compression.setMimeTypes(properties.getMimeTypes().toArray(String[]::new));
+            factory.setCompression(compression);
+        };
+    }
+}
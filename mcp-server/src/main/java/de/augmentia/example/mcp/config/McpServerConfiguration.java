@@ -1,10 +1,13 @@
 package de.augmentia.example.mcp.config;
 
+import de.augmentia.example.mcp.service.ResultSpool;
+import de.augmentia.example.mcp.service.UpstreamBalancer;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.Map;
 
@@ -12,12 +15,23 @@ import java.util.Map;
 public class McpServerConfiguration {
 
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, McpServerProperties mcpServerProperties) {
+        McpServerProperties.Upstream upstream = mcpServerProperties.getUpstream();
         return builder
-                .connectTimeout(Duration.ofMillis(3000))
-                .readTimeout(Duration.ofMillis(3000))
+                .connectTimeout(Duration.ofMillis(upstream.getConnectTimeoutMillis()))
+                .readTimeout(Duration.ofMillis(upstream.getReadTimeoutMillis()))
                 .build();
     }
 
+    @Bean(destroyMethod = "shutdown")
+    public ResultSpool resultSpool(McpServerProperties mcpServerProperties) throws IOException {
+        return new ResultSpool(mcpServerProperties.getResultSpool());
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public UpstreamBalancer upstreamBalancer(McpServerProperties mcpServerProperties) {
+        return new UpstreamBalancer(mcpServerProperties.getUpstream());
+    }
+
 
 }
\ No newline at end of file
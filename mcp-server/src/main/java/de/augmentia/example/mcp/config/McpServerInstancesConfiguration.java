@@ -0,0 +1,40 @@
+package de.augmentia.example.mcp.config;
+
+import de.augmentia.example.mcp.service.McpConfigurationService;
+import de.augmentia.example.mcp.service.McpServerInstanceManager;
+import de.augmentia.example.mcp.service.ResultSpool;
+import de.augmentia.example.mcp.service.SpecCache;
+import de.augmentia.example.mcp.service.SpringAIToolConverterService;
+import de.augmentia.example.mcp.service.UpstreamBalancer;
+import de.augmentia.example.mcp.transport.McpSessionRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * Sets up the additional MCP server instances; their endpoints are served by the router function of {@link McpTransportConfiguration}.
+ */
+@Configuration
+public class McpServerInstancesConfiguration {
+
+    @Bean
+    public McpServerInstanceManager mcpServerInstanceManager(McpConfigurationService mcpConfigurationService,
+                                                             SpringAIToolConverterService springAIToolConverterService,
+                                                             SecurityProperties securityProperties,
+                                                             McpServerProperties mcpServerProperties,
+                                                             SpecCache specCache,
+                                                             ResourceLoader resourceLoader,
+                                                             RestTemplateBuilder restTemplateBuilder,
+                                                             ObjectMapper objectMapper,
+                                                             McpSessionRegistry mcpSessionRegistry,
+                                                             ResultSpool resultSpool,
+                                                             UpstreamBalancer upstreamBalancer,
+                                                             @Value("${config.directory:}") String configDirectory) {
+        return new McpServerInstanceManager(mcpConfigurationService, springAIToolConverterService, securityProperties,
+                mcpServerProperties, specCache, resourceLoader, restTemplateBuilder, objectMapper, mcpSessionRegistry,
+                resultSpool, upstreamBalancer, configDirectory);
+    }
+}
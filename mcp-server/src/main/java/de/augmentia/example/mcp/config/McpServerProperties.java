@@ -0,0 +1,284 @@
+package de.augmentia.example.mcp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning properties of the MCP server, bound from the {@code mcp} prefix in application.yml.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "mcp")
+public class McpServerProperties {
+
+    private Registration registration = new Registration();
+
+    private Upload upload = new Upload();
+
+    private Startup startup = new Startup();
+
+    private SpecCache specCache = new SpecCache();
+
+    private Registry registry = new Registry();
+
+    private Catalog catalog = new Catalog();
+
+    private StreamableHttp streamableHttp = new StreamableHttp();
+
+    private Sessions sessions = new Sessions();
+
+    private Compression compression = new Compression();
+
+    private ResultSpool resultSpool = new ResultSpool();
+
+    private Pagination pagination = new Pagination();
+
+    private AsyncJobs asyncJobs = new AsyncJobs();
+
+    private Upstream upstream = new Upstream();
+
+    @Getter
+    @Setter
+    public static class Registration {
+
+        // Maximum number of registration jobs compiling a spec at the same time
+        private int maxConcurrentJobs = 2;
+
+        // Number of jobs that may wait for a free worker before new jobs are rejected
+        private int queueCapacity = 20;
+
+        // How long finished jobs stay queryable before they are purged
+        private long jobRetentionSeconds = 3600;
+    }
+
+    @Getter
+    @Setter
+    public static class Upload {
+
+        // Decoded spec bytes kept in memory before an upload is spooled to a temporary file
+        private long spoolThresholdBytes = 1024 * 1024;
+
+        // Largest decoded spec accepted by the upload endpoint
+        private long maxSizeBytes = 64L * 1024 * 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Startup {
+
+        // Number of specs loaded in parallel after the HTTP endpoint is up
+        private int parallelism = 4;
+
+        // Delay before a failed spec is loaded again, doubled after every further failure
+        private long retryIntervalSeconds = 15;
+
+        // Upper bound of the delay between two attempts
+        private long maxRetryIntervalSeconds = 300;
+
+        // Attempts per spec before giving up, 0 retries forever. Critical specs are still retried
+        // after that, but the server reports failed until they are loaded
+        private int maxAttempts = 0;
+
+        // Lazy specs are compiled at the latest this long after startup, a negative value waits for first use
+        private long lazyWarmupDelaySeconds = -1;
+    }
+
+    @Getter
+    @Setter
+    public static class SpecCache {
+
+        // How long a compiled spec is reused by other server instances loading the same source
+        private long ttlSeconds = 300;
+
+        // Maximum number of compiled specs kept in the cache
+        private int maxEntries = 64;
+    }
+
+    @Getter
+    @Setter
+    public static class Registry {
+
+        // Persist runtime registrations in the database configured under spring.datasource
+        private boolean enabled = false;
+
+        // How often a replica checks the registry version for changes made by other replicas
+        private long pollIntervalSeconds = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Catalog {
+
+        // Register tools as name and description stubs; schema and dispatch plan are built on first use
+        private boolean lazyMaterialization = false;
+
+        // Tools materialized as soon as their spec is loaded
+        private List<String> prewarmTools = new ArrayList<>();
+
+        // Number of most called tools materialized again when the registry is reloaded
+        private int prewarmMostUsed = 0;
+
+        // Tools per tools/list page and default page size of /api/tools, 0 returns the whole catalog
+        private int pageSize = 500;
+
+        // Register the search_tools meta-tool, which lets agents discover tools by keywords
+        private boolean searchTool = true;
+
+        // Register the batch_invoke meta-tool, which calls several tools in parallel in one tool call
+        private boolean batchTool = true;
+
+        // Calls accepted by one batch_invoke call
+        private int batchMaxCalls = 50;
+
+        // Calls of one batch running at the same time; a batch may ask for fewer
+        private int batchMaxConcurrency = 8;
+    }
+
+    @Getter
+    @Setter
+    public static class StreamableHttp {
+
+        // Serve the Streamable HTTP transport in addition to SSE
+        private boolean enabled = true;
+
+        // Endpoint of the main server; additional instances use their path followed by this endpoint
+        private String endpoint = "/mcp";
+
+        // How long a POST may wait for its responses, e.g. while an upstream job is polled, before it is answered with 503
+        private long responseTimeoutSeconds = 900;
+    }
+
+    @Getter
+    @Setter
+    public static class Sessions {
+
+        // Open MCP sessions of all transports and server instances, further connections are rejected with 503, 0 is unlimited
+        private int maxSessions = 10000;
+
+        // Sessions without a message from the client for this long are closed, 0 keeps them until they disconnect
+        private long idleTimeoutSeconds = 1800;
+
+        // How often idle sessions are looked for
+        private long sweepIntervalSeconds = 30;
+
+        // Server messages a session may have waiting for a slow client before the session is closed
+        private int maxPendingMessages = 100;
+    }
+
+    @Getter
+    @Setter
+    public static class Compression {
+
+        // Compress HTTP responses for clients accepting gzip; the cached tool catalog is also offered with deflate
+        private boolean enabled = true;
+
+        // Smaller responses are sent uncompressed
+        private int minResponseSize = 2048;
+
+        // Compressed content types; SSE streams are never compressed, since every event has to reach the client at once
+        private List<String> mimeTypes = new ArrayList<>(List.of("application/json"));
+    }
+
+    @Getter
+    @Setter
+    public static class ResultSpool {
+
+        // Tool results larger than this are written to disk and returned as a resource, 0 disables spooling
+        private int thresholdBytes = 1048576;
+
+        // Directory of the spooled results, a directory below java.io.tmpdir if empty
+        private String directory = "";
+
+        // Spooled results are deleted this long after the tool call
+        private long ttlSeconds = 900;
+
+        // Disk space of all spooled results; results that do not fit are rejected
+        private long maxDiskBytes = 1073741824L;
+
+        // Largest single result that is spooled
+        private long maxResultBytes = 268435456L;
+
+        // Largest range returned by one resources/read
+        private int maxReadBytes = 65536;
+
+        // Beginning of the result included in the tool response
+        private int previewBytes = 1024;
+    }
+
+    @Getter
+    @Setter
+    public static class Pagination {
+
+        // Fetch and merge the pages of paginated list operations when a call asks neither for a page nor a page size
+        private boolean enabled = true;
+
+        // Also paginate operations without x-mcp-pagination whose page and size parameters are only detected
+        private boolean detect = false;
+
+        // Records merged at most; pages are never split, so at least one page is returned
+        private int maxRecords = 1000;
+
+        // No further pages are fetched once the pages read so far are this large
+        private long maxBytes = 1048576;
+
+        // Pages fetched at most per call
+        private int maxPages = 50;
+
+        // Pages fetched at the same time
+        private int concurrency = 4;
+    }
+
+    @Getter
+    @Setter
+    public static class AsyncJobs {
+
+        // Poll the status URL of operations answering 202 Accepted until they have finished
+        private boolean enabled = true;
+
+        // Delay before the first poll, unless the upstream sends Retry-After; also the shortest delay
+        private long initialDelayMillis = 1000;
+
+        // Longest delay between two polls
+        private long maxDelayMillis = 30000;
+
+        // Factor by which the delay grows after each poll
+        private double backoffMultiplier = 2.0;
+
+        // Jobs still running after this long are returned as an error with their status URL
+        private long timeoutSeconds = 600;
+
+        // Callers that block on a job, such as the synchronous tool handlers, wait at most this long
+        private long blockingTimeoutSeconds = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class Upstream {
+
+        // Timeouts of the HTTP clients calling the upstream APIs, shared by all server instances
+        private long connectTimeoutMillis = 3000;
+
+        private long readTimeoutMillis = 3000;
+
+        // Interval of the health probes of APIs with more than one endpoint; 0 disables the probes
+        private long healthCheckIntervalSeconds = 10;
+
+        // Path requested by the health probes, relative to the endpoint; any status below 500 is healthy
+        private String healthCheckPath = "";
+
+        // How long a health probe may take before the endpoint counts as unhealthy
+        private long healthCheckTimeoutMillis = 2000;
+
+        // Consecutive failed calls, i.e. connection errors and 5xx responses, after which an endpoint is ejected
+        private int failureThreshold = 3;
+
+        // How long an ejected endpoint gets no calls before it is tried again
+        private long ejectionSeconds = 30;
+    }
+}
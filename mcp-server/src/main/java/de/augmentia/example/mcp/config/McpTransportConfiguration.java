@@ -0,0 +1,63 @@
+package de.augmentia.example.mcp.config;
+
+import de.augmentia.example.mcp.service.McpServerInstanceManager;
+import de.augmentia.example.mcp.transport.InterceptingSseServerTransportProvider;
+import de.augmentia.example.mcp.transport.McpSessionRegistry;
+import de.augmentia.example.mcp.transport.StreamableHttpEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.time.Duration;
+
+/**
+ * Replaces the SSE transport of the Spring AI auto-configuration with one whose requests can be
+ * intercepted, adds the Streamable HTTP endpoint and serves all endpoints together with those of
+ * the additional server instances. The sessions of all transports are tracked by one {@link McpSessionRegistry}.
+ */
+@Configuration
+public class McpTransportConfiguration {
+
+    @Bean(destroyMethod = "shutdown")
+    public McpSessionRegistry mcpSessionRegistry(McpServerProperties mcpServerProperties) {
+        return new McpSessionRegistry(mcpServerProperties.getSessions());
+    }
+
+    @Bean
+    public InterceptingSseServerTransportProvider mcpTransportProvider(
+            ObjectMapper objectMapper,
+            org.springframework.ai.mcp.server.autoconfigure.McpServerProperties serverProperties,
+            McpSessionRegistry mcpSessionRegistry) {
+        InterceptingSseServerTransportProvider transportProvider = new InterceptingSseServerTransportProvider(objectMapper,
+                serverProperties.getBaseUrl(), serverProperties.getSseMessageEndpoint(), serverProperties.getSseEndpoint());
+        transportProvider.setSessionRegistry(mcpSessionRegistry);
+        return transportProvider;
+    }
+
+    @Bean(destroyMethod = "closeAll")
+    @ConditionalOnProperty(prefix = "mcp.streamable-http", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public StreamableHttpEndpoint streamableHttpEndpoint(ObjectMapper objectMapper,
+                                                         InterceptingSseServerTransportProvider mcpTransportProvider,
+                                                         McpServerProperties mcpServerProperties) {
+        StreamableHttpEndpoint endpoint = new StreamableHttpEndpoint(objectMapper,
+                mcpServerProperties.getStreamableHttp().getEndpoint(), mcpTransportProvider);
+        endpoint.setResponseTimeout(Duration.ofSeconds(mcpServerProperties.getStreamableHttp().getResponseTimeoutSeconds()));
+        return endpoint;
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> mcpRouterFunction(InterceptingSseServerTransportProvider mcpTransportProvider,
+                                                            ObjectProvider<StreamableHttpEndpoint> streamableHttpEndpoint,
+                                                            McpServerInstanceManager mcpServerInstanceManager) {
+        RouterFunction<ServerResponse> routerFunction = mcpTransportProvider.getRouterFunction();
+        StreamableHttpEndpoint streamable = streamableHttpEndpoint.getIfAvailable();
+        if (streamable != null) {
+            routerFunction = routerFunction.and(streamable.getRouterFunction());
+        }
+        return routerFunction.and(mcpServerInstanceManager.getRouterFunction());
+    }
+}
@@ -0,0 +1,23 @@
+package de.augmentia.example.mcp.config;
+
+import de.augmentia.example.mcp.model.PersistedSpec;
+import de.augmentia.example.mcp.repository.PersistedSpecRepository;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Enables the database stack for the persistent registry. The application excludes the data source
+ * and JPA auto-configuration, so a server without {@code mcp.registry.enabled=true} needs no database.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "mcp.registry", name = "enabled", havingValue = "true")
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class})
+@EntityScan(basePackageClasses = PersistedSpec.class)
+@EnableJpaRepositories(basePackageClasses = PersistedSpecRepository.class)
+public class PersistentRegistryConfiguration {
+}
@@ -1,14 +1,34 @@
 
 package de.augmentia.example.mcp.controller;
 
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.exception.SpecNotFoundException;
+import de.augmentia.example.mcp.model.RegistrationJob;
+import de.augmentia.example.mcp.model.SpecRecord;
+import de.augmentia.example.mcp.service.CatalogResponseCache;
+import de.augmentia.example.mcp.service.McpServerInstance;
+import de.augmentia.example.mcp.service.McpServerInstanceManager;
 import de.augmentia.example.mcp.service.McpServerService;
+import de.augmentia.example.mcp.service.RegistrationJobService;
+import de.augmentia.example.mcp.service.SpecSpool;
+import de.augmentia.example.mcp.transport.McpSessionRegistry;
 import io.modelcontextprotocol.spec.McpSchema.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api")
@@ -17,9 +37,59 @@ public class McpServerController {
     @Autowired
     private McpServerService mcpServerService;
 
+    @Autowired
+    private RegistrationJobService registrationJobService;
+
+    @Autowired
+    private McpServerProperties mcpServerProperties;
+
+    @Autowired
+    private McpServerInstanceManager mcpServerInstanceManager;
+
+    @Autowired
+    private McpSessionRegistry mcpSessionRegistry;
+
     @GetMapping("/tools")
-    public ResponseEntity<List<Tool>> getTools() {
-        return ResponseEntity.ok(mcpServerService.getTools());
+    public ResponseEntity<?> getTools(@RequestParam(required = false) Integer limit,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) String profile,
+                                      WebRequest webRequest) {
+        CatalogResponseCache.Response response;
+        try {
+            response = mcpServerService.getCatalogResponse(false, cursor, limit, profile);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Failed to list tools: " + e.getMessage());
+        }
+        McpServerProperties.Compression compression = mcpServerProperties.getCompression();
+        String encoding = compression.isEnabled() && response.json().length >= compression.getMinResponseSize()
+                ? CatalogResponseCache.negotiateEncoding(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                : null;
+        String etag = encoding != null ? response.etag(encoding) : response.etag();
+        if (webRequest.checkNotModified(etag)) {
+            return null; // 304 Not Modified was already set on the response
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (encoding == null) {
+            return builder.body(response.json());
+        }
+        return builder.header(HttpHeaders.CONTENT_ENCODING, encoding).body(response.json(encoding));
+    }
+
+    @GetMapping("/tools/search")
+    public ResponseEntity<?> searchTools(@RequestParam("q") String query,
+                                         @RequestParam(defaultValue = "10") int limit,
+                                         @RequestParam(required = false) String profile) {
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().body("Failed to search tools: limit must be positive");
+        }
+        try {
+            return ResponseEntity.ok(mcpServerService.searchTools(query, limit, profile));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Failed to search tools: " + e.getMessage());
+        }
     }
 
     @GetMapping("/tools/{id}")
@@ -38,8 +108,76 @@ public class McpServerController {
         }
     }
 
+    @GetMapping("/admin/specs")
+    public ResponseEntity<List<SpecRecord>> getSpecs() {
+        return ResponseEntity.ok(mcpServerService.getSpecs());
+    }
+
+    @DeleteMapping("/admin/specs/{specId}")
+    public ResponseEntity<String> deleteSpec(@PathVariable String specId) {
+        try {
+            mcpServerService.deleteSpec(specId);
+            return ResponseEntity.ok("Spec " + specId + " deleted successfully");
+        } catch (SpecNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to delete spec: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/admin/instances")
+    public ResponseEntity<List<Map<String, Object>>> getInstances() {
+        List<Map<String, Object>> instances = mcpServerInstanceManager.getInstances().stream()
+                .map(instance -> {
+                    Map<String, Object> info = new LinkedHashMap<>();
+                    info.put("name", instance.getName());
+                    info.put("sseEndpoint", instance.getSseEndpoint());
+                    info.put("messageEndpoint", instance.getMessageEndpoint());
+                    if (instance.getStreamableHttpEndpoint() != null) {
+                        info.put("streamableHttpEndpoint", instance.getStreamableHttpEndpoint().getEndpoint());
+                    }
+                    info.put("toolCount", instance.getMcpServerService().getTools().size());
+                    return info;
+                })
+                .toList();
+        return ResponseEntity.ok(instances);
+    }
+
+    @GetMapping("/admin/sessions")
+    public ResponseEntity<Map<String, Object>> getSessions(@RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("activeSessions", mcpSessionRegistry.getActiveSessions());
+        info.put("maxSessions", mcpSessionRegistry.getMaxSessions());
+        info.put("openedSessions", mcpSessionRegistry.getOpenedSessions());
+        info.put("evictedSessions", mcpSessionRegistry.getEvictedSessions());
+        info.put("rejectedSessions", mcpSessionRegistry.getRejectedSessions());
+        info.put("messagesReceived", mcpSessionRegistry.getMessagesReceived());
+        info.put("messagesSent", mcpSessionRegistry.getMessagesSent());
+        info.put("pendingMessages", mcpSessionRegistry.getPendingMessages());
+        info.put("cancelledByClient", mcpSessionRegistry.getCancelledByClient());
+        info.put("cancelledBySessionClose", mcpSessionRegistry.getCancelledBySessionClose());
+        info.put("sessions", mcpSessionRegistry.getSessions(limit));
+        return ResponseEntity.ok(info);
+    }
+
+    @GetMapping("/admin/instances/{name}/tools")
+    public ResponseEntity<List<Tool>> getInstanceTools(@PathVariable String name) {
+        return mcpServerInstanceManager.getInstance(name)
+                .map(McpServerInstance::getMcpServerService)
+                .map(service -> ResponseEntity.ok(service.getTools()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/register-openapi")
-    public ResponseEntity<String> registerOpenApi(@RequestBody OpenApiRegistrationRequest request) {
+    public ResponseEntity<?> registerOpenApi(@RequestBody OpenApiRegistrationRequest request,
+                                             @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            try {
+                return ResponseEntity.accepted().body(registrationJobService.submit(request));
+            } catch (RejectedExecutionException e) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many pending registration jobs, please retry later");
+            }
+        }
         try {
             mcpServerService.registerOpenApi(request);
             return ResponseEntity.ok("Tool registered successfully");
@@ -48,6 +186,65 @@ public class McpServerController {
         }
     }
 
+    @PostMapping(value = "/register-openapi/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadOpenApi(@RequestPart("file") MultipartFile file,
+                                           @RequestParam(defaultValue = "false") boolean base64,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        try (InputStream in = file.getInputStream()) {
+            return registerUpload(in, base64, async);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Failed to read uploaded specification: " + e.getMessage());
+        }
+    }
+
+    @PostMapping(value = "/register-openapi/upload", consumes = {MediaType.APPLICATION_OCTET_STREAM_VALUE,
+            MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE, "application/yaml", "application/x-yaml", "text/yaml"})
+    public ResponseEntity<?> uploadOpenApiBody(InputStream body,
+                                               @RequestParam(defaultValue = "false") boolean base64,
+                                               @RequestParam(defaultValue = "false") boolean async) {
+        return registerUpload(body, base64, async);
+    }
+
+    private ResponseEntity<?> registerUpload(InputStream body, boolean base64, boolean async) {
+        SpecSpool spec;
+        try {
+            McpServerProperties.Upload upload = mcpServerProperties.getUpload();
+            spec = SpecSpool.spool(body, base64, upload.getSpoolThresholdBytes(), upload.getMaxSizeBytes());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to read uploaded specification: " + e.getMessage());
+        }
+
+        if (async) {
+            try {
+                // The job owns the spool from here on
+                return ResponseEntity.accepted().body(registrationJobService.submitUpload(spec));
+            } catch (RejectedExecutionException e) {
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("Too many pending registration jobs, please retry later");
+            }
+        }
+        try (spec) {
+            mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE);
+            return ResponseEntity.ok("Tool registered successfully");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Failed to register tool: " + e.getMessage());
+        }
+    }
+
+    @GetMapping("/registration-jobs")
+    public ResponseEntity<List<RegistrationJob>> getRegistrationJobs() {
+        return ResponseEntity.ok(registrationJobService.getJobs());
+    }
+
+    @GetMapping("/registration-jobs/{jobId}")
+    public ResponseEntity<RegistrationJob> getRegistrationJob(@PathVariable String jobId) {
+        return registrationJobService.getJob(jobId).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/registration-jobs/{jobId}")
+    public ResponseEntity<RegistrationJob> cancelRegistrationJob(@PathVariable String jobId) {
+        return registrationJobService.cancel(jobId).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/update-tool-description")
     public ResponseEntity<String> updateToolDescription(@RequestBody UpdateToolDescriptionRequest request) {
         try {
@@ -0,0 +1,11 @@
+package de.augmentia.example.mcp.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class SpecNotFoundException extends RuntimeException {
+    public SpecNotFoundException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
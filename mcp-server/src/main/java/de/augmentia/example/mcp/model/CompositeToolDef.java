@@ -0,0 +1,49 @@
+package de.augmentia.example.mcp.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A tool that chains several upstream operations in one tool call. The arguments of a step may
+ * refer to the input of the tool and to the results of earlier steps with {@code ${...}}
+ * expressions, e.g. {@code ${input.customerId}} or {@code ${customer.orders[0].id}}.
+ */
+@Data
+public class CompositeToolDef {
+
+    private String name;
+
+    private String description;
+
+    private List<Parameter> parameters = new ArrayList<>(); // Input of the tool
+
+    private List<Step> steps = new ArrayList<>(); // Executed in order
+
+    @Data
+    public static class Parameter {
+
+        private String name;
+
+        private String type = "string"; // JSON schema type
+
+        private String description;
+
+        private boolean required;
+    }
+
+    @Data
+    public static class Step {
+
+        private String id; // Name of the step's result in later expressions and in the tool result
+
+        private String tool; // Name of the OpenAPI tool called
+
+        private Map<String, Object> arguments = new LinkedHashMap<>(); // Values may contain expressions
+
+        private String forEach; // Expression of an array; the tool is called in parallel for each element, available as ${item}
+    }
+}
@@ -21,6 +21,20 @@ public class McpServer {
 
     private HashMap<String,String> environmentVariables = new HashMap<>();
 
+    private String path; // Endpoint path prefix of an additional instance, e.g. "/billing"
+
+    private Integer maxConcurrentCalls; // Optional limit of tool calls executing at the same time
+
+    private Double rateLimitPerSecond; // Optional limit of tool calls started per second
+
+    private List<McpServer> instances = new ArrayList<>(); // Additional isolated server instances
+
+    private List<ToolProfile> toolProfiles = new ArrayList<>(); // Tool subsets sessions can select
+
+    private List<ResponseShapeRule> responseShapes = new ArrayList<>(); // Projection and truncation of tool responses
+
+    private List<CompositeToolDef> compositeTools = new ArrayList<>(); // Tools chaining several upstream calls
+
     public McpServer() {
         // Default constructor
     }
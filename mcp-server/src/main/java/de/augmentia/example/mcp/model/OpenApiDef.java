@@ -2,6 +2,9 @@ package de.augmentia.example.mcp.model;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Data
 public class OpenApiDef {
 
@@ -15,4 +18,10 @@ public class OpenApiDef {
 
     private String apiDefinition; // Optional API definition for the tool, if applicable
 
+    private boolean lazy; // Compile the spec on first use instead of at startup
+
+    private boolean critical = true; // Server is not ready before the spec is registered; ignored for lazy specs
+
+    private List<String> endpoints = new ArrayList<>(); // Further base URLs of the API; calls are balanced across them and the spec's servers
+
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package de.augmentia.example.mcp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+/**
+ * A runtime registration stored in the persistent registry. The compiled tools and their path
+ * mappings are stored as JSON, so replicas restore them without downloading or parsing the spec again.
+ * Deleted specs are kept as tombstones so that other replicas learn about the deletion.
+ */
+@Data
+@Entity
+@Table(name = "mcp_spec")
+public class PersistedSpec {
+
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    private String name;
+
+    @Column(length = 2048)
+    private String source;
+
+    @Column(length = 2048)
+    private String baseUrl;
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String toolsJson; // Serialized list of MCP tool definitions
+
+    @JdbcTypeCode(SqlTypes.LONG32VARCHAR)
+    private String pathItemsJson; // Serialized path mappings, keyed by tool name
+
+    @Column(nullable = false)
+    private long version; // Registry version of the last change of this spec
+
+    private boolean deleted;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,57 @@
+package de.augmentia.example.mcp.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+@Data
+public class RegistrationJob {
+
+    public enum Status {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+    }
+
+    private static final AtomicReferenceFieldUpdater<RegistrationJob, Status> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(RegistrationJob.class, Status.class, "status");
+
+    private String id;
+
+    private String type; // Registration type of the request (URL, BASE64)
+
+    private String source; // URL of the spec, empty for inline payloads
+
+    private volatile Status status = Status.QUEUED;
+
+    private volatile int progress; // 0..100
+
+    private volatile String stage;
+
+    private volatile String message;
+
+    private List<String> registeredTools = new ArrayList<>();
+
+    private Instant createdAt = Instant.now();
+
+    private volatile Instant finishedAt;
+
+    @JsonIgnore
+    private volatile boolean cancelRequested;
+
+    /**
+     * Atomically moves the job from one status to another.
+     *
+     * @return true if the job was in the expected status and has been moved.
+     */
+    public boolean transition(Status expected, Status next) {
+        return STATUS.compareAndSet(this, expected, next);
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+}
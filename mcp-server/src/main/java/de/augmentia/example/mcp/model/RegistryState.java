@@ -0,0 +1,23 @@
+package de.augmentia.example.mcp.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Single row holding the current version of the persistent registry. Every change increments it
+ * while holding the row lock, so versions are assigned in commit order across replicas.
+ */
+@Data
+@Entity
+@Table(name = "mcp_registry_state")
+public class RegistryState {
+
+    public static final int ID = 1;
+
+    @Id
+    private int id = ID;
+
+    private long version;
+}
@@ -0,0 +1,24 @@
+package de.augmentia.example.mcp.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shapes the JSON responses of the matching tools before they are returned to the client.
+ * The same settings can be given per operation with the OpenAPI extension {@code x-mcp-response}.
+ */
+@Data
+public class ResponseShapeRule {
+
+    private List<String> tools = new ArrayList<>(); // Tool names, '*' and '?' are wildcards
+
+    private List<String> fields = new ArrayList<>(); // JSONPaths of the fields kept, all fields if empty
+
+    private Integer maxItems; // Optional limit of the elements kept per array
+
+    private Integer maxStringLength; // Optional limit of the characters kept per string
+
+    private String format; // "table" encodes uniform arrays as CSV tables, "json" (default) pretty-prints
+}
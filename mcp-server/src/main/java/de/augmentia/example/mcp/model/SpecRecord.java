@@ -0,0 +1,35 @@
+package de.augmentia.example.mcp.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Owner of all tools compiled from one OpenAPI specification. Every structure that is
+ * created for a tool (tool definition, base URL, path mapping) is released through its spec record.
+ */
+@Data
+public class SpecRecord {
+
+    private String id;
+
+    private String name; // Tool name from mcp_server.yml or friendly name of the registration
+
+    private String source; // URL of the spec, or the registration type for inline payloads
+
+    private String baseUrl;
+
+    private Instant registeredAt = Instant.now();
+
+    private Set<String> toolNames = new LinkedHashSet<>();
+
+    private long retainedBytes; // Approximate heap retained by the tools of this spec
+
+    private boolean persistent; // Stored in the persistent registry and shared with the other replicas
+
+    public int getToolCount() {
+        return toolNames.size();
+    }
+}
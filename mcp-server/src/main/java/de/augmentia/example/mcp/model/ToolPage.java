@@ -0,0 +1,20 @@
+package de.augmentia.example.mcp.model;
+
+import io.modelcontextprotocol.spec.McpSchema.Tool;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of the tool catalog, ordered by tool name.
+ */
+@Data
+public class ToolPage {
+
+    private List<Tool> tools = new ArrayList<>();
+
+    private String nextCursor; // Opaque cursor of the next page, null on the last page
+
+    private long catalogVersion; // Changes whenever a tool is added or removed
+}
@@ -0,0 +1,22 @@
+package de.augmentia.example.mcp.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Named subset of the tool catalog that a session selects at initialization.
+ * A tool belongs to the profile if it matches any of the criteria.
+ */
+@Data
+public class ToolProfile {
+
+    private String name;
+
+    private List<String> specs = new ArrayList<>(); // Names of the specs whose tools are included
+
+    private List<String> tags = new ArrayList<>(); // OpenAPI operation tags
+
+    private List<String> tools = new ArrayList<>(); // Tool names, '*' and '?' are wildcards
+}
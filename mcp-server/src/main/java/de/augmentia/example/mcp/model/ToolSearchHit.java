@@ -0,0 +1,15 @@
+package de.augmentia.example.mcp.model;
+
+import io.modelcontextprotocol.spec.McpSchema.Tool;
+import lombok.Data;
+
+/**
+ * A tool found by the tool search, with its BM25 relevance for the query.
+ */
+@Data
+public class ToolSearchHit {
+
+    private Tool tool;
+
+    private double score;
+}
@@ -0,0 +1,13 @@
+package de.augmentia.example.mcp.repository;
+
+import de.augmentia.example.mcp.model.PersistedSpec;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PersistedSpecRepository extends JpaRepository<PersistedSpec, String> {
+
+    List<PersistedSpec> findByDeletedFalseOrderByVersion();
+
+    List<PersistedSpec> findByVersionGreaterThanOrderByVersion(long version);
+}
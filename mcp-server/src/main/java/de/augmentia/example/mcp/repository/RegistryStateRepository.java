@@ -0,0 +1,14 @@
+package de.augmentia.example.mcp.repository;
+
+import de.augmentia.example.mcp.model.RegistryState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface RegistryStateRepository extends JpaRepository<RegistryState, Integer> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update RegistryState s set s.version = s.version + 1 where s.id = :id")
+    int incrementVersion(@Param("id") int id);
+}
@@ -0,0 +1,67 @@
+package de.augmentia.example.mcp.sampletools;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content types of files, detected once per file version. A file is detected again when its
+ * modification time or size changes.
+ */
+@Slf4j
+class ContentTypeCache {
+
+    static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    // Detected files are forgotten all at once when there are more
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Tika tika = new Tika();
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param file       The file.
+     * @param attributes The attributes of the file, read by the caller anyway.
+     * @return The content type of the file, {@value #DEFAULT_CONTENT_TYPE} if it cannot be determined.
+     */
+    String detect(Path file, BasicFileAttributes attributes) {
+        long modified = attributes.lastModifiedTime().toMillis();
+        Entry entry = entries.get(file);
+        if (entry != null && entry.modified() == modified && entry.size() == attributes.size()) {
+            return entry.contentType();
+        }
+        String contentType = probe(file);
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+        entries.put(file, new Entry(modified, attributes.size(), contentType));
+        return contentType;
+    }
+
+    private String probe(Path file) {
+        try {
+            // The JDK only looks at the file name; Tika reads the beginning of the file if that is not enough
+            String contentType = Files.probeContentType(file);
+            if (contentType == null) {
+                contentType = tika.detect(file);
+            }
+            return contentType != null ? contentType : DEFAULT_CONTENT_TYPE;
+        } catch (IOException e) {
+            log.warn("Could not determine content type of {}: {}", file, e.getMessage());
+            return DEFAULT_CONTENT_TYPE;
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(long modified, long size, String contentType) {
+    }
+}
@@ -3,11 +3,11 @@ package de.augmentia.example.mcp.sampletools;
 import de.augmentia.example.mcp.service.RestApiExecutorService;
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.tika.Tika;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -16,10 +16,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
 
 import java.util.Map;
 
@@ -36,20 +36,30 @@ public class MCPToolController {
     @Value("${config.directory:}")
     private String configFilePath;
 
+    // Request attributes of Tomcat's sendfile support
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private RestApiExecutorService restApiExecutorService;
 
-    private final Tika tika = new Tika(); // For content type detection
+    private final ContentTypeCache contentTypes = new ContentTypeCache();
 
     /**
      * Reads a file from the server's file system and returns it as a downloadable resource.
+     * <p>
+     * On Tomcat, complete files are written with sendfile, so their content is never copied through the heap.
+     * Range requests are answered with {@code 206 Partial Content} from the file channel of the resource.
      *
      * @param filename The name of the file to retrieve.
+     * @param request  The request, to hand the file to the servlet container.
      * @return ResponseEntity containing the file resource and appropriate headers.
      */
     //TODO deactivate this endpoint for security reasons
     //@GetMapping("/files/{filename}")
-    public ResponseEntity<Resource> readFile(@PathVariable String filename) {
+    public ResponseEntity<Resource> readFile(@PathVariable String filename, HttpServletRequest request) {
         try {
             // 1. Sanitize filename to prevent directory traversal attacks
             // Normalize the path and resolve it against the base directory
@@ -62,48 +72,46 @@ public class MCPToolController {
             }
 
             // 2. Check if the file exists and is readable
-            if (!Files.exists(filePath) || !Files.isReadable(filePath) || Files.isDirectory(filePath)) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File '" + filename + "' not found or not accessible.");
-            }
-
-            // 3. Load the file as a Spring Resource
-            Resource resource = new UrlResource(filePath.toUri());
-
-            // 4. Determine content type (MIME type)
-            String contentType;
+            BasicFileAttributes attributes;
             try {
-                // Option A: Using Files.probeContentType (JDK built-in, less robust)
-                contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    // Fallback to Tika if JDK's probe fails or is too generic
-                    contentType = tika.detect(filePath.toFile());
-                }
+                attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
             } catch (IOException e) {
-                // Log error but proceed with generic type
-                System.err.println("Could not determine file content type for " + filename + ": " + e.getMessage());
-                contentType = "application/octet-stream"; // Default generic binary type
+                attributes = null;
+            }
+            if (attributes == null || attributes.isDirectory() || !Files.isReadable(filePath)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "File '" + filename + "' not found or not accessible.");
             }
 
-            if (contentType == null) {
-                contentType = "application/octet-stream"; // Final fallback
+            // 3. Determine content type (MIME type), cached per file version
+            MediaType contentType = MediaType.parseMediaType(contentTypes.detect(filePath, attributes));
+            String disposition = "inline; filename=\"" + filePath.getFileName() + "\"";
+
+            // 4. Let Tomcat send complete files with sendfile
+            if (request.getHeader(HttpHeaders.RANGE) == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, filePath.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, attributes.size());
+                return ResponseEntity.ok()
+                        .contentType(contentType)
+                        .contentLength(attributes.size())
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                        .build();
             }
 
-            // 5. Build and return the ResponseEntity
+            // 5. Build and return the ResponseEntity; Spring MVC answers Range requests from the resource
             return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
+                    .contentType(contentType)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
                     // Use "inline" to display in browser if possible, or "attachment" to force download
-                    .body(resource);
+                    .body(new FileSystemResource(filePath));
 
-        } catch (MalformedURLException e) {
-            // This can happen if the file path is invalid for a URL
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Error with file URL: " + e.getMessage());
         } catch (ResponseStatusException e) {
             // Re-throw already handled HTTP errors
             throw e;
         } catch (Exception e) {
             // Catch any other unexpected exceptions
-            System.err.println("An error occurred while serving file " + filename + ": " + e.getMessage());
+            log.error("An error occurred while serving file {}: {}", filename, e.getMessage());
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred while reading the file.");
         }
     }
@@ -0,0 +1,209 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Waits for upstream operations that answer {@code 202 Accepted} with a status URL. The status URL
+ * is polled with exponential backoff, or as the upstream asks with {@code Retry-After}, until the
+ * job has finished. Between two polls the returned {@link Mono} holds no thread: the wait is a
+ * timer of the Reactor scheduler and only the poll itself runs on a worker thread. A caller that
+ * blocks on the Mono holds its own thread for the whole wait, though.
+ */
+@Slf4j
+class AsyncJobPoller {
+
+    // Fields of a 202 response body that may hold the status URL if there is no Location header
+    private static final List<String> STATUS_URL_FIELDS = List.of("statusUrl", "status_url", "statusUri", "monitor", "href", "location");
+    // Fields of a status response that may hold the URL of the result
+    private static final List<String> RESULT_URL_FIELDS = List.of("resultUrl", "result_url", "resultUri", "resourceLocation");
+    private static final List<String> STATE_FIELDS = List.of("status", "state");
+    private static final List<String> PROGRESS_FIELDS = List.of("progress", "percentComplete", "percent_complete", "percentage");
+    private static final Set<String> RUNNING_STATES = Set.of("accepted", "pending", "queued", "waiting", "scheduled",
+            "notstarted", "not_started", "started", "running", "in_progress", "inprogress", "processing");
+    private static final Set<String> FAILED_STATES = Set.of("failed", "failure", "error", "cancelled", "canceled", "aborted",
+            "rejected", "timed_out", "timeout", "expired");
+
+    private final McpServerProperties.AsyncJobs properties;
+
+    AsyncJobPoller(McpServerProperties.AsyncJobs properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * A job accepted by the upstream.
+     *
+     * @param statusUrl  The absolute URL of the job status.
+     * @param retryAfter The delay the upstream asks for before the first poll, or null.
+     */
+    record AcceptedJob(String statusUrl, Duration retryAfter) {
+    }
+
+    /**
+     * The outcome of one poll.
+     *
+     * @param result     The final tool result, or null if the job is still running.
+     * @param retryAfter The delay the upstream asks for before the next poll, or null.
+     * @param progress   The progress the upstream reports, or null.
+     */
+    record Poll(McpSchema.CallToolResult result, Duration retryAfter, Long progress) {
+
+        static Poll running(Duration retryAfter, Long progress) {
+            return new Poll(null, retryAfter, progress);
+        }
+
+        static Poll done(McpSchema.CallToolResult result) {
+            return new Poll(result, null, null);
+        }
+    }
+
+    /**
+     * Polls the status URL once; called on a worker thread.
+     */
+    @FunctionalInterface
+    interface StatusFetcher {
+        Poll poll(String statusUrl) throws Exception;
+    }
+
+    /**
+     * Recognizes the job of a {@code 202 Accepted} response from its {@code Location} or
+     * {@code Operation-Location} header or from a status URL in its body.
+     *
+     * @param requestUrl The URL of the request, against which a relative status URL is resolved.
+     * @param body       The parsed response body, or null.
+     * @return The job, or null if the response names no status URL.
+     */
+    static AcceptedJob accepted(String requestUrl, HttpHeaders headers, JsonNode body) {
+        String statusUrl = headers.getFirst(HttpHeaders.LOCATION);
+        if (statusUrl == null) {
+            statusUrl = headers.getFirst("Operation-Location");
+        }
+        if (statusUrl == null && body != null) {
+            statusUrl = findText(body, STATUS_URL_FIELDS);
+            if (statusUrl == null) {
+                statusUrl = findText(body.path("links"), List.of("status", "self"));
+            }
+        }
+        if (statusUrl == null || statusUrl.isBlank()) {
+            return null;
+        }
+        return new AcceptedJob(URI.create(requestUrl).resolve(statusUrl).toString(), retryAfter(headers));
+    }
+
+    /**
+     * @return The state of a job status response: true if the job is still running, false if it failed,
+     * null if it succeeded or the response has no recognized state.
+     */
+    static Boolean running(JsonNode status) {
+        String state = findText(status, STATE_FIELDS);
+        if (state == null) {
+            return null;
+        }
+        String normalized = state.toLowerCase(Locale.ROOT).replace(' ', '_').replace('-', '_');
+        if (RUNNING_STATES.contains(normalized)) {
+            return Boolean.TRUE;
+        }
+        return FAILED_STATES.contains(normalized) ? Boolean.FALSE : null;
+    }
+
+    /**
+     * @return The URL of the result named by a finished job status, or null if the status is the result.
+     */
+    static String resultUrl(String statusUrl, JsonNode status) {
+        String resultUrl = findText(status, RESULT_URL_FIELDS);
+        if (resultUrl == null) {
+            resultUrl = findText(status.path("links"), List.of("result"));
+        }
+        return resultUrl != null ? URI.create(statusUrl).resolve(resultUrl).toString() : null;
+    }
+
+    /**
+     * @return The progress a job status reports, e.g. a percentage, or null.
+     */
+    static Long progress(JsonNode status) {
+        for (String name : PROGRESS_FIELDS) {
+            if (status.path(name).isNumber()) {
+                return status.get(name).asLong();
+            }
+        }
+        return null;
+    }
+
+    static Duration retryAfter(HttpHeaders headers) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            return null; // HTTP dates are not supported, the backoff applies
+        }
+    }
+
+    private static String findText(JsonNode node, List<String> names) {
+        for (String name : names) {
+            JsonNode value = node.path(name);
+            if (value.isTextual()) {
+                return value.asText();
+            }
+            if (value.isObject() && value.path("href").isTextual()) {
+                return value.get("href").asText();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Polls the job until it has finished or the timeout has passed. Each poll that finds the job
+     * still running is reported to the progress listener.
+     *
+     * @param progressListener Receives the progress while the job is running, or null.
+     * @return The result of the job; an error result if it did not finish in time.
+     */
+    Mono<McpSchema.CallToolResult> await(AcceptedJob job, StatusFetcher fetcher, ToolProgressListener progressListener) {
+        Instant deadline = Instant.now().plusSeconds(properties.getTimeoutSeconds());
+        Duration first = job.retryAfter() != null ? clamp(job.retryAfter()) : Duration.ofMillis(properties.getInitialDelayMillis());
+        return pollAfter(job, first, 1, deadline, fetcher, progressListener);
+    }
+
+    private Mono<McpSchema.CallToolResult> pollAfter(AcceptedJob job, Duration delay, int attempt, Instant deadline,
+                                                     StatusFetcher fetcher, ToolProgressListener progressListener) {
+        return Mono.delay(delay)
+                .then(Mono.fromCallable(() -> fetcher.poll(job.statusUrl())).subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(poll -> {
+                    if (poll.result() != null) {
+                        return Mono.just(poll.result());
+                    }
+                    if (progressListener != null) {
+                        progressListener.onProgress(poll.progress() != null ? poll.progress() : attempt,
+                                poll.progress() != null ? 100L : null, null);
+                    }
+                    Duration next = poll.retryAfter() != null ? clamp(poll.retryAfter())
+                            : clamp(Duration.ofMillis((long) (delay.toMillis() * properties.getBackoffMultiplier())));
+                    if (Instant.now().plus(next).isAfter(deadline)) {
+                        log.warn("Job {} still running after {} polls", job.statusUrl(), attempt);
+                        return Mono.just(new McpSchema.CallToolResult("The operation is still running after "
+                                + properties.getTimeoutSeconds() + " seconds. Its status is at " + job.statusUrl(), true));
+                    }
+                    return pollAfter(job, next, attempt + 1, deadline, fetcher, progressListener);
+                });
+    }
+
+    private Duration clamp(Duration delay) {
+        long millis = Math.max(properties.getInitialDelayMillis(), Math.min(delay.toMillis(), properties.getMaxDelayMillis()));
+        return Duration.ofMillis(millis);
+    }
+}
@@ -0,0 +1,159 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized tool catalog responses of one {@link McpServerService}, valid for a single catalog version.
+ * Every response shape and page is serialized once per version, and compressed at most once per
+ * content encoding; all entries are dropped when the catalog changes.
+ */
+@Slf4j
+public class CatalogResponseCache {
+
+    // Cursors are chosen by clients, so the number of cached pages is bounded
+    private static final int MAX_ENTRIES = 256;
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private final ObjectMapper objectMapper;
+
+    private long version = -1;
+    // Serialized responses of the current version in access order, keyed by response shape and page
+    private final LinkedHashMap<String, Response> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    CatalogResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return The cached response for the given key, or null if it was not serialized for this catalog version.
+     */
+    synchronized Response get(String key, long catalogVersion) {
+        return catalogVersion == version ? entries.get(key) : null;
+    }
+
+    /**
+     * Serializes a response and caches it unless the catalog moved on to a newer version meanwhile.
+     *
+     * @param key            The response shape and page.
+     * @param catalogVersion The catalog version the body was built from.
+     * @param body           The response body.
+     * @return The serialized response.
+     */
+    Response put(String key, long catalogVersion, Object body) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the tool catalog", e);
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(json);
+        // The checksum keeps ETags unique across restarts, which start counting versions again
+        Response response = new Response(json, "\"" + catalogVersion + "-" + Long.toHexString(checksum.getValue()) + "\"");
+        synchronized (this) {
+            if (catalogVersion > version) {
+                entries.clear();
+                version = catalogVersion;
+            }
+            if (catalogVersion == version) {
+                entries.put(key, response);
+                while (entries.size() > MAX_ENTRIES) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+        log.debug("Serialized catalog response {} of version {} ({} bytes)", key, catalogVersion, json.length);
+        return response;
+    }
+
+    /**
+     * Picks the content encoding for a response from the client's {@code Accept-Encoding} header,
+     * preferring gzip over deflate at equal quality.
+     *
+     * @param acceptEncoding The header value, may be null.
+     * @return {@value #GZIP}, {@value #DEFLATE} or null to send the response uncompressed.
+     */
+    public static String negotiateEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        String selected = null;
+        double selectedQuality = 0;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase();
+            double quality = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String parameter = tokens[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            String encoding = switch (coding) {
+                case GZIP, "x-gzip", "*" -> GZIP;
+                case DEFLATE -> DEFLATE;
+                default -> null;
+            };
+            if (encoding != null && quality > 0
+                    && (quality > selectedQuality || quality == selectedQuality && GZIP.equals(encoding))) {
+                selected = encoding;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    private static byte[] compress(byte[] data, String encoding) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (OutputStream out = GZIP.equals(encoding) ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * A serialized catalog response together with its entity tag and the compressed bodies built so far.
+     */
+    public record Response(byte[] json, String etag, Map<String, byte[]> encoded) {
+
+        public Response(byte[] json, String etag) {
+            this(json, etag, new ConcurrentHashMap<>());
+        }
+
+        /**
+         * @param encoding {@value #GZIP} or {@value #DEFLATE}.
+         * @return The compressed body, which is built on first use and shared by later requests.
+         */
+        public byte[] json(String encoding) {
+            return encoded.computeIfAbsent(encoding, coding -> compress(json, coding));
+        }
+
+        /**
+         * @return The entity tag of the compressed body, which differs from that of the uncompressed one.
+         */
+        public String etag(String encoding) {
+            return etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.augmentia.example.mcp.model.CompositeToolDef;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Executes composite tools: the steps are called one after the other, each with arguments resolved
+ * against the tool input and the results of the earlier steps. A step with {@code for_each} calls
+ * its tool in parallel for every element of an array. The tool result is a JSON object with the
+ * result of every step, keyed by step id, so the client needs one round trip instead of one per call.
+ * <p>
+ * Steps are blocking upstream exchanges that do not poll asynchronous jobs: a step answered with
+ * {@code 202 Accepted} gets the status response as its result. A thread is therefore held only for
+ * the duration of an exchange, bounded by the read timeout of the upstream client.
+ */
+@Slf4j
+class CompositeToolRunner {
+
+    // Upper limit of the calls of one for_each step
+    static final int MAX_FAN_OUT = 100;
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Pattern PATH_SEGMENT = Pattern.compile("([^.\\[\\]]+)|\\[(\\d+)]");
+
+    // Calls of one for_each step running at the same time
+    private static final int MAX_CONCURRENCY = 16;
+
+    private final RestApiExecutorService apiExecutor;
+    private final Function<String, String> baseUrls;
+    private final ObjectMapper jsonMapper;
+
+    /**
+     * @param apiExecutor The executor calling the upstream operations.
+     * @param baseUrls    Returns the base URL of an OpenAPI tool, or null if there is no such tool.
+     * @param jsonMapper  The mapper used for arguments and results.
+     */
+    CompositeToolRunner(RestApiExecutorService apiExecutor, Function<String, String> baseUrls, ObjectMapper jsonMapper) {
+        this.apiExecutor = apiExecutor;
+        this.baseUrls = baseUrls;
+        this.jsonMapper = jsonMapper;
+    }
+
+    /**
+     * @return The JSON input schema of a composite tool, generated from its parameters.
+     */
+    static String inputSchema(ObjectMapper mapper, CompositeToolDef composite) {
+        ObjectNode schema = mapper.createObjectNode().put("type", "object");
+        ObjectNode properties = schema.putObject("properties");
+        ArrayNode required = mapper.createArrayNode();
+        for (CompositeToolDef.Parameter parameter : composite.getParameters()) {
+            ObjectNode property = properties.putObject(parameter.getName()).put("type", parameter.getType());
+            if (parameter.getDescription() != null) {
+                property.put("description", parameter.getDescription());
+            }
+            if (parameter.isRequired()) {
+                required.add(parameter.getName());
+            }
+        }
+        if (!required.isEmpty()) {
+            schema.set("required", required);
+        }
+        return schema.toString();
+    }
+
+    McpSchema.CallToolResult run(CompositeToolDef composite, Map<String, Object> input) {
+        ObjectNode context = jsonMapper.createObjectNode();
+        context.set("input", jsonMapper.valueToTree(input != null ? input : Map.of()));
+        ObjectNode results = jsonMapper.createObjectNode();
+        for (CompositeToolDef.Step step : composite.getSteps()) {
+            try {
+                JsonNode result = step.getForEach() != null ? runForEach(step, context) : call(step, context);
+                context.set(step.getId(), result);
+                results.set(step.getId(), result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new McpSchema.CallToolResult("API call cancelled", false);
+            } catch (Exception e) {
+                Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Step {} of composite tool {} failed: {}", step.getId(), composite.getName(), cause.getMessage());
+                return new McpSchema.CallToolResult("Error in step " + step.getId() + " (" + step.getTool() + "): "
+                        + cause.getMessage(), true);
+            }
+        }
+        try {
+            return new McpSchema.CallToolResult(jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(results), false);
+        } catch (JsonProcessingException e) {
+            return new McpSchema.CallToolResult("Error: " + e.getMessage(), true);
+        }
+    }
+
+    private JsonNode runForEach(CompositeToolDef.Step step, ObjectNode context) throws Exception {
+        JsonNode items = lookup(context, step.getForEach().replaceAll("^\\$\\{|}$", ""));
+        if (!items.isArray()) {
+            throw new IllegalArgumentException("for_each does not refer to an array: " + step.getForEach());
+        }
+        if (items.size() > MAX_FAN_OUT) {
+            throw new IllegalArgumentException("for_each refers to " + items.size() + " elements, at most "
+                    + MAX_FAN_OUT + " are allowed");
+        }
+        List<JsonNode> elements = new ArrayList<>();
+        items.forEach(elements::add);
+        List<JsonNode> results = ParallelCalls.run(elements, MAX_CONCURRENCY, item -> {
+            ObjectNode itemContext = jsonMapper.createObjectNode().setAll(context); // Shares the read-only results
+            itemContext.set("item", item);
+            return call(step, itemContext);
+        });
+        return jsonMapper.createArrayNode().addAll(results);
+    }
+
+    private JsonNode call(CompositeToolDef.Step step, JsonNode context) throws Exception {
+        String baseUrl = baseUrls.apply(step.getTool());
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("Unknown tool: " + step.getTool());
+        }
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        step.getArguments().forEach((name, template) -> {
+            Object value = resolve(template, context);
+            if (value != null) { // Unresolved optional values are left out
+                arguments.put(name, value);
+            }
+        });
+        return apiExecutor.executeForJson(baseUrl, step.getTool(), arguments);
+    }
+
+    /**
+     * Resolves the expressions in an argument value. A string that consists of a single expression
+     * takes the type of the referenced value; expressions within a longer string are replaced by text.
+     */
+    Object resolve(Object template, JsonNode context) {
+        if (template instanceof String text) {
+            Matcher matcher = EXPRESSION.matcher(text);
+            if (matcher.matches()) {
+                JsonNode value = lookup(context, matcher.group(1));
+                return value.isMissingNode() || value.isNull() ? null : jsonMapper.convertValue(value, Object.class);
+            }
+            StringBuilder resolved = new StringBuilder();
+            matcher.reset();
+            while (matcher.find()) {
+                JsonNode value = lookup(context, matcher.group(1));
+                String replacement = value.isMissingNode() || value.isNull() ? ""
+                        : value.isValueNode() ? value.asText() : value.toString();
+                matcher.appendReplacement(resolved, Matcher.quoteReplacement(replacement));
+            }
+            matcher.appendTail(resolved);
+            return resolved.toString();
+        }
+        if (template instanceof Map<?, ?> map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            map.forEach((key, value) -> resolved.put(String.valueOf(key), resolve(value, context)));
+            return resolved;
+        }
+        if (template instanceof List<?> list) {
+            return list.stream().map(value -> resolve(value, context)).toList();
+        }
+        return template;
+    }
+
+    /**
+     * Looks up a path like {@code customer.orders[0].id}; a missing value is a {@link MissingNode}.
+     */
+    private static JsonNode lookup(JsonNode context, String path) {
+        JsonNode node = context;
+        Matcher matcher = PATH_SEGMENT.matcher(path.trim());
+        while (matcher.find() && !node.isMissingNode()) {
+            node = matcher.group(1) != null ? node.path(matcher.group(1)) : node.path(Integer.parseInt(matcher.group(2)));
+        }
+        return node;
+    }
+}
@@ -1,8 +1,11 @@
 package de.augmentia.example.mcp.service;
 
 import de.augmentia.example.mcp.exception.ConfigurationLoadingException;
+import de.augmentia.example.mcp.model.CompositeToolDef;
 import de.augmentia.example.mcp.model.OpenApiDef;
 import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.model.ResponseShapeRule;
+import de.augmentia.example.mcp.model.ToolProfile;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
@@ -17,6 +20,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -120,20 +124,21 @@ public class McpConfigurationService {
             mcpServer.setName(serverNode.get("name").asText());
             mcpServer.setUrl(serverNode.get("url").asText());
             mcpServer.setPort_number(serverNode.get("port_number").asInt());
+            parseToolsAndLimits(serverNode, mcpServer);
 
-            JsonNode toolsNode = serverNode.get("tools");
-            if (toolsNode != null && toolsNode.isArray()) {
-                for (JsonNode toolNode : toolsNode) {
-                    OpenApiDef tool = new OpenApiDef();
-                    tool.setName(toolNode.get("name").asText());
-                    tool.setDescription(toolNode.get("description").asText());
-                    tool.setRestApiUrl(toolNode.get("rest_api_url").asText());
-                    mcpServer.addTool(tool);
+            JsonNode instancesNode = serverNode.get("instances");
+            if (instancesNode != null && instancesNode.isArray()) {
+                for (JsonNode instanceNode : instancesNode) {
+                    McpServer instance = new McpServer();
+                    instance.setName(instanceNode.get("name").asText());
+                    instance.setPath(instanceNode.path("path").asText("/" + instance.getName()));
+                    instance.setEnvironmentVariables(envMap);
+                    parseToolsAndLimits(instanceNode, instance);
+                    mcpServer.getInstances().add(instance);
                 }
-            } else if (toolsNode != null) { // If 'tools' exists but is not an array
-                throw new ConfigurationLoadingException("Invalid 'tools' configuration format. Must be an array.");
+            } else if (instancesNode != null) {
+                throw new ConfigurationLoadingException("Invalid 'instances' configuration format. Must be an array.");
             }
-            // If toolsNode is null, it means no tools are defined, which is acceptable.
 
         } catch (Exception e) {
             throw new ConfigurationLoadingException("Error parsing MCP server configuration: " + e.getMessage(), e);
@@ -141,6 +146,150 @@ public class McpConfigurationService {
         return mcpServer;
     }
 
+    /**
+     * Parses the tools, call limits and tool profiles of the main server or of an additional instance.
+     *
+     * @param serverNode The JsonNode of the server or instance.
+     * @param mcpServer  The {@link McpServer} to populate.
+     */
+    private void parseToolsAndLimits(JsonNode serverNode, McpServer mcpServer) {
+        if (serverNode.hasNonNull("max_concurrent_calls")) {
+            mcpServer.setMaxConcurrentCalls(serverNode.get("max_concurrent_calls").asInt());
+        }
+        if (serverNode.hasNonNull("rate_limit_per_second")) {
+            mcpServer.setRateLimitPerSecond(serverNode.get("rate_limit_per_second").asDouble());
+        }
+
+        JsonNode toolsNode = serverNode.get("tools");
+        if (toolsNode != null && toolsNode.isArray()) {
+            for (JsonNode toolNode : toolsNode) {
+                OpenApiDef tool = new OpenApiDef();
+                tool.setName(toolNode.get("name").asText());
+                tool.setDescription(toolNode.get("description").asText());
+                tool.setRestApiUrl(toolNode.get("rest_api_url").asText());
+                tool.setLazy(toolNode.path("lazy").asBoolean(false));
+                tool.setCritical(toolNode.path("critical").asBoolean(!tool.isLazy()));
+                JsonNode endpointsNode = toolNode.path("endpoints");
+                if (!endpointsNode.isMissingNode() && !endpointsNode.isArray()) {
+                    throw new ConfigurationLoadingException("Invalid 'endpoints' of tool " + tool.getName() + ". Must be an array.");
+                }
+                endpointsNode.forEach(endpoint -> tool.getEndpoints().add(endpoint.asText()));
+                mcpServer.addTool(tool);
+            }
+        } else if (toolsNode != null) { // If 'tools' exists but is not an array
+            throw new ConfigurationLoadingException("Invalid 'tools' configuration format. Must be an array.");
+        }
+        // If toolsNode is null, it means no tools are defined, which is acceptable.
+
+        parseToolProfiles(serverNode, mcpServer);
+        parseResponseShapes(serverNode, mcpServer);
+        parseCompositeTools(serverNode, mcpServer);
+    }
+
+    /**
+     * Parses the tool profiles of the main server or of an additional instance.
+     *
+     * @param serverNode The JsonNode of the server or instance.
+     * @param mcpServer  The {@link McpServer} to populate.
+     */
+    private void parseToolProfiles(JsonNode serverNode, McpServer mcpServer) {
+        JsonNode profilesNode = serverNode.get("tool_profiles");
+        if (profilesNode == null) {
+            return;
+        }
+        if (!profilesNode.isArray()) {
+            throw new ConfigurationLoadingException("Invalid 'tool_profiles' configuration format. Must be an array.");
+        }
+        for (JsonNode profileNode : profilesNode) {
+            ToolProfile profile = new ToolProfile();
+            profile.setName(profileNode.get("name").asText());
+            profileNode.path("specs").forEach(spec -> profile.getSpecs().add(spec.asText()));
+            profileNode.path("tags").forEach(tag -> profile.getTags().add(tag.asText()));
+            profileNode.path("tools").forEach(tool -> profile.getTools().add(tool.asText()));
+            mcpServer.getToolProfiles().add(profile);
+        }
+    }
+
+    /**
+     * Parses the response shaping rules of the main server or of an additional instance.
+     *
+     * @param serverNode The JsonNode of the server or instance.
+     * @param mcpServer  The {@link McpServer} to populate.
+     */
+    private void parseResponseShapes(JsonNode serverNode, McpServer mcpServer) {
+        JsonNode shapesNode = serverNode.get("response_shapes");
+        if (shapesNode == null) {
+            return;
+        }
+        if (!shapesNode.isArray()) {
+            throw new ConfigurationLoadingException("Invalid 'response_shapes' configuration format. Must be an array.");
+        }
+        for (JsonNode shapeNode : shapesNode) {
+            ResponseShapeRule rule = new ResponseShapeRule();
+            shapeNode.path("tools").forEach(tool -> rule.getTools().add(tool.asText()));
+            shapeNode.path("fields").forEach(field -> rule.getFields().add(field.asText()));
+            if (shapeNode.hasNonNull("max_items")) {
+                rule.setMaxItems(shapeNode.get("max_items").asInt());
+            }
+            if (shapeNode.hasNonNull("max_string_length")) {
+                rule.setMaxStringLength(shapeNode.get("max_string_length").asInt());
+            }
+            if (shapeNode.hasNonNull("format")) {
+                rule.setFormat(shapeNode.get("format").asText());
+            }
+            mcpServer.getResponseShapes().add(rule);
+        }
+    }
+
+    /**
+     * Parses the composite tools of the main server or of an additional instance.
+     *
+     * @param serverNode The JsonNode of the server or instance.
+     * @param mcpServer  The {@link McpServer} to populate.
+     */
+    @SuppressWarnings("unchecked")
+    private void parseCompositeTools(JsonNode serverNode, McpServer mcpServer) {
+        JsonNode compositesNode = serverNode.get("composite_tools");
+        if (compositesNode == null) {
+            return;
+        }
+        if (!compositesNode.isArray()) {
+            throw new ConfigurationLoadingException("Invalid 'composite_tools' configuration format. Must be an array.");
+        }
+        for (JsonNode compositeNode : compositesNode) {
+            if (!compositeNode.hasNonNull("name") || !compositeNode.path("steps").isArray()
+                    || compositeNode.path("steps").isEmpty()) {
+                throw new ConfigurationLoadingException("Invalid composite tool: 'name' and 'steps' are required.");
+            }
+            CompositeToolDef composite = new CompositeToolDef();
+            composite.setName(compositeNode.get("name").asText());
+            composite.setDescription(compositeNode.path("description").asText(null));
+            for (JsonNode parameterNode : compositeNode.path("parameters")) {
+                CompositeToolDef.Parameter parameter = new CompositeToolDef.Parameter();
+                parameter.setName(parameterNode.get("name").asText());
+                parameter.setType(parameterNode.path("type").asText("string"));
+                parameter.setDescription(parameterNode.path("description").asText(null));
+                parameter.setRequired(parameterNode.path("required").asBoolean(false));
+                composite.getParameters().add(parameter);
+            }
+            for (JsonNode stepNode : compositeNode.get("steps")) {
+                if (!stepNode.hasNonNull("id") || !stepNode.hasNonNull("tool")) {
+                    throw new ConfigurationLoadingException("Invalid step of composite tool " + composite.getName()
+                            + ": 'id' and 'tool' are required.");
+                }
+                CompositeToolDef.Step step = new CompositeToolDef.Step();
+                step.setId(stepNode.get("id").asText());
+                step.setTool(stepNode.get("tool").asText());
+                if (stepNode.path("arguments").isObject()) {
+                    step.setArguments(yamlMapper.convertValue(stepNode.get("arguments"), LinkedHashMap.class));
+                }
+                step.setForEach(stepNode.path("for_each").asText(null));
+                composite.getSteps().add(step);
+            }
+            mcpServer.getCompositeTools().add(composite);
+        }
+    }
+
     /**
      * Returns the file from which the configuration was loaded, if it was loaded from a file path.
      *
@@ -0,0 +1,41 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.transport.InterceptingSseServerTransportProvider;
+import de.augmentia.example.mcp.transport.StreamableHttpEndpoint;
+import io.modelcontextprotocol.server.McpSyncServer;
+import lombok.Getter;
+
+/**
+ * An additional MCP server hosted in this process. Each instance has its own endpoints,
+ * tool registry, upstream HTTP client and call limits; it shares only the spec cache
+ * with the other instances.
+ */
+@Getter
+public class McpServerInstance {
+
+    private final String name;
+    private final String path;
+    private final InterceptingSseServerTransportProvider transportProvider;
+    private final StreamableHttpEndpoint streamableHttpEndpoint; // Null if Streamable HTTP is disabled
+    private final McpSyncServer mcpSyncServer;
+    private final McpServerService mcpServerService;
+
+    public McpServerInstance(String name, String path, InterceptingSseServerTransportProvider transportProvider,
+                             StreamableHttpEndpoint streamableHttpEndpoint, McpSyncServer mcpSyncServer,
+                             McpServerService mcpServerService) {
+        this.name = name;
+        this.path = path;
+        this.transportProvider = transportProvider;
+        this.streamableHttpEndpoint = streamableHttpEndpoint;
+        this.mcpSyncServer = mcpSyncServer;
+        this.mcpServerService = mcpServerService;
+    }
+
+    public String getSseEndpoint() {
+        return path + "/sse";
+    }
+
+    public String getMessageEndpoint() {
+        return path + "/mcp/message";
+    }
+}
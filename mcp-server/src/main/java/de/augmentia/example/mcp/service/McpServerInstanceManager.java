@@ -0,0 +1,154 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.config.SecurityProperties;
+import de.augmentia.example.mcp.exception.ConfigurationLoadingException;
+import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.transport.InterceptingSseServerTransportProvider;
+import de.augmentia.example.mcp.transport.McpSessionRegistry;
+import de.augmentia.example.mcp.transport.StreamableHttpEndpoint;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Creates the additional server instances declared under {@code mcp_server.instances} in mcp_server.yml.
+ * The instances are created once at startup, since their endpoints have to be known when the
+ * web layer is initialized; their tools are loaded by {@link StartupToolLoader} like those of the main server.
+ */
+@Slf4j
+public class McpServerInstanceManager {
+
+    private final Map<String, McpServerInstance> instances = new LinkedHashMap<>();
+
+    public McpServerInstanceManager(McpConfigurationService mcpConfigurationService,
+                                    SpringAIToolConverterService springAIToolConverterService,
+                                    SecurityProperties securityProperties,
+                                    McpServerProperties mcpServerProperties,
+                                    SpecCache specCache,
+                                    ResourceLoader resourceLoader,
+                                    RestTemplateBuilder restTemplateBuilder,
+                                    ObjectMapper objectMapper,
+                                    McpSessionRegistry sessionRegistry,
+                                    ResultSpool resultSpool,
+                                    UpstreamBalancer upstreamBalancer,
+                                    String configDirectory) {
+        List<McpServer> configured;
+        try {
+            configured = mcpConfigurationService.loadMcpServerConfiguration().getInstances();
+        } catch (ConfigurationLoadingException e) {
+            log.warn("No additional MCP server instances created: {}", e.getMessage());
+            return;
+        }
+
+        for (McpServer config : configured) {
+            if (instances.containsKey(config.getName())) {
+                throw new ConfigurationLoadingException("Duplicate MCP server instance name: " + config.getName());
+            }
+            String path = normalizePath(config.getPath());
+
+            InterceptingSseServerTransportProvider transportProvider = new InterceptingSseServerTransportProvider(
+                    objectMapper, "", path + "/mcp/message", path + "/sse");
+            transportProvider.setSessionRegistry(sessionRegistry);
+            McpSyncServer mcpSyncServer = io.modelcontextprotocol.server.McpServer.sync(transportProvider)
+                    .serverInfo(config.getName(), "1.0.0")
+                    .capabilities(McpSchema.ServerCapabilities.builder().tools(true).resources(false, false).logging().build())
+                    .objectMapper(objectMapper)
+                    .build();
+
+            // Own converter and executor, so path mappings and upstream connections are not shared
+            OpenApiToMcpConverter converter = new OpenApiToMcpConverter();
+            converter.setLazyMaterialization(mcpServerProperties.getCatalog().isLazyMaterialization());
+            RestApiExecutorService apiExecutor = new RestApiExecutorService(
+                    createRestTemplate(restTemplateBuilder, mcpServerProperties.getUpstream()), securityProperties, converter);
+            apiExecutor.setResultSpool(resultSpool);
+            apiExecutor.setMcpServerProperties(mcpServerProperties);
+            apiExecutor.setUpstreamBalancer(upstreamBalancer);
+            McpServerService service = new McpServerService(converter, apiExecutor, mcpSyncServer,
+                    resourceLoader, springAIToolConverterService, mcpConfigurationService);
+            // The persistent registry holds registrations of the main server only, so it is not set here
+            service.setConfigFilePath(configDirectory);
+            service.setSpecCache(specCache);
+            service.setMcpServerProperties(mcpServerProperties);
+            service.setResultSpool(resultSpool);
+            service.setTransportProvider(transportProvider);
+            String name = config.getName();
+            service.setConfigurationSource(() -> findInstance(mcpConfigurationService.loadMcpServerConfiguration(), name));
+
+            StreamableHttpEndpoint streamableHttpEndpoint = null;
+            if (mcpServerProperties.getStreamableHttp().isEnabled()) {
+                streamableHttpEndpoint = new StreamableHttpEndpoint(objectMapper,
+                        path + mcpServerProperties.getStreamableHttp().getEndpoint(), transportProvider);
+                streamableHttpEndpoint.setResponseTimeout(Duration.ofSeconds(mcpServerProperties.getStreamableHttp().getResponseTimeoutSeconds()));
+            }
+
+            instances.put(name, new McpServerInstance(name, path, transportProvider, streamableHttpEndpoint, mcpSyncServer, service));
+            log.info("Created MCP server instance {} at {}/sse", name, path);
+        }
+    }
+
+    private static RestTemplate createRestTemplate(RestTemplateBuilder builder, McpServerProperties.Upstream upstream) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(upstream.getConnectTimeoutMillis()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(upstream.getReadTimeoutMillis()));
+        return builder.requestFactory(() -> requestFactory).build();
+    }
+
+    private static String normalizePath(String path) {
+        String normalized = path.startsWith("/") ? path : "/" + path;
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
+    }
+
+    private static McpServer findInstance(McpServer mcpServer, String name) {
+        return mcpServer.getInstances().stream()
+                .filter(instance -> instance.getName().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new ConfigurationLoadingException("MCP server instance " + name + " is no longer configured."));
+    }
+
+    /**
+     * Returns the router function serving the endpoints of all instances.
+     */
+    public RouterFunction<ServerResponse> getRouterFunction() {
+        RouterFunction<ServerResponse> routerFunction = request -> Optional.empty();
+        for (McpServerInstance instance : instances.values()) {
+            routerFunction = routerFunction.and(instance.getTransportProvider().getRouterFunction());
+            if (instance.getStreamableHttpEndpoint() != null) {
+                routerFunction = routerFunction.and(instance.getStreamableHttpEndpoint().getRouterFunction());
+            }
+        }
+        return routerFunction;
+    }
+
+    public Collection<McpServerInstance> getInstances() {
+        return Collections.unmodifiableCollection(instances.values());
+    }
+
+    public Optional<McpServerInstance> getInstance(String name) {
+        return Optional.ofNullable(instances.get(name));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        instances.values().forEach(instance -> {
+            if (instance.getStreamableHttpEndpoint() != null) {
+                instance.getStreamableHttpEndpoint().closeAll();
+            }
+            instance.getMcpSyncServer().closeGracefully();
+        });
+    }
+}
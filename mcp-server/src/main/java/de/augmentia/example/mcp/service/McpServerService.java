@@ -1,16 +1,28 @@
 package de.augmentia.example.mcp.service;
 
+import de.augmentia.example.mcp.config.McpServerProperties;
 import de.augmentia.example.mcp.controller.McpServerController;
 import de.augmentia.example.mcp.exception.*;
 import de.augmentia.example.mcp.model.OpenApiDef;
+import de.augmentia.example.mcp.model.CompositeToolDef;
 import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.model.PersistedSpec;
+import de.augmentia.example.mcp.model.SpecRecord;
+import de.augmentia.example.mcp.model.ToolPage;
+import de.augmentia.example.mcp.model.ToolProfile;
+import de.augmentia.example.mcp.model.ToolSearchHit;
+import de.augmentia.example.mcp.transport.InterceptingSseServerTransportProvider;
+import de.augmentia.example.mcp.transport.McpSessionContext;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.server.McpSyncServerExchange;
+import io.modelcontextprotocol.spec.McpError;
 import io.modelcontextprotocol.spec.McpSchema;
 import io.modelcontextprotocol.spec.McpSchema.Tool;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +31,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -26,10 +41,16 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Main service for the MCP (Model Context Protocol) Server application.
@@ -49,15 +70,69 @@ public class McpServerService {
     private final McpConfigurationService mcpConfigurationService; // New dependency
 
     private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    // Name of the meta-tool agents use to discover tools without loading the whole catalog
+    static final String SEARCH_TOOL_NAME = "search_tools";
+    // Name of the meta-tool agents use to call several tools in one round trip
+    static final String BATCH_TOOL_NAME = "batch_invoke";
+    // Session attribute and experimental client capability holding the selected tool profile
+    static final String PROFILE_ATTRIBUTE = "toolProfile";
+    // Not defined by the MCP SDK
+    static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
 
     private HashMap <String, String> envMap = new HashMap<>(); // Environment variables map
 
+    private McpServer mcpServerConfig = new McpServer(); // Configuration of the last (re-)initialization
+
+    private Supplier<McpServer> configurationSource; // Loads the configuration of this instance, defaults to mcp_server.yml
+
+    private SpecCache specCache; // Compiled specs shared with the other server instances, optional
+
+    private volatile ToolCallLimiter callLimiter = ToolCallLimiter.UNLIMITED;
+
+    private PersistentToolRegistry persistentRegistry; // Shares runtime registrations across replicas, optional
+
+    private long persistedVersion; // Last version of the persistent registry applied to this service
+    // Registry version of each persisted spec as last applied or written, keyed by spec id
+    private final Map<String, Long> persistedSpecVersions = new HashMap<>();
+    // Sequence of the latest captured change of each spec that is not written yet, keyed by spec id
+    private final Map<String, Long> pendingPersistedChanges = new HashMap<>();
+    private long persistedChangeSequence;
+    // Serializes the writes to the persistent registry, which happen outside the lock of this service
+    private final Object persistLock = new Object();
+
+    private McpServerProperties.Catalog catalogProperties = new McpServerProperties.Catalog();
+    // Complete definitions of the tools that were listed or called, keyed by tool name
+    private final Map<String, Tool> materializedTools = new ConcurrentHashMap<>();
+    // Number of calls per tool, kept across reloads to pre-warm the most used tools
+    private final Map<String, LongAdder> callCounts = new ConcurrentHashMap<>();
+
     // List of all tools currently managed by this MCP server instance
     private final List<Tool> tools = new ArrayList<>();
-    // Map to store base URLs for OpenAPI-defined tools, keyed by tool name
-    private final Map<String, String> toolBaseUrls = new HashMap<>();
+    // Incremented whenever a tool is added or removed; part of every page cursor
+    private volatile long catalogVersion;
+    // Serialized tools/list and /api/tools responses of the current catalog version
+    private final CatalogResponseCache catalogResponses = new CatalogResponseCache(jsonMapper);
+    // Search index over the tools of this registry, updated whenever a tool is added or removed
+    private final ToolSearchIndex searchIndex = new ToolSearchIndex();
+    // Tool names of each tool profile as of the catalog version they were resolved for, keyed by profile name
+    private final Map<String, ProfileMembers> profileMembers = new ConcurrentHashMap<>();
+    // Map to store base URLs for OpenAPI-defined tools, keyed by tool name. This map, the owning spec ids
+    // and the hardcoded handlers are written under the lock of this service but read by tool calls without it
+    private final Map<String, String> toolBaseUrls = new ConcurrentHashMap<>();
+    // Spec records owning the OpenAPI tools, keyed by spec id
+    private final Map<String, SpecRecord> specs = new LinkedHashMap<>();
+    // Owning spec id of each OpenAPI tool, keyed by tool name
+    private final Map<String, String> toolSpecIds = new ConcurrentHashMap<>();
+    // Lazy specs from mcp_server.yml that are compiled on first use, keyed by spec name
+    private final Map<String, OpenApiDef> lazySpecs = new ConcurrentHashMap<>();
     // Map to store handlers for hardcoded tools, keyed by tool name
-    private final Map<String, BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult>> hardcodedToolHandlers = new HashMap<>();
+    private final Map<String, BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult>> hardcodedToolHandlers = new ConcurrentHashMap<>();
+
+    private ResultSpool resultSpool; // Serves the results spooled by the executor, if set
+
+    private final CompositeToolRunner compositeRunner; // Runs the composite tools of the configuration
 
     @Value("${config.directory:}")
     private String configFilePath;
@@ -85,82 +160,377 @@ public class McpServerService {
         this.resourceLoader = resourceLoader;
         this.springAIToolConverterService = springAIToolConverterService;
         this.mcpConfigurationService = mcpConfigurationService;
+        this.compositeRunner = new CompositeToolRunner(apiExecutor, toolName -> {
+            loadLazySpecs(); // The steps may call tools of lazy specs
+            return toolBaseUrls.get(toolName);
+        }, jsonMapper);
+    }
+
+    /**
+     * Sets the source of the configuration this service loads on (re-)initialization.
+     * Additional server instances use it to serve their own section of mcp_server.yml.
+     *
+     * @param configurationSource The supplier of the server configuration.
+     */
+    public void setConfigurationSource(Supplier<McpServer> configurationSource) {
+        this.configurationSource = configurationSource;
+    }
+
+    @Autowired(required = false)
+    public void setSpecCache(SpecCache specCache) {
+        this.specCache = specCache;
+    }
+
+    @Autowired(required = false)
+    public void setResultSpool(ResultSpool resultSpool) {
+        this.resultSpool = resultSpool;
+    }
+
+    @Autowired(required = false)
+    public void setMcpServerProperties(McpServerProperties mcpServerProperties) {
+        this.catalogProperties = mcpServerProperties.getCatalog();
+    }
+
+    /**
+     * Serves {@code tools/list} of the given transport from this registry, so that tool
+     * stubs are materialized when they are listed. A session that selects a tool profile at
+     * initialization ({@code capabilities.experimental.toolProfile}) only lists and calls the tools of that profile.
+     * Results spooled to disk are read with {@code resources/read}.
+     *
+     * @param transportProvider The transport of the {@link McpSyncServer} of this service.
+     */
+    @Autowired(required = false)
+    public void setTransportProvider(InterceptingSseServerTransportProvider transportProvider) {
+        transportProvider.addInterceptor(McpSchema.METHOD_INITIALIZE, (session, request) -> {
+            String profile = requestedProfile(request.params());
+            if (profile != null) {
+                try {
+                    profileToolNames(profile);
+                } catch (IllegalArgumentException e) {
+                    throw invalidParams(e.getMessage());
+                }
+                session.setAttribute(PROFILE_ATTRIBUTE, profile);
+                log.info("Session {} uses tool profile {}", session.getId(), profile);
+            }
+            return null; // The MCP server completes the initialization
+        });
+        transportProvider.addInterceptor(McpSchema.METHOD_TOOLS_LIST, (session, request) -> {
+            String cursor = request.params() instanceof Map<?, ?> params && params.get("cursor") instanceof String value ? value : null;
+            String profile = (String) session.getAttribute(PROFILE_ATTRIBUTE);
+            try {
+                return new RawValue(new String(getCatalogResponse(true, cursor, null, profile).json(), StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw invalidParams(e.getMessage());
+            }
+        });
+        transportProvider.addInterceptor(McpSchema.METHOD_TOOLS_CALL, (session, request) -> {
+            if (!(request.params() instanceof Map<?, ?> params)) {
+                return null;
+            }
+            String toolName = String.valueOf(params.get("name"));
+            @SuppressWarnings("unchecked")
+            Map<String, Object> arguments = params.get("arguments") instanceof Map<?, ?> map
+                    ? (Map<String, Object>) map : Map.of();
+            String profile = (String) session.getAttribute(PROFILE_ATTRIBUTE);
+            if (profile != null) {
+                if (!profileToolNames(profile).contains(toolName)) {
+                    throw invalidParams("Unknown tool: " + toolName);
+                }
+                if (SEARCH_TOOL_NAME.equals(toolName)) {
+                    return callSearchTool(arguments, profile); // Searches only the tools of the profile
+                }
+                if (BATCH_TOOL_NAME.equals(toolName)) {
+                    return callBatchToolAsync(arguments, profile); // Calls only the tools of the profile
+                }
+            }
+            if (BATCH_TOOL_NAME.equals(toolName) && hardcodedToolHandlers.containsKey(BATCH_TOOL_NAME)) {
+                return callBatchToolAsync(arguments, null);
+            }
+            if (toolBaseUrls.containsKey(toolName)) {
+                // Runs like a tool of the MCP server, but does not hold a thread while an upstream job is polled.
+                // With a progress token, the upstream response is streamed as progress notifications.
+                Object progressToken = params.get("_meta") instanceof Map<?, ?> meta ? meta.get("progressToken") : null;
+                ToolProgressListener listener = progressToken == null ? null : (progress, total, partialContent) ->
+                        sendProgress(session, progressToken, progress, total, partialContent);
+                return callToolAsync(toolName, arguments, listener);
+            }
+            return null;
+        });
+        transportProvider.addInterceptor(McpSchema.METHOD_RESOURCES_READ, (session, request) -> {
+            ResultSpool spool = resultSpool;
+            if (spool == null || !(request.params() instanceof Map<?, ?> params) || !(params.get("uri") instanceof String uri)) {
+                return null;
+            }
+            try {
+                return spool.read(uri); // Null for other resources, which the MCP server reads
+            } catch (IllegalArgumentException e) {
+                throw invalidParams(e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Sends a {@code notifications/progress} for a tool call. The records read since the last
+     * notification are sent as its message, so agents can start working on them before the call completes.
+     */
+    private void sendProgress(McpSessionContext session, Object progressToken, long progress, Long total,
+                              String partialContent) {
+        Map<String, Object> params = new LinkedHashMap<>();
+        params.put("progressToken", progressToken);
+        params.put("progress", progress);
+        if (total != null) {
+            params.put("total", total);
+        }
+        if (partialContent != null) {
+            params.put("message", partialContent);
+        }
+        session.sendNotification(METHOD_NOTIFICATION_PROGRESS, params)
+                .subscribe(null, e -> log.debug("Progress notification of session {} failed: {}", session.getId(), e.getMessage()));
+    }
+
+    /**
+     * Reads the tool profile a client requested in the {@code experimental} capabilities of its initialize request.
+     */
+    private static String requestedProfile(Object params) {
+        if (params instanceof Map<?, ?> request
+                && request.get("capabilities") instanceof Map<?, ?> capabilities
+                && capabilities.get("experimental") instanceof Map<?, ?> experimental
+                && experimental.get(PROFILE_ATTRIBUTE) instanceof String profile) {
+            return profile;
+        }
+        return null;
+    }
+
+    private static McpError invalidParams(String message) {
+        return new McpError(new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_PARAMS, message, null));
+    }
+
+    void setConfigFilePath(String configFilePath) {
+        this.configFilePath = configFilePath;
+    }
+
+    @Autowired(required = false)
+    public void setPersistentRegistry(PersistentToolRegistry persistentRegistry) {
+        this.persistentRegistry = persistentRegistry;
     }
 
     /**
      * Initializes the MCP server by loading tools from configuration,
      * adding hardcoded tools, and registering them with the MCP synchronization server.
-     * This method is typically called once during application startup.
+     * All specs, including lazy ones, are compiled before this method returns.
+     * Application startup uses {@link StartupToolLoader} instead, which loads the specs in the background.
      *
      * @throws ConfigurationLoadingException if there's an issue loading the server configuration.
      * @throws ToolRegistrationException     if there's an issue registering tools.
      * @throws ExternalApiException          if there's an issue initializing an external API.
      * @throws InvalidOpenApiSpecException   if an OpenAPI specification is invalid.
      */
-    public void initTools() {
+    public synchronized void initTools() {
+        Set<String> previousToolNames = new HashSet<>();
+        tools.forEach(t -> previousToolNames.add(t.name()));
+
+        McpServer mcpServer = reloadConfiguration();
+
+        // Initialize tools defined in mcp_server.yml
+        for (OpenApiDef tool : mcpServer.getTools()) {
+            CompiledSpec compiled = compileSpec(tool);
+            if (compiled != null && !compiled.tools().isEmpty()) {
+                adoptTools(tool.getName(), tool.getRestApiUrl(), compiled.baseUrl(), compiled.tools(),
+                        compiled.pathItems(), compiled.endpoints());
+            }
+        }
+
+
+        restorePersistedSpecs();
+        prewarm(tools.stream().map(Tool::name).toList());
+        updateMcpServerTools(); // Register all collected tools with McpSyncServer
+
+        // Unregister tools that disappeared from the configuration since the last initialization
+        tools.forEach(t -> previousToolNames.remove(t.name()));
+        unregisterFromMcpServer(previousToolNames);
+
+        log.info("Spring-based MCP Server ready for integration.");
+        log.info("Available tools: {}", this.getTools().size());
+    }
+
+    /**
+     * Clears the registry and reloads the server configuration without compiling any spec.
+     * The specs of the returned configuration are then loaded one by one with {@link #loadSpec(OpenApiDef)}
+     * or deferred with {@link #deferSpec(OpenApiDef)}.
+     *
+     * @return The freshly loaded server configuration.
+     * @throws ConfigurationLoadingException if there's an issue loading the server configuration.
+     */
+    public synchronized McpServer resetTools() {
+        Set<String> previousToolNames = new HashSet<>();
+        tools.forEach(t -> previousToolNames.add(t.name()));
+        McpServer mcpServer = reloadConfiguration();
+        restorePersistedSpecs(); // Stored in compiled form, so this does not delay startup like the specs do
+        unregisterFromMcpServer(previousToolNames);
+        updateMcpServerTools(); // Hardcoded tools and persisted registrations are available right away
+        return mcpServer;
+    }
+
+    /**
+     * Compiles a single spec from the configuration and registers its tools with the {@link McpSyncServer}.
+     * Downloading and parsing happen without holding the registry lock, so catalog reads and tool
+     * calls are not blocked while a slow spec loads.
+     *
+     * @param tool The spec definition from mcp_server.yml.
+     * @return The names of the tools that were added.
+     * @throws ToolRegistrationException   if the spec cannot be loaded or registered.
+     * @throws InvalidOpenApiSpecException if the spec is invalid.
+     */
+    public List<String> loadSpec(OpenApiDef tool) {
+        CompiledSpec compiled = compileSpec(tool);
+        if (compiled == null) {
+            throw new ToolRegistrationException("OpenAPI resource not found for tool: " + tool.getName());
+        }
+        synchronized (this) {
+            List<String> added = adoptTools(tool.getName(), tool.getRestApiUrl(), compiled.baseUrl(), compiled.tools(),
+                    compiled.pathItems(), compiled.endpoints());
+            registerWithMcpServer(createToolSpecification(compiled.tools().stream()
+                    .filter(t -> added.contains(t.name()))
+                    .toList()));
+            log.info("Loaded spec {} with {} tool(s)", tool.getName(), added.size());
+            prewarm(added);
+            return added;
+        }
+    }
+
+    /**
+     * Defers compilation of a lazy spec until the tool catalog is first used.
+     *
+     * @param tool The spec definition from mcp_server.yml.
+     */
+    public void deferSpec(OpenApiDef tool) {
+        lazySpecs.put(tool.getName(), tool);
+        log.info("Deferred lazy spec {} until first use", tool.getName());
+    }
+
+    /**
+     * Compiles all deferred lazy specs. Concurrent callers wait until the specs are loaded,
+     * so that the first catalog read already sees their tools. Specs that fail are logged and dropped.
+     *
+     * @return The names of the tools that were added.
+     */
+    public List<String> loadLazySpecs() {
+        if (lazySpecs.isEmpty()) {
+            return List.of();
+        }
+        List<String> added = new ArrayList<>();
+        synchronized (lazySpecs) {
+            for (String name : new ArrayList<>(lazySpecs.keySet())) {
+                OpenApiDef tool = lazySpecs.remove(name);
+                try {
+                    added.addAll(loadSpec(tool));
+                } catch (Exception e) {
+                    log.error("Error loading lazy spec {}: {}", name, e.getMessage(), e);
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Clears all tools and spec records and reloads the configuration. Must be called while holding the lock.
+     */
+    private McpServer reloadConfiguration() {
+        releaseAllSpecs();
+        lazySpecs.clear();
+        materializedTools.clear();
+        searchIndex.clear();
         tools.clear(); // Clear existing tools on re-initialization
+        catalogVersion++;
         toolBaseUrls.clear(); // Clear existing base URLs
 
-        McpServer mcpServer = mcpConfigurationService.loadMcpServerConfiguration();
+        McpServer mcpServer = configurationSource != null
+                ? configurationSource.get()
+                : mcpConfigurationService.loadMcpServerConfiguration();
+        this.mcpServerConfig = mcpServer;
+        this.callLimiter = ToolCallLimiter.of(mcpServer);
+        apiExecutor.setResponseShapes(mcpServer.getResponseShapes());
 
         envMap = mcpServer.getEnvironmentVariables();
 
         addHardcodedTools(); // Add hardcoded tools (like ping and Spring AI tools)
+        return mcpServer;
+    }
 
-        // Initialize tools defined in mcp_server.yml
-        for (OpenApiDef tool : mcpServer.getTools()) {
-            try {
-                String currentBaseUrl = "";
-                List<Tool> convertedTools = List.of();
-                InputStream apiSpecStreamForExecutor = null;
-                InputStream apiSpecStreamForConverter = null;
-
-                if (tool.getRestApiUrl() == null || tool.getRestApiUrl().isEmpty()) {
-                    // Initialize tool without OpenAPI spec, // e.g., hardcoded tools or tools without REST API
-                    if (tool.getApiDefinition() != null && !tool.getRestApiUrl().isEmpty()) {
-                        currentBaseUrl = this.apiExecutor.initialize(null, mcpServer.getApiDefinition());
-                        convertedTools = converter.convertOpenApiToMcpTools(null, mcpServer.getApiDefinition());
-                    }
-                } else {
-                    // Load OpenAPI spec from resource (classpath or URL)
-                    String restApiUrl = tool.getRestApiUrl().startsWith("file:") ?
-                            configFilePath + tool.getRestApiUrl().substring(5) : // Remove 'file:' prefix if present
-                            tool.getRestApiUrl(); // Use as is for classpath or URL;
-                    Resource resource = resourceLoader.getResource(restApiUrl);
-                    if (!resource.exists()) {
-                        log.warn("OpenAPI resource not found for tool {}: {}", tool.getName(), restApiUrl);
-                        continue; // Skip this tool if its spec is not found
-                    }
-                    apiSpecStreamForExecutor = resource.getInputStream();
-                    apiSpecStreamForConverter = resource.getInputStream(); // Need a fresh stream for converter
+    /**
+     * Loads and converts one spec of the configuration.
+     *
+     * @return The base URL and converted tools, or null if the spec resource does not exist.
+     */
+    private CompiledSpec compileSpec(OpenApiDef tool) {
+        try {
+            RestApiExecutorService.Servers servers = new RestApiExecutorService.Servers("", List.of());
+            OpenApiToMcpConverter.Conversion conversion = new OpenApiToMcpConverter.Conversion(List.of(), Map.of());
+            InputStream apiSpecStreamForExecutor = null;
+            InputStream apiSpecStreamForConverter = null;
 
-                    currentBaseUrl = this.apiExecutor.initialize(apiSpecStreamForExecutor, null);
-                    convertedTools = converter.convertOpenApiToMcpTools(apiSpecStreamForConverter, null);
+            if (tool.getRestApiUrl() == null || tool.getRestApiUrl().isEmpty()) {
+                // Initialize tool without OpenAPI spec, // e.g., hardcoded tools or tools without REST API
+                if (tool.getApiDefinition() != null && !tool.getRestApiUrl().isEmpty()) {
+                    servers = this.apiExecutor.readServers(null, mcpServerConfig.getApiDefinition());
+                    conversion = converter.convert(null, mcpServerConfig.getApiDefinition());
                 }
-                if (!convertedTools.isEmpty()) {
-                    this.tools.addAll(convertedTools);
-                    // Store the base URL for each tool associated with this OpenAPI spec
-                    for (Tool t : convertedTools) {
-                        toolBaseUrls.put(t.name(), currentBaseUrl);
-                    }
+            } else {
+                // Load OpenAPI spec from resource (classpath or URL)
+                String restApiUrl = tool.getRestApiUrl().startsWith("file:") ?
+                        configFilePath + tool.getRestApiUrl().substring(5) : // Remove 'file:' prefix if present
+                        tool.getRestApiUrl(); // Use as is for classpath or URL;
+                SpecCache.Entry cached = specCache != null ? specCache.get(restApiUrl) : null;
+                if (cached != null) {
+                    return new CompiledSpec(cached.baseUrl(), cached.tools(), cached.pathItems(),
+                            endpoints(cached.alternates(), tool));
+                }
+                Resource resource = resourceLoader.getResource(restApiUrl);
+                if (!resource.exists()) {
+                    log.warn("OpenAPI resource not found for tool {}: {}", tool.getName(), restApiUrl);
+                    return null; // Skip this tool if its spec is not found
+                }
+                apiSpecStreamForExecutor = resource.getInputStream();
+                apiSpecStreamForConverter = resource.getInputStream(); // Need a fresh stream for converter
+
+                try (InputStream executorStream = apiSpecStreamForExecutor; InputStream converterStream = apiSpecStreamForConverter) {
+                    servers = this.apiExecutor.readServers(executorStream, null);
+                    conversion = converter.convert(converterStream, null);
+                }
+                if (specCache != null) {
+                    specCache.put(restApiUrl, servers.baseUrl(), servers.alternates(), conversion.tools(), conversion.pathItems());
                 }
-            } catch (IOException | URISyntaxException e) {
-                log.error("Error initializing OpenAPI tool {}: {}", tool.getName(), e.getMessage(), e);
-                throw new ToolRegistrationException("Failed to initialize OpenAPI tool: " + tool.getName(), e);
-            } catch (IllegalArgumentException e) {
-                log.error("Invalid OpenAPI specification or URL for tool {}: {}", tool.getName(), e.getMessage(), e);
-                throw new InvalidOpenApiSpecException("Invalid OpenAPI spec for tool: " + tool.getName(), e);
-            } catch (Exception e) {
-                log.error("An unexpected error occurred during OpenAPI tool initialization for {}: {}", tool.getName(), e.getMessage(), e);
-                throw new ToolRegistrationException("Unexpected error during OpenAPI tool initialization: " + tool.getName(), e);
             }
+            return new CompiledSpec(servers.baseUrl(), conversion.tools(), conversion.pathItems(),
+                    endpoints(servers.alternates(), tool));
+        } catch (IOException | URISyntaxException e) {
+            log.error("Error initializing OpenAPI tool {}: {}", tool.getName(), e.getMessage(), e);
+            throw new ToolRegistrationException("Failed to initialize OpenAPI tool: " + tool.getName(), e);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid OpenAPI specification or URL for tool {}: {}", tool.getName(), e.getMessage(), e);
+            throw new InvalidOpenApiSpecException("Invalid OpenAPI spec for tool: " + tool.getName(), e);
+        } catch (Exception e) {
+            log.error("An unexpected error occurred during OpenAPI tool initialization for {}: {}", tool.getName(), e.getMessage(), e);
+            throw new ToolRegistrationException("Unexpected error during OpenAPI tool initialization: " + tool.getName(), e);
         }
+    }
 
+    /**
+     * @return The further servers of a spec followed by the endpoints configured for it.
+     */
+    private static List<String> endpoints(List<String> alternates, OpenApiDef tool) {
+        List<String> endpoints = new ArrayList<>(alternates);
+        endpoints.addAll(tool.getEndpoints());
+        return endpoints;
+    }
 
-        updateMcpServerTools(); // Register all collected tools with McpSyncServer
-
-        log.info("Spring-based MCP Server ready for integration.");
-        log.info("Available tools: {}", this.getTools().size());
+    /**
+     * Base URL, converted tools and their path mappings of one spec, before they are added to the registry.
+     *
+     * @param endpoints Further base URLs the calls of the spec are balanced to.
+     */
+    private record CompiledSpec(String baseUrl, List<Tool> tools, Map<String, Map.Entry<String, JsonNode>> pathItems,
+                                List<String> endpoints) {
     }
 
     /**
@@ -170,6 +540,186 @@ public class McpServerService {
     private void addHardcodedTools() {
         hardcodedToolHandlers.clear(); // Clear existing hardcoded tools on re-initialization
         //addHardcodedToolsFromClass(timeTool);
+        if (catalogProperties.isSearchTool()) {
+            addSearchTool();
+        }
+        if (catalogProperties.isBatchTool()) {
+            addBatchTool();
+        }
+        mcpServerConfig.getCompositeTools().forEach(this::addCompositeTool);
+    }
+
+    /**
+     * Adds a composite tool of the configuration, which chains calls of the OpenAPI tools in one tool call.
+     * The whole composite counts as one call for the call limits of the server.
+     */
+    private void addCompositeTool(CompositeToolDef composite) {
+        Tool compositeTool = new Tool(composite.getName(), composite.getDescription(),
+                CompositeToolRunner.inputSchema(jsonMapper, composite));
+        tools.add(compositeTool);
+        catalogVersion++;
+        searchIndex.add(compositeTool, List.of());
+        hardcodedToolHandlers.put(composite.getName(), (exchange, arguments) -> {
+            callCounts.computeIfAbsent(composite.getName(), name -> new LongAdder()).increment();
+            ToolCallLimiter limiter = callLimiter;
+            if (!limiter.tryAcquire()) {
+                log.warn("Rejected call of tool {}: call limit of server {} reached", composite.getName(), mcpServerConfig.getName());
+                return new McpSchema.CallToolResult("Error: Too many tool calls, please retry later.", true);
+            }
+            try {
+                return compositeRunner.run(composite, arguments);
+            } finally {
+                limiter.release();
+            }
+        });
+        log.debug("Added composite tool {} with {} step(s)", composite.getName(), composite.getSteps().size());
+    }
+
+    /**
+     * Adds the {@value #SEARCH_TOOL_NAME} meta-tool, which returns the tools matching a query together
+     * with their input schema. It is not indexed itself.
+     */
+    private void addSearchTool() {
+        Tool searchTool = new Tool(SEARCH_TOOL_NAME,
+                "Searches the available tools by name, description, tags and parameter names. "
+                        + "Returns the best matching tools with their input schema, most relevant first.",
+                "{\"type\":\"object\",\"properties\":{"
+                        + "\"query\":{\"type\":\"string\",\"description\":\"Keywords describing the task, e.g. 'create invoice customer'\"},"
+                        + "\"limit\":{\"type\":\"integer\",\"description\":\"Maximum number of tools to return, default 10\"}},"
+                        + "\"required\":[\"query\"]}");
+        tools.add(searchTool);
+        catalogVersion++;
+        hardcodedToolHandlers.put(SEARCH_TOOL_NAME, (exchange, arguments) -> callSearchTool(arguments, null));
+    }
+
+    private McpSchema.CallToolResult callSearchTool(Map<String, Object> arguments, String profile) {
+        Object query = arguments != null ? arguments.get("query") : null;
+        if (query == null || query.toString().isBlank()) {
+            return new McpSchema.CallToolResult("Error: query is required", true);
+        }
+        int limit = arguments.get("limit") instanceof Number number ? number.intValue() : 10;
+        try {
+            return new McpSchema.CallToolResult(jsonMapper.writeValueAsString(searchTools(query.toString(), limit, profile)), false);
+        } catch (IOException e) {
+            return new McpSchema.CallToolResult("Error: " + e.getMessage(), true);
+        }
+    }
+
+    /**
+     * Adds the {@value #BATCH_TOOL_NAME} meta-tool, which calls several tools concurrently and returns
+     * all results together. It is not indexed itself.
+     */
+    private void addBatchTool() {
+        Tool batchTool = new Tool(BATCH_TOOL_NAME,
+                "Calls several tools in parallel and returns all results together, in the order of the calls. "
+                        + "Use it instead of separate calls, e.g. to fetch the details of many ids. "
+                        + "A failed call does not affect the others; its result holds the error.",
+                "{\"type\":\"object\",\"properties\":{"
+                        + "\"calls\":{\"type\":\"array\",\"description\":\"The tool calls, at most "
+                        + catalogProperties.getBatchMaxCalls() + "\",\"items\":{\"type\":\"object\",\"properties\":{"
+                        + "\"tool\":{\"type\":\"string\",\"description\":\"Name of the tool\"},"
+                        + "\"arguments\":{\"type\":\"object\",\"description\":\"Arguments of the tool\"}},"
+                        + "\"required\":[\"tool\"]}},"
+                        + "\"max_concurrency\":{\"type\":\"integer\",\"description\":\"Calls running at the same time, at most "
+                        + catalogProperties.getBatchMaxConcurrency() + "\"}},"
+                        + "\"required\":[\"calls\"]}");
+        tools.add(batchTool);
+        catalogVersion++;
+        hardcodedToolHandlers.put(BATCH_TOOL_NAME, (exchange, arguments) -> callBatchTool(arguments, null));
+    }
+
+    /**
+     * Runs the calls of a {@value #BATCH_TOOL_NAME} call like {@link #callBatchToolAsync}, blocking the
+     * calling thread until all of them have finished. Only used by the handler of the {@link McpSyncServer};
+     * tool calls of sessions are intercepted and run asynchronously.
+     */
+    McpSchema.CallToolResult callBatchTool(Map<String, Object> arguments, String profile) {
+        return callBatchToolAsync(arguments, profile).block();
+    }
+
+    /**
+     * Runs the calls of a {@value #BATCH_TOOL_NAME} call concurrently. Each call passes the call limits
+     * of the server on its own. The result lists every call with its result or error. Calls of OpenAPI
+     * tools are composed without holding a thread while an upstream job is polled; other tools run on
+     * a worker thread each.
+     */
+    Mono<McpSchema.CallToolResult> callBatchToolAsync(Map<String, Object> arguments, String profile) {
+        if (arguments == null || !(arguments.get("calls") instanceof List<?> calls) || calls.isEmpty()) {
+            return Mono.just(new McpSchema.CallToolResult("Error: calls is required", true));
+        }
+        if (calls.size() > catalogProperties.getBatchMaxCalls()) {
+            return Mono.just(new McpSchema.CallToolResult("Error: at most " + catalogProperties.getBatchMaxCalls()
+                    + " calls are allowed per batch, got " + calls.size(), true));
+        }
+        int concurrency = catalogProperties.getBatchMaxConcurrency();
+        if (arguments.get("max_concurrency") instanceof Number requested && requested.intValue() > 0) {
+            concurrency = Math.min(concurrency, requested.intValue());
+        }
+        Set<String> allowed = profile != null ? profileToolNames(profile) : null;
+        return Mono.fromRunnable(this::loadLazySpecs)
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenMany(Flux.fromIterable(calls).flatMapSequential(call -> batchCall(call, allowed), concurrency))
+                .collectList()
+                .map(this::batchResult);
+    }
+
+    private McpSchema.CallToolResult batchResult(List<ObjectNode> results) {
+        long failed = results.stream().filter(result -> result.has("error")).count();
+        ObjectNode batch = jsonMapper.createObjectNode();
+        batch.put("succeeded", results.size() - failed);
+        batch.put("failed", failed);
+        batch.putArray("results").addAll(results);
+        try {
+            return new McpSchema.CallToolResult(jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(batch),
+                    failed == results.size());
+        } catch (IOException e) {
+            return new McpSchema.CallToolResult("Error: " + e.getMessage(), true);
+        }
+    }
+
+    /**
+     * Executes one call of a batch. Failures are returned as the {@code error} of the call.
+     */
+    private Mono<ObjectNode> batchCall(Object call, Set<String> allowed) {
+        ObjectNode result = jsonMapper.createObjectNode();
+        if (!(call instanceof Map<?, ?> map) || !(map.get("tool") instanceof String toolName)) {
+            return Mono.just(result.put("error", "Each call needs a tool name"));
+        }
+        result.put("tool", toolName);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> arguments = map.get("arguments") instanceof Map<?, ?> args ? (Map<String, Object>) args : Map.of();
+        BiFunction<McpSyncServerExchange, Map<String, Object>, McpSchema.CallToolResult> handler = hardcodedToolHandlers.get(toolName);
+        if (BATCH_TOOL_NAME.equals(toolName) || allowed != null && !allowed.contains(toolName)
+                || handler == null && !toolBaseUrls.containsKey(toolName)) {
+            return Mono.just(result.put("error", "Unknown tool: " + toolName));
+        }
+        Mono<McpSchema.CallToolResult> toolResult = handler != null
+                ? Mono.fromCallable(() -> handler.apply(null, arguments)).subscribeOn(Schedulers.boundedElastic())
+                : callToolAsync(toolName, arguments, null);
+        return toolResult
+                .onErrorResume(e -> Mono.just(new McpSchema.CallToolResult("Error: " + e.getMessage(), true)))
+                .map(callResult -> batchCallResult(result, callResult));
+    }
+
+    private ObjectNode batchCallResult(ObjectNode result, McpSchema.CallToolResult toolResult) {
+        StringBuilder text = new StringBuilder();
+        for (McpSchema.Content content : toolResult.content()) {
+            if (content instanceof McpSchema.TextContent textContent) {
+                text.append(textContent.text());
+            } else {
+                text.append('[').append(content.type()).append(" content, call the tool directly to receive it]");
+            }
+        }
+        if (Boolean.TRUE.equals(toolResult.isError())) {
+            return result.put("error", text.toString());
+        }
+        try {
+            // JSON results are embedded as they are, results with a note appended stay text
+            result.set("result", jsonMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS).readTree(text.toString()));
+        } catch (IOException e) {
+            result.put("result", text.toString());
+        }
+        return result;
     }
 
     private void addHardcodedToolsFromClass(Object toolInstance) {
@@ -181,6 +731,8 @@ public class McpServerService {
                             springAIToolConverterService.createToolHandler(toolInstance, method);
 
                     this.tools.add(mcpTool);
+                    catalogVersion++;
+                    searchIndex.add(mcpTool, List.of());
                     this.hardcodedToolHandlers.put(mcpTool.name(), toolHandler);
                     log.debug("Added Spring AI tool: {}", mcpTool.name());
                 } catch (Exception e) {
@@ -199,8 +751,12 @@ public class McpServerService {
      * @return A list of tool specifications ready for the MCP synchronization server.
      */
     public List<McpServerFeatures.SyncToolSpecification> createToolSpecification() {
+        return createToolSpecification(tools);
+    }
+
+    private List<McpServerFeatures.SyncToolSpecification> createToolSpecification(List<Tool> toolList) {
         List<McpServerFeatures.SyncToolSpecification> mcpTools = new ArrayList<>();
-        for (Tool tool : tools) {
+        for (Tool tool : toolList) {
             final String currentToolName = tool.name();
 
             // Determine the appropriate handler for the tool (hardcoded or OpenAPI-based)
@@ -231,6 +787,12 @@ public class McpServerService {
      * @throws ExternalApiException     if an error occurs during the external API call.
      */
     private McpSchema.CallToolResult callTool(String toolName, Object arguments) {
+        callCounts.computeIfAbsent(toolName, name -> new LongAdder()).increment();
+        ToolCallLimiter limiter = callLimiter;
+        if (!limiter.tryAcquire()) {
+            log.warn("Rejected call of tool {}: call limit of server {} reached", toolName, mcpServerConfig.getName());
+            return new McpSchema.CallToolResult("Error: Too many tool calls, please retry later.", true);
+        }
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> args = (Map<String, Object>) arguments;
@@ -239,7 +801,7 @@ public class McpServerService {
                 throw new IllegalArgumentException("Base URL not found for tool: " + toolName);
             }
             // Execute the API call and return the result
-            return new McpSchema.CallToolResult(apiExecutor.executeApiCall(baseUrl, toolName, args), false);
+            return apiExecutor.executeToolCall(baseUrl, toolName, args, null);
         } catch (IllegalArgumentException e) {
             log.error("Invalid arguments or base URL for tool {}: {}", toolName, e.getMessage(), e);
             return new McpSchema.CallToolResult("Error: " + e.getMessage(), true);
@@ -247,15 +809,45 @@ public class McpServerService {
             log.error("Error executing API call for tool {}: {}", toolName, e.getMessage(), e);
             // Wrap generic exceptions in ExternalApiException for consistent error handling
             return new McpSchema.CallToolResult("Error: " + e.getMessage(), true);
+        } finally {
+            limiter.release();
         }
     }
 
+    /**
+     * Executes an API call like {@link #callTool(String, Object)}, without blocking the caller.
+     * The call holds its slot of the call limits until the result, e.g. of a polled job, is available.
+     */
+    private Mono<McpSchema.CallToolResult> callToolAsync(String toolName, Map<String, Object> arguments,
+                                                         ToolProgressListener progressListener) {
+        callCounts.computeIfAbsent(toolName, name -> new LongAdder()).increment();
+        ToolCallLimiter limiter = callLimiter;
+        if (!limiter.tryAcquire()) {
+            log.warn("Rejected call of tool {}: call limit of server {} reached", toolName, mcpServerConfig.getName());
+            return Mono.just(new McpSchema.CallToolResult("Error: Too many tool calls, please retry later.", true));
+        }
+        String baseUrl = toolBaseUrls.get(toolName);
+        if (baseUrl == null) {
+            limiter.release();
+            return Mono.just(new McpSchema.CallToolResult("Error: Base URL not found for tool: " + toolName, true));
+        }
+        return apiExecutor.executeToolCallAsync(baseUrl, toolName, arguments, progressListener)
+                .onErrorResume(e -> {
+                    log.error("Error executing API call for tool {}: {}", toolName, e.getMessage(), e);
+                    return Mono.just(new McpSchema.CallToolResult("Error: " + e.getMessage(), true));
+                })
+                .doFinally(signal -> limiter.release());
+    }
+
     /**
      * Updates the tools registered with the {@link McpSyncServer}.
      * This method removes existing tools and adds the current set of tools.
      */
     protected void updateMcpServerTools() {
-        List<McpServerFeatures.SyncToolSpecification> toolSpec = createToolSpecification();
+        registerWithMcpServer(createToolSpecification());
+    }
+
+    private void registerWithMcpServer(List<McpServerFeatures.SyncToolSpecification> toolSpec) {
         for (McpServerFeatures.SyncToolSpecification spec : toolSpec) {
             try {
                 // Attempt to remove the tool first to ensure a clean update
@@ -269,32 +861,682 @@ public class McpServerService {
         }
     }
 
+    private void unregisterFromMcpServer(Collection<String> toolNames) {
+        for (String toolName : toolNames) {
+            try {
+                mcpSyncServer.removeTool(toolName);
+            } catch (Exception e) {
+                log.debug("Tool {} could not be removed from McpSyncServer: {}", toolName, e.getMessage());
+            }
+        }
+    }
+
     /**
      * Returns an unmodifiable list of all tools currently managed by this MCP server.
+     * Deferred lazy specs are compiled first.
      *
      * @return A list of {@link Tool} objects.
      */
     public List<Tool> getTools() {
-        return new ArrayList<>(tools); // Return a copy to prevent external modification
+        loadLazySpecs();
+        List<Tool> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(tools); // Return a copy to prevent external modification
+        }
+        snapshot.replaceAll(this::materialize);
+        return snapshot;
+    }
+
+    /**
+     * Answers {@code tools/list} of the MCP server with one page of the materialized tools of this registry.
+     *
+     * @param cursor The cursor of the requested page, null for the first page.
+     * @return The tools result, with the cursor of the next page if there is one.
+     * @throws IllegalArgumentException if the cursor is invalid.
+     */
+    public McpSchema.ListToolsResult listTools(String cursor) {
+        return listTools(cursor, null);
+    }
+
+    /**
+     * Answers {@code tools/list} for a session that selected a tool profile.
+     *
+     * @param cursor  The cursor of the requested page, null for the first page.
+     * @param profile The tool profile, null for all tools.
+     * @return The tools result, with the cursor of the next page if there is one.
+     * @throws IllegalArgumentException if the cursor or the profile is invalid.
+     */
+    public McpSchema.ListToolsResult listTools(String cursor, String profile) {
+        if (cursor == null && catalogProperties.getPageSize() <= 0) {
+            return new McpSchema.ListToolsResult(getTools(profile), null);
+        }
+        ToolPage page = getToolPage(cursor, null, profile);
+        return new McpSchema.ListToolsResult(page.getTools(), page.getNextCursor());
+    }
+
+    /**
+     * Returns the tools of a tool profile, see {@link #getTools()}.
+     *
+     * @param profile The tool profile, null for all tools.
+     * @return A list of {@link Tool} objects.
+     * @throws IllegalArgumentException if the profile is not configured.
+     */
+    public List<Tool> getTools(String profile) {
+        List<Tool> result = getTools();
+        if (profile != null) {
+            Set<String> allowed = profileToolNames(profile);
+            result.removeIf(tool -> !allowed.contains(tool.name()));
+        }
+        return result;
+    }
+
+    /**
+     * Resolves the tools of a tool profile: tools of the listed specs, tools with one of the listed
+     * operation tags and tools matching one of the name patterns. The {@value #SEARCH_TOOL_NAME} and
+     * {@value #BATCH_TOOL_NAME} meta-tools belong to every profile. The result is cached until the catalog changes.
+     *
+     * @param profileName The name of the profile.
+     * @return The names of the tools in the profile.
+     * @throws IllegalArgumentException if the profile is not configured.
+     */
+    Set<String> profileToolNames(String profileName) {
+        ProfileMembers cached = profileMembers.get(profileName);
+        if (cached != null && cached.catalogVersion() == catalogVersion) {
+            return cached.toolNames();
+        }
+        Set<String> toolNames = new HashSet<>();
+        long version;
+        synchronized (this) {
+            ToolProfile profile = mcpServerConfig.getToolProfiles().stream()
+                    .filter(candidate -> profileName.equals(candidate.getName()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown tool profile: " + profileName));
+            List<Pattern> namePatterns = profile.getTools().stream().map(McpServerService::globPattern).toList();
+            version = catalogVersion;
+            for (Tool tool : tools) {
+                String toolName = tool.name();
+                String specId = toolSpecIds.get(toolName);
+                SpecRecord spec = specId != null ? specs.get(specId) : null;
+                if (toolName.equals(SEARCH_TOOL_NAME) || toolName.equals(BATCH_TOOL_NAME)
+                        || spec != null && profile.getSpecs().contains(spec.getName())
+                        || namePatterns.stream().anyMatch(pattern -> pattern.matcher(toolName).matches())
+                        || !profile.getTags().isEmpty() && converter.getTags(toolName).stream().anyMatch(profile.getTags()::contains)) {
+                    toolNames.add(toolName);
+                }
+            }
+        }
+        Set<String> result = Collections.unmodifiableSet(toolNames);
+        profileMembers.put(profileName, new ProfileMembers(version, result));
+        return result;
+    }
+
+    private record ProfileMembers(long catalogVersion, Set<String> toolNames) {
+    }
+
+    private static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Ranks the tools of this registry for a free-text query over names, descriptions, operation tags
+     * and parameter names. Only the returned tools are materialized.
+     *
+     * @param query The query.
+     * @param limit The maximum number of tools.
+     * @return The matching tools, most relevant first.
+     */
+    public List<ToolSearchHit> searchTools(String query, int limit) {
+        return searchTools(query, limit, null);
+    }
+
+    /**
+     * Ranks the tools of a tool profile for a free-text query, see {@link #searchTools(String, int)}.
+     *
+     * @param query   The query.
+     * @param limit   The maximum number of tools.
+     * @param profile The tool profile, null to search all tools.
+     * @return The matching tools, most relevant first.
+     * @throws IllegalArgumentException if the profile is not configured.
+     */
+    public List<ToolSearchHit> searchTools(String query, int limit, String profile) {
+        loadLazySpecs();
+        List<ToolSearchIndex.Hit> hits;
+        if (profile == null) {
+            hits = searchIndex.search(query, limit);
+        } else {
+            Set<String> allowed = profileToolNames(profile);
+            hits = searchIndex.search(query, Integer.MAX_VALUE).stream()
+                    .filter(hit -> allowed.contains(hit.toolName()))
+                    .limit(limit)
+                    .toList();
+        }
+        Map<String, Tool> byName = new HashMap<>();
+        synchronized (this) {
+            for (Tool tool : tools) {
+                byName.put(tool.name(), tool);
+            }
+        }
+        List<ToolSearchHit> result = new ArrayList<>();
+        for (ToolSearchIndex.Hit hit : hits) {
+            Tool tool = byName.get(hit.toolName());
+            if (tool != null) { // Removed since the search
+                ToolSearchHit searchHit = new ToolSearchHit();
+                searchHit.setTool(materialize(tool));
+                searchHit.setScore(hit.score());
+                result.add(searchHit);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the serialized catalog for {@code tools/list} or {@code /api/tools}. Each response shape and
+     * page is serialized once per catalog version, so repeated fetches of an unchanged catalog only copy bytes.
+     *
+     * @param mcp     True for a {@code tools/list} result, false for the REST representation.
+     * @param cursor  The cursor of the requested page, null for the first page.
+     * @param limit   The page size of a REST page; without limit and cursor the REST response is the whole list.
+     * @param profile The tool profile, null for all tools.
+     * @return The serialized response and its ETag.
+     * @throws IllegalArgumentException if the cursor, the limit or the profile is invalid.
+     */
+    public CatalogResponseCache.Response getCatalogResponse(boolean mcp, String cursor, Integer limit, String profile) {
+        String key = (mcp ? "mcp:" + cursor : limit == null && cursor == null ? "list" : "page:" + limit + ":" + cursor)
+                + (profile != null ? "@" + profile : "");
+        loadLazySpecs();
+        long version = catalogVersion;
+        CatalogResponseCache.Response cached = catalogResponses.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        if (mcp) {
+            return catalogResponses.put(key, version, listTools(cursor, profile));
+        }
+        if (limit == null && cursor == null) {
+            return catalogResponses.put(key, version, getTools(profile));
+        }
+        ToolPage page = getToolPage(cursor, limit, profile);
+        return catalogResponses.put(key, page.getCatalogVersion(), page);
+    }
+
+    /**
+     * Returns one page of the tools of this registry. Tools are ordered by name, so a cursor stays
+     * valid while tools are added or removed: the walk continues after the last tool it returned.
+     * {@link ToolPage#getCatalogVersion()} tells the client whether the catalog changed during the walk.
+     * Only the tools of the returned page are materialized.
+     *
+     * @param cursor The cursor of the requested page, null for the first page.
+     * @param limit  The maximum number of tools, null for {@code mcp.catalog.page-size}.
+     * @return The page.
+     * @throws IllegalArgumentException if the cursor or the limit is invalid.
+     */
+    public ToolPage getToolPage(String cursor, Integer limit) {
+        return getToolPage(cursor, limit, null);
+    }
+
+    /**
+     * Returns one page of the tools of a tool profile, see {@link #getToolPage(String, Integer)}.
+     *
+     * @param cursor  The cursor of the requested page, null for the first page.
+     * @param limit   The maximum number of tools, null for {@code mcp.catalog.page-size}.
+     * @param profile The tool profile, null for all tools.
+     * @return The page.
+     * @throws IllegalArgumentException if the cursor, the limit or the profile is invalid.
+     */
+    public ToolPage getToolPage(String cursor, Integer limit, String profile) {
+        int pageSize = limit != null ? limit : catalogProperties.getPageSize();
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        String after = cursor != null ? decodeCursor(cursor) : null;
+        loadLazySpecs();
+        List<Tool> sorted;
+        long version;
+        synchronized (this) {
+            sorted = new ArrayList<>(tools);
+            version = catalogVersion;
+        }
+        if (profile != null) {
+            Set<String> allowed = profileToolNames(profile);
+            sorted.removeIf(tool -> !allowed.contains(tool.name()));
+        }
+        sorted.sort(Comparator.comparing(Tool::name));
+        int from = 0;
+        if (after != null) {
+            while (from < sorted.size() && sorted.get(from).name().compareTo(after) <= 0) {
+                from++;
+            }
+        }
+        int to = pageSize > 0 ? Math.min(sorted.size(), from + pageSize) : sorted.size();
+
+        ToolPage page = new ToolPage();
+        page.setCatalogVersion(version);
+        for (Tool tool : sorted.subList(from, to)) {
+            page.getTools().add(materialize(tool));
+        }
+        if (to < sorted.size()) {
+            page.setNextCursor(encodeCursor(version, sorted.get(to - 1).name()));
+        }
+        return page;
+    }
+
+    /**
+     * Cursors are opaque to clients; they carry the catalog version and the name of the last tool of the page.
+     */
+    private static String encodeCursor(long version, String lastToolName) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((version + ":" + lastToolName).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            Long.parseLong(decoded.substring(0, separator));
+            return decoded.substring(separator + 1);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Returns the complete definition of a tool; stubs are materialized on first use and then cached.
+     */
+    private Tool materialize(Tool tool) {
+        if (tool.inputSchema() != null) {
+            return tool;
+        }
+        Tool materialized = materializedTools.computeIfAbsent(tool.name(), name -> converter.materializeTool(tool));
+        // Tools not created by the converter (hardcoded tools) are returned as they are
+        return materialized != null ? materialized : tool;
+    }
+
+    /**
+     * Materializes the configured and the most called tools among the given ones ahead of their first use.
+     */
+    private void prewarm(Collection<String> toolNames) {
+        if (toolNames.isEmpty()) {
+            return;
+        }
+        Set<String> warm = new HashSet<>(catalogProperties.getPrewarmTools());
+        if (catalogProperties.getPrewarmMostUsed() > 0) {
+            callCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, LongAdder>comparingByValue(Comparator.comparingLong(LongAdder::sum)).reversed())
+                    .limit(catalogProperties.getPrewarmMostUsed())
+                    .forEach(entry -> warm.add(entry.getKey()));
+        }
+        if (warm.isEmpty()) {
+            return;
+        }
+        Map<String, Tool> byName = new HashMap<>();
+        synchronized (this) {
+            tools.forEach(tool -> byName.put(tool.name(), tool));
+        }
+        int count = 0;
+        for (String toolName : toolNames) {
+            Tool tool = byName.get(toolName);
+            if (tool != null && warm.contains(toolName)) {
+                materialize(tool);
+                count++;
+            }
+        }
+        if (count > 0) {
+            log.debug("Pre-warmed {} tool(s)", count);
+        }
     }
 
     /**
      * Deletes a tool from the MCP server's internal list and from the {@link McpSyncServer}.
+     * All structures retained for the tool (base URL, path mapping) are released as well;
+     * a spec record that no longer owns any tool is dropped.
      *
      * @param toolName The name of the tool to delete.
      * @throws ToolNotFoundException if the tool with the given name is not found.
      */
     public void deleteTool(String toolName) {
-        boolean removedFromList = tools.removeIf(tool -> tool.name().equals(toolName));
-        if (!removedFromList) {
-            throw new ToolNotFoundException("Tool not found: " + toolName);
+        PersistedChange change = null;
+        try {
+            synchronized (this) {
+                if (tools.stream().noneMatch(tool -> tool.name().equals(toolName))) {
+                    throw new ToolNotFoundException("Tool not found: " + toolName);
+                }
+                catalogVersion++;
+                String specId = toolSpecIds.get(toolName);
+                SpecRecord spec = specId != null ? specs.get(specId) : null;
+                releaseTools(List.of(toolName));
+                if (spec != null && spec.isPersistent()) {
+                    change = capturePersistedChange(specId);
+                }
+                try {
+                    mcpSyncServer.removeTool(toolName);
+                    log.info("Successfully deleted tool: {}", toolName);
+                } catch (Exception e) {
+                    log.error("Error removing tool {} from McpSyncServer: {}", toolName, e.getMessage(), e);
+                    throw new ToolRegistrationException("Failed to remove tool from MCP Sync Server: " + toolName, e);
+                }
+            }
+        } finally {
+            writePersistedChange(change);
+        }
+    }
+
+    /**
+     * Deletes all tools of an OpenAPI specification and releases every structure retained for them.
+     *
+     * @param specId The id of the spec record.
+     * @throws SpecNotFoundException if no spec with the given id is registered.
+     */
+    public void deleteSpec(String specId) {
+        PersistedChange change = null;
+        synchronized (this) {
+            SpecRecord spec = specs.get(specId);
+            if (spec == null) {
+                throw new SpecNotFoundException("Spec not found: " + specId);
+            }
+            List<String> toolNames = new ArrayList<>(spec.getToolNames());
+            releaseTools(toolNames);
+            unregisterFromMcpServer(toolNames);
+            specs.remove(specId);
+            catalogVersion++;
+            if (spec.isPersistent()) {
+                change = capturePersistedChange(specId);
+            }
+            log.info("Deleted spec {} ({})", specId, spec.getName());
+        }
+        writePersistedChange(change);
+    }
+
+    /**
+     * Returns a snapshot of all spec records, including the approximate heap they retain.
+     *
+     * @return A list of {@link SpecRecord} objects.
+     */
+    public synchronized List<SpecRecord> getSpecs() {
+        List<SpecRecord> result = new ArrayList<>();
+        for (SpecRecord spec : specs.values()) {
+            SpecRecord copy = new SpecRecord();
+            copy.setId(spec.getId());
+            copy.setName(spec.getName());
+            copy.setSource(spec.getSource());
+            copy.setBaseUrl(spec.getBaseUrl());
+            copy.setRegisteredAt(spec.getRegisteredAt());
+            copy.setToolNames(new LinkedHashSet<>(spec.getToolNames()));
+            copy.setRetainedBytes(spec.getRetainedBytes());
+            copy.setPersistent(spec.isPersistent());
+            result.add(copy);
+        }
+        return result;
+    }
+
+    /**
+     * Adds the converted tools of one spec to the registry under a new spec record.
+     * Tools whose name is already registered are skipped and stay owned by their current spec.
+     * Only the path mappings of the added tools are bound to the converter, so skipped tools retain nothing,
+     * and the endpoints of the spec are registered only if a tool was added, until the spec is released.
+     * Must be called while holding the lock of this service.
+     *
+     * @param pathItems The path mappings of the converted tools, keyed by tool name.
+     * @param endpoints Further base URLs the calls of the spec are balanced to.
+     * @return The names of the tools that were added.
+     */
+    private List<String> adoptTools(String specName, String source, String baseUrl, List<Tool> convertedTools,
+                                    Map<String, Map.Entry<String, JsonNode>> pathItems, List<String> endpoints) {
+        return adoptTools(UUID.randomUUID().toString(), specName, source, baseUrl, convertedTools, pathItems, endpoints);
+    }
+
+    private List<String> adoptTools(String specId, String specName, String source, String baseUrl, List<Tool> convertedTools,
+                                    Map<String, Map.Entry<String, JsonNode>> pathItems, List<String> endpoints) {
+        SpecRecord spec = new SpecRecord();
+        spec.setId(specId);
+        spec.setName(specName != null && !specName.isBlank() ? specName : spec.getId());
+        spec.setSource(source);
+        spec.setBaseUrl(baseUrl);
+
+        List<String> added = new ArrayList<>();
+        for (Tool tool : convertedTools) {
+            // Only add if a tool with the same name doesn't already exist
+            if (tools.stream().noneMatch(t -> t.name().equals(tool.name()))) {
+                tools.add(tool);
+                Map.Entry<String, JsonNode> pathItem = pathItems.get(tool.name());
+                if (pathItem != null) {
+                    converter.bindPath(tool.name(), pathItem);
+                }
+                // Store the base URL for each tool associated with this OpenAPI spec
+                toolBaseUrls.put(tool.name(), baseUrl);
+                toolSpecIds.put(tool.name(), spec.getId());
+                spec.getToolNames().add(tool.name());
+                searchIndex.add(tool, converter.getSearchTerms(tool.name()));
+                added.add(tool.name());
+            } else {
+                log.warn("Tool with name {} already exists. Skipping registration.", tool.name());
+            }
+        }
+        if (!added.isEmpty()) {
+            catalogVersion++;
+            spec.setRetainedBytes(converter.estimateRetainedBytes(added));
+            specs.put(spec.getId(), spec);
+            apiExecutor.registerEndpoints(baseUrl, endpoints);
+        }
+        return added;
+    }
+
+    /**
+     * Removes tools from the tool list and releases everything retained for them.
+     * The retained bytes of each affected spec are estimated once for the whole batch.
+     */
+    private void releaseTools(Collection<String> toolNames) {
+        Set<String> names = new HashSet<>(toolNames);
+        tools.removeIf(tool -> names.contains(tool.name()));
+        Map<String, SpecRecord> affectedSpecs = new LinkedHashMap<>();
+        for (String toolName : names) {
+            toolBaseUrls.remove(toolName);
+            searchIndex.remove(toolName);
+            materializedTools.remove(toolName);
+            hardcodedToolHandlers.remove(toolName);
+            String specId = toolSpecIds.remove(toolName);
+            if (specId == null) {
+                continue;
+            }
+            converter.releaseTool(toolName);
+            SpecRecord spec = specs.get(specId);
+            if (spec != null) {
+                spec.getToolNames().remove(toolName);
+                affectedSpecs.put(specId, spec);
+            }
+        }
+        affectedSpecs.forEach((specId, spec) -> {
+            if (spec.getToolNames().isEmpty()) {
+                specs.remove(specId);
+                apiExecutor.releaseEndpoints(spec.getBaseUrl());
+                log.info("Released spec {} ({}), it no longer owns any tools", specId, spec.getName());
+            } else {
+                spec.setRetainedBytes(converter.estimateRetainedBytes(spec.getToolNames()));
+            }
+        });
+    }
+
+    private void releaseAllSpecs() {
+        toolSpecIds.keySet().forEach(converter::releaseTool);
+        toolSpecIds.clear();
+        specs.values().forEach(spec -> apiExecutor.releaseEndpoints(spec.getBaseUrl()));
+        specs.clear();
+        persistedSpecVersions.clear();
+    }
+
+    /**
+     * Adds all specs of the persistent registry. Must be called while holding the lock.
+     */
+    private void restorePersistedSpecs() {
+        if (persistentRegistry == null) {
+            return;
         }
         try {
-            mcpSyncServer.removeTool(toolName);
-            log.info("Successfully deleted tool: {}", toolName);
+            long version = persistentRegistry.getVersion(); // Read first, later changes are picked up by the next sync
+            List<PersistedSpec> persisted = persistentRegistry.findAll();
+            persisted.forEach(this::applyPersistedSpec);
+            persistedVersion = version;
+            log.info("Restored {} spec(s) from the persistent registry (version {})", persisted.size(), version);
         } catch (Exception e) {
-            log.error("Error removing tool {} from McpSyncServer: {}", toolName, e.getMessage(), e);
-            throw new ToolRegistrationException("Failed to remove tool from MCP Sync Server: " + toolName, e);
+            log.error("Error restoring specs from the persistent registry: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Applies the changes other replicas made to the persistent registry since the last call.
+     * Only the changed specs are read; specs this replica already has in the same version are skipped.
+     *
+     * @return The number of specs that were added, replaced or removed.
+     */
+    public int syncPersistedSpecs() {
+        if (persistentRegistry == null) {
+            return 0;
+        }
+        long known;
+        synchronized (this) {
+            known = persistedVersion;
+        }
+        if (persistentRegistry.getVersion() <= known) {
+            return 0;
+        }
+        List<PersistedSpec> changes = persistentRegistry.findChangedSince(known);
+
+        synchronized (this) {
+            int applied = 0;
+            for (PersistedSpec change : changes) {
+                persistedVersion = Math.max(persistedVersion, change.getVersion());
+                Long appliedVersion = persistedSpecVersions.get(change.getId());
+                if (appliedVersion != null && appliedVersion >= change.getVersion()) {
+                    continue; // Our own change or already applied
+                }
+                List<String> removed = removeSpecLocally(change.getId());
+                List<String> added = change.isDeleted() ? List.of() : applyPersistedSpec(change);
+                registerWithMcpServer(createToolSpecification(tools.stream()
+                        .filter(t -> added.contains(t.name()))
+                        .toList()));
+                removed.removeAll(added);
+                unregisterFromMcpServer(removed);
+                applied++;
+            }
+            if (applied > 0) {
+                log.info("Applied {} change(s) from the persistent registry, now at version {}", applied, persistedVersion);
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * Adds the tools of a persisted spec under its original spec id. Must be called while holding the lock.
+     *
+     * @return The names of the tools that were added.
+     */
+    private List<String> applyPersistedSpec(PersistedSpec persisted) {
+        try {
+            List<String> added = adoptTools(persisted.getId(), persisted.getName(), persisted.getSource(),
+                    persisted.getBaseUrl(), persistentRegistry.readTools(persisted), persistentRegistry.readPathItems(persisted), List.of());
+            SpecRecord spec = specs.get(persisted.getId());
+            if (spec != null) {
+                spec.setPersistent(true);
+            }
+            persistedSpecVersions.put(persisted.getId(), persisted.getVersion());
+            return added;
+        } catch (Exception e) {
+            log.error("Error applying persisted spec {} ({}): {}", persisted.getId(), persisted.getName(), e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Removes the tools of a spec from the registry without touching the persistent registry.
+     * Must be called while holding the lock.
+     *
+     * @return The names of the removed tools.
+     */
+    private List<String> removeSpecLocally(String specId) {
+        persistedSpecVersions.remove(specId);
+        SpecRecord spec = specs.get(specId);
+        if (spec == null) {
+            return new ArrayList<>();
+        }
+        List<String> removed = new ArrayList<>(spec.getToolNames());
+        releaseTools(removed);
+        specs.remove(specId);
+        catalogVersion++;
+        return removed;
+    }
+
+    /**
+     * State of a runtime registration to be written to the persistent registry; tools are null for a deletion.
+     */
+    private record PersistedChange(String specId, long sequence, SpecRecord spec, List<Tool> tools,
+                                   Map<String, Map.Entry<String, JsonNode>> pathItems) {
+    }
+
+    /**
+     * Captures the current state of a runtime registration, or its deletion once it no longer owns any tools.
+     * Must be called while holding the lock; the change is written by {@link #writePersistedChange} after releasing it.
+     *
+     * @return The change, or null without a persistent registry.
+     */
+    private PersistedChange capturePersistedChange(String specId) {
+        if (persistentRegistry == null) {
+            return null;
+        }
+        long sequence = ++persistedChangeSequence;
+        pendingPersistedChanges.put(specId, sequence);
+        SpecRecord spec = specs.get(specId);
+        if (spec == null) {
+            return new PersistedChange(specId, sequence, null, null, null);
+        }
+        // Marked right away, so a deletion before the write completes is persisted as well
+        spec.setPersistent(true);
+        List<Tool> specTools = tools.stream().filter(t -> spec.getToolNames().contains(t.name())).toList();
+        return new PersistedChange(specId, sequence, spec, specTools, converter.getPathEntries(spec.getToolNames()));
+    }
+
+    /**
+     * Writes a captured change to the persistent registry. Must be called without holding the lock of this
+     * service, so a slow database does not stall tool calls. A change that was superseded by a later change
+     * of the same spec is skipped; if replicas still diverge, the registry poller reconciles them.
+     */
+    private void writePersistedChange(PersistedChange change) {
+        if (change == null) {
+            return;
+        }
+        synchronized (persistLock) {
+            synchronized (this) {
+                if (!Objects.equals(pendingPersistedChanges.get(change.specId()), change.sequence())) {
+                    return;
+                }
+            }
+            long version;
+            try {
+                version = change.tools() == null
+                        ? persistentRegistry.markDeleted(change.specId())
+                        : persistentRegistry.save(change.spec(), change.tools(), change.pathItems());
+                log.debug("Persisted spec {} at registry version {}", change.specId(), version);
+            } catch (Exception e) {
+                log.error("Error writing spec {} to the persistent registry: {}", change.specId(), e.getMessage(), e);
+                synchronized (this) {
+                    pendingPersistedChanges.remove(change.specId(), change.sequence());
+                }
+                return;
+            }
+            synchronized (this) {
+                pendingPersistedChanges.remove(change.specId(), change.sequence());
+                if (change.tools() == null) {
+                    persistedSpecVersions.remove(change.specId());
+                } else if (specs.containsKey(change.specId())) {
+                    persistedSpecVersions.merge(change.specId(), version, Math::max);
+                }
+            }
         }
     }
 
@@ -399,43 +1641,93 @@ public class McpServerService {
      * @throws ExternalApiException        if there's an issue initializing an external API.
      */
     public void registerOpenApi(McpServerController.OpenApiRegistrationRequest request) {
-        List<Tool> newTools;
+        registerOpenApi(request, RegistrationProgress.NONE);
+    }
+
+    /**
+     * Registers a new OpenAPI-defined tool with the MCP server and reports the progress of the
+     * individual stages (loading, parsing, converting, registering) to the given listener.
+     * A listener may abort the registration by throwing a {@link CancellationException};
+     * the tool list is only modified after the last cancellation point has passed.
+     *
+     * @param request  The {@link McpServerController.OpenApiRegistrationRequest} containing tool details.
+     * @param progress The listener receiving progress updates.
+     * @return The names of the tools that were newly registered.
+     * @throws CancellationException       if the listener cancelled the registration.
+     * @throws ToolRegistrationException   if there's an error during tool registration.
+     * @throws InvalidOpenApiSpecException if the provided OpenAPI specification is invalid.
+     */
+    public List<String> registerOpenApi(McpServerController.OpenApiRegistrationRequest request, RegistrationProgress progress) {
+        progress.update(10, "Loading specification");
+        if ("URL".equals(request.getType())) {
+            Resource resource = resourceLoader.getResource(request.getSource());
+            return registerSpec(request.getFriendlyName(), request.getSource(), resource::getInputStream, progress);
+        } else if ("BASE64".equals(request.getType())) {
+            byte[] decodedBytes;
+            try {
+                decodedBytes = Base64.getDecoder().decode(request.getSource());
+            } catch (IllegalArgumentException e) {
+                log.error("Invalid argument during OpenAPI registration: {}", e.getMessage(), e);
+                throw new ToolRegistrationException("Invalid registration request: " + e.getMessage(), e);
+            }
+            return registerSpec(request.getFriendlyName(), "BASE64", () -> new ByteArrayInputStream(decodedBytes), progress);
+        }
+        log.error("Invalid argument during OpenAPI registration: Unsupported registration type: {}", request.getType());
+        throw new ToolRegistrationException("Invalid registration request: Unsupported registration type: " + request.getType());
+    }
+
+    /**
+     * Registers an OpenAPI specification that was uploaded as a raw or multipart body.
+     * The specification is read from the spool, so the heap footprint of the upload itself
+     * is bounded by the spool threshold regardless of the size of the spec.
+     *
+     * @param spec     The spooled specification. The caller remains responsible for closing it.
+     * @param progress The listener receiving progress updates.
+     * @return The names of the tools that were newly registered.
+     * @throws CancellationException       if the listener cancelled the registration.
+     * @throws ToolRegistrationException   if there's an error during tool registration.
+     * @throws InvalidOpenApiSpecException if the provided OpenAPI specification is invalid.
+     */
+    public List<String> registerOpenApiUpload(SpecSpool spec, RegistrationProgress progress) {
+        progress.update(10, "Loading specification");
+        return registerSpec(null, "UPLOAD", spec::openStream, progress);
+    }
+
+    private List<String> registerSpec(String specName, String specSource, SpecStreamSource source, RegistrationProgress progress) {
+        List<String> addedToolNames;
         InputStream apiSpecStreamForExecutor = null;
         InputStream apiSpecStreamForConverter = null;
-        boolean newToolAdded = false; // Flag to track if a new tool is added
 
         try {
-            if ("URL".equals(request.getType())) {
-                Resource resource = resourceLoader.getResource(request.getSource());
-                apiSpecStreamForExecutor = resource.getInputStream();
-                apiSpecStreamForConverter = resource.getInputStream();
-            } else if ("BASE64".equals(request.getType())) {
-                byte[] decodedBytes = Base64.getDecoder().decode(request.getSource());
-                apiSpecStreamForExecutor = new ByteArrayInputStream(decodedBytes);
-                apiSpecStreamForConverter = new ByteArrayInputStream(decodedBytes);
-            } else {
-                throw new IllegalArgumentException("Unsupported registration type: " + request.getType());
-            }
+            apiSpecStreamForExecutor = source.open();
+            apiSpecStreamForConverter = source.open(); // Need a fresh stream for converter
 
+            progress.update(30, "Validating specification");
             // Initialize API executor with the new spec to extract base URL and validate
-            apiExecutor.initialize(apiSpecStreamForExecutor, null);
+            RestApiExecutorService.Servers servers = apiExecutor.readServers(apiSpecStreamForExecutor, null);
+            progress.update(60, "Converting operations to tools");
             // Convert OpenAPI spec to MCP tools
-            newTools = converter.convertOpenApiToMcpTools(apiSpecStreamForConverter, null);
-
-            for (Tool newTool : newTools) {
-                // Only add if a tool with the same name doesn't already exist
-                if (tools.stream().noneMatch(t -> t.name().equals(newTool.name()))) {
-                    tools.add(newTool);
-                    log.info("Added new OpenAPI tool: {}", newTool.name());
-                    newToolAdded = true; // Set flag to true
-                } else {
-                    log.warn("Tool with name {} already exists. Skipping registration.", newTool.name());
-                }
-            }
+            OpenApiToMcpConverter.Conversion conversion = converter.convert(apiSpecStreamForConverter, null);
 
-            if (newToolAdded) {
-                updateMcpServerTools(); // Register newly added tools with McpSyncServer
+            progress.update(90, "Registering tools");
+            PersistedChange change = null;
+            synchronized (this) {
+                addedToolNames = adoptTools(specName, specSource, servers.baseUrl(), conversion.tools(), conversion.pathItems(),
+                        servers.alternates());
+                addedToolNames.forEach(name -> log.info("Added new OpenAPI tool: {}", name));
+
+                if (!addedToolNames.isEmpty()) {
+                    updateMcpServerTools(); // Register newly added tools with McpSyncServer
+                    change = capturePersistedChange(toolSpecIds.get(addedToolNames.get(0)));
+                }
             }
+            writePersistedChange(change);
+            prewarm(addedToolNames);
+            progress.update(100, "Completed");
+            return addedToolNames;
+        } catch (CancellationException e) {
+            log.info("OpenAPI tool registration cancelled: {}", e.getMessage());
+            throw e;
         } catch (IOException e) {
             log.error("Error reading OpenAPI specification from source: {}", e.getMessage(), e);
             throw new InvalidOpenApiSpecException("Failed to read OpenAPI specification.", e);
@@ -458,4 +1750,27 @@ public class McpServerService {
             }
         }
     }
+
+    /**
+     * Opens a fresh stream over an OpenAPI specification; called once for the executor and once for the converter.
+     */
+    @FunctionalInterface
+    private interface SpecStreamSource {
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * Receives progress updates while an OpenAPI specification is registered.
+     */
+    @FunctionalInterface
+    public interface RegistrationProgress {
+
+        RegistrationProgress NONE = (percent, stage) -> { };
+
+        /**
+         * @param percent The overall progress, from 0 to 100.
+         * @param stage   A short description of the stage that is starting.
+         */
+        void update(int percent, String stage);
+    }
 }
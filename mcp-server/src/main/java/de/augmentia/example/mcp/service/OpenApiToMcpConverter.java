@@ -4,7 +4,10 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.modelcontextprotocol.spec.McpSchema;
 import io.modelcontextprotocol.spec.McpSchema.Tool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -13,14 +16,64 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Slf4j
 public class OpenApiToMcpConverter {
 
     private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
     private final ObjectMapper jsonMapper = new ObjectMapper();
     private final Map<String, Map.Entry<String, JsonNode>> pathMap = new ConcurrentHashMap<>();
+    // Resolved path and method of the tools that were called or materialized, keyed by tool name
+    private final Map<String, DispatchPlan> dispatchPlans = new ConcurrentHashMap<>();
+
+    private boolean lazyMaterialization; // Convert operations to name and description stubs only
+
+    /**
+     * Path, HTTP method and operation an OpenAPI tool is executed with.
+     *
+     * @param responseShape Compiled {@code x-mcp-response} extension of the operation, or null.
+     * @param pagination    Pagination of a list operation, or null.
+     */
+    public record DispatchPlan(String path, String method, JsonNode operation, ResponseShape responseShape,
+                               Pagination pagination) {
+
+        public DispatchPlan(String path, String method, JsonNode operation) {
+            this(path, method, operation, null, null);
+        }
+    }
 
+    /**
+     * With lazy materialization, conversion only creates tool stubs without input schema.
+     * The schema is built by {@link #materializeTool(Tool)} when the tool is first listed or called.
+     */
+    @Value("${mcp.catalog.lazy-materialization:false}")
+    public void setLazyMaterialization(boolean lazyMaterialization) {
+        this.lazyMaterialization = lazyMaterialization;
+    }
 
+    /**
+     * The tools converted from a spec, with the path mappings they are dispatched with.
+     *
+     * @param pathItems The path mappings of the tools, keyed by tool name. They are not bound to this
+     *                  converter yet, see {@link #bindPath(String, Map.Entry)}.
+     */
+    public record Conversion(List<Tool> tools, Map<String, Map.Entry<String, JsonNode>> pathItems) {
+    }
+
+    /**
+     * Converts a spec and binds the path mappings of all its tools, for callers that use every tool.
+     * Existing mappings are kept.
+     */
     public List<Tool> convertOpenApiToMcpTools(InputStream inputStream, String content) throws IOException {
+        Conversion conversion = convert(inputStream, content);
+        conversion.pathItems().forEach(pathMap::putIfAbsent);
+        return conversion.tools();
+    }
+
+    /**
+     * Converts a spec without binding any path mapping, so that tools which are not registered in
+     * the end, e.g. duplicates or those of a cancelled registration, retain nothing.
+     */
+    public Conversion convert(InputStream inputStream, String content) throws IOException {
         JsonNode openApiDoc;
         if (content == null || content.isEmpty()) {
             openApiDoc = yamlMapper.readTree(inputStream);
@@ -28,9 +81,10 @@ public class OpenApiToMcpConverter {
             openApiDoc = yamlMapper.readTree(content);
         }
         List<Tool> tools = new ArrayList<>();
+        Map<String, Map.Entry<String, JsonNode>> pathItems = new HashMap<>();
 
         JsonNode paths = openApiDoc.get("paths");
-        if (paths == null) return tools;
+        if (paths == null) return new Conversion(tools, pathItems);
 
         paths.fields().forEachRemaining(pathEntry -> {
             String path = pathEntry.getKey();
@@ -40,14 +94,16 @@ public class OpenApiToMcpConverter {
                 String method = methodEntry.getKey().toUpperCase();
                 if (isValidHttpMethod(method)) {
                     JsonNode operation = methodEntry.getValue();
-                    Tool tool = createToolFromOperation(path, method, operation);
-                    pathMap.put(tool.name(), pathEntry);
+                    Tool tool = lazyMaterialization
+                            ? new Tool(getOperationId(operation, path, method), getOperationDescription(operation), (McpSchema.JsonSchema) null)
+                            : createToolFromOperation(path, method, operation);
+                    pathItems.putIfAbsent(tool.name(), pathEntry);
                     tools.add(tool);
                 }
             });
         });
 
-        return tools;
+        return new Conversion(tools, pathItems);
     }
 
     private boolean isValidHttpMethod(String method) {
@@ -223,6 +279,182 @@ public class OpenApiToMcpConverter {
         }
     }
 
+    /**
+     * Releases the path mapping of a tool, including the retained OpenAPI path item.
+     *
+     * @param toolName The name of the tool.
+     */
+    public void releaseTool(String toolName) {
+        pathMap.remove(toolName);
+        dispatchPlans.remove(toolName);
+    }
+
+    /**
+     * Builds the complete definition of a tool stub, including its input schema.
+     *
+     * @param tool The tool, as returned by the conversion.
+     * @return The tool with input schema; the given tool if it already has one;
+     * null if the tool does not belong to a converted spec.
+     */
+    public Tool materializeTool(Tool tool) {
+        if (tool.inputSchema() != null) {
+            return tool;
+        }
+        DispatchPlan plan = getDispatchPlan(tool.name());
+        return plan != null ? createToolFromOperation(plan.path(), plan.method(), plan.operation()) : null;
+    }
+
+    /**
+     * Resolves the path and HTTP method of a tool. The result is cached until the tool is released.
+     *
+     * @param toolName The name of the tool.
+     * @return The dispatch plan, or null if the tool does not belong to a converted spec.
+     */
+    public DispatchPlan getDispatchPlan(String toolName) {
+        DispatchPlan cached = dispatchPlans.get(toolName);
+        if (cached != null) {
+            return cached;
+        }
+        DispatchPlan plan = findOperation(toolName);
+        if (plan != null) {
+            dispatchPlans.put(toolName, plan);
+        }
+        return plan;
+    }
+
+    private DispatchPlan findOperation(String toolName) {
+        Map.Entry<String, JsonNode> entry = pathMap.get(toolName);
+        if (entry == null) {
+            return null;
+        }
+        Iterator<Map.Entry<String, JsonNode>> methods = entry.getValue().fields();
+        while (methods.hasNext()) {
+            Map.Entry<String, JsonNode> methodEntry = methods.next();
+            String method = methodEntry.getKey().toUpperCase();
+            if (isValidHttpMethod(method) && getOperationId(methodEntry.getValue(), entry.getKey(), method).equals(toolName)) {
+                return new DispatchPlan(entry.getKey(), method, methodEntry.getValue(),
+                        compileResponseShape(toolName, methodEntry.getValue()),
+                        compilePagination(toolName, method, methodEntry.getValue()));
+            }
+        }
+        return null;
+    }
+
+    private static ResponseShape compileResponseShape(String toolName, JsonNode operation) {
+        try {
+            return ResponseShape.fromOperation(operation);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid {} of tool {}: {}", ResponseShape.EXTENSION, toolName, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Pagination compilePagination(String toolName, String method, JsonNode operation) {
+        try {
+            return Pagination.fromOperation(method, operation);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid {} of tool {}: {}", Pagination.EXTENSION, toolName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the OpenAPI operation tags of a tool without materializing it.
+     *
+     * @param toolName The name of the tool.
+     * @return The tags, empty if the tool does not belong to a converted spec.
+     */
+    public List<String> getTags(String toolName) {
+        DispatchPlan plan = lookupOperation(toolName);
+        List<String> tags = new ArrayList<>();
+        if (plan != null) {
+            plan.operation().path("tags").forEach(tag -> tags.add(tag.asText()));
+        }
+        return tags;
+    }
+
+    private DispatchPlan lookupOperation(String toolName) {
+        DispatchPlan plan = dispatchPlans.get(toolName);
+        return plan != null ? plan : findOperation(toolName);
+    }
+
+    /**
+     * Returns the operation tags and parameter names of a tool for the search index.
+     * Works on stubs as well; the tool is not materialized and no dispatch plan is cached.
+     *
+     * @param toolName The name of the tool.
+     * @return The tags and parameter names, empty if the tool does not belong to a converted spec.
+     */
+    public List<String> getSearchTerms(String toolName) {
+        DispatchPlan plan = lookupOperation(toolName);
+        List<String> terms = new ArrayList<>();
+        if (plan == null) {
+            return terms;
+        }
+        plan.operation().path("tags").forEach(tag -> terms.add(tag.asText()));
+        plan.operation().path("parameters").forEach(parameter -> {
+            if (parameter.has("name")) {
+                terms.add(parameter.get("name").asText());
+            }
+        });
+        plan.operation().path("requestBody").path("content").forEach(mediaType ->
+                mediaType.path("schema").path("properties").fieldNames().forEachRemaining(terms::add));
+        return terms;
+    }
+
+    /**
+     * Estimates the heap retained for the given tools by their path mappings.
+     * Path items shared by several tools (one path, several methods) are counted once.
+     *
+     * @param toolNames The names of the tools.
+     * @return The approximate number of retained bytes.
+     */
+    public long estimateRetainedBytes(Collection<String> toolNames) {
+        Set<JsonNode> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        long bytes = 0;
+        for (String toolName : toolNames) {
+            Map.Entry<String, JsonNode> entry = pathMap.get(toolName);
+            if (entry == null) {
+                continue;
+            }
+            bytes += 2L * (toolName.length() + entry.getKey().length());
+            if (seen.add(entry.getValue())) {
+                try {
+                    bytes += jsonMapper.writeValueAsBytes(entry.getValue()).length;
+                } catch (JsonProcessingException e) {
+                    // Unserializable nodes are not expected, ignore them in the estimate
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the path mappings of the given tools, e.g. to share them with another converter.
+     *
+     * @param toolNames The names of the tools.
+     * @return The path mappings that are known, keyed by tool name.
+     */
+    public Map<String, Map.Entry<String, JsonNode>> getPathEntries(Collection<String> toolNames) {
+        Map<String, Map.Entry<String, JsonNode>> entries = new HashMap<>();
+        for (String toolName : toolNames) {
+            Map.Entry<String, JsonNode> entry = pathMap.get(toolName);
+            if (entry != null) {
+                entries.put(toolName, entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Binds the path mapping of a tool that is being registered. It replaces any earlier mapping of
+     * the same tool name, together with its cached dispatch plan.
+     */
+    public void bindPath(String toolName, Map.Entry<String, JsonNode> entry) {
+        pathMap.put(toolName, entry);
+        dispatchPlans.remove(toolName);
+    }
+
     public Map<String, Map.Entry<String, JsonNode>> getPathMap() {
         return Collections.unmodifiableMap(pathMap);
     }
@@ -0,0 +1,369 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Pagination of a list operation. When a tool call asks neither for a specific page nor for a page
+ * size, the pages are fetched in parallel, a few at a time, until the last page or a record, byte
+ * or page budget is reached, and their records are merged in order into one response.
+ * <p>
+ * An operation is paginated if it has an {@code x-mcp-pagination} extension, which can name the
+ * parameters and the field holding the records; {@code x-mcp-pagination: true} uses the detected
+ * parameters. Pagination is detected for a GET with a page and a size query parameter (e.g.
+ * {@code page}/{@code size}, {@code page}/{@code per_page}) or an offset and a limit parameter;
+ * such operations are only paginated if detection is enabled, see {@link #isConfigured()}.
+ * {@code x-mcp-pagination: false} switches detection off.
+ */
+public final class Pagination {
+
+    static final String EXTENSION = "x-mcp-pagination";
+
+    private static final List<String> PAGE_PARAMS = List.of("page", "pageNumber", "page_number");
+    private static final List<String> OFFSET_PARAMS = List.of("offset", "skip");
+    private static final List<String> SIZE_PARAMS = List.of("size", "pageSize", "page_size", "per_page", "perPage", "limit");
+    // Fields of a response object that usually hold the records of the page, if not named by the extension
+    private static final List<String> ITEMS_FIELDS = List.of("content", "items", "data", "results", "records");
+    private static final List<String> TOTAL_PAGES_FIELDS = List.of("totalPages", "total_pages", "pageCount", "page_count");
+    private static final List<String> TOTAL_RECORDS_FIELDS = List.of("totalElements", "total_elements", "totalCount",
+            "total_count", "total");
+    // Objects of a response that may hold the totals instead of the top level
+    private static final List<String> META_FIELDS = List.of("meta", "page", "pagination");
+
+    private final boolean offsetStyle;
+    private final String pageParam; // Page number or offset parameter
+    private final String sizeParam;
+    private final int firstPage;
+    private final Integer pageSize; // Sent with every page; the API default if null
+    private final String itemsField; // Detected if null
+    private final Integer maxRecords; // Overrides the record budget of the server if set
+    private final boolean configured; // By the extension, not only detected
+
+    private Pagination(boolean configured, boolean offsetStyle, String pageParam, String sizeParam, int firstPage,
+                       Integer pageSize, String itemsField, Integer maxRecords) {
+        this.configured = configured;
+        this.offsetStyle = offsetStyle;
+        this.pageParam = pageParam;
+        this.sizeParam = sizeParam;
+        this.firstPage = firstPage;
+        this.pageSize = pageSize;
+        this.itemsField = itemsField;
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * Limits of one paginated call.
+     *
+     * @param maxRecords  Records merged at most; pages are not split, but at least one page is fetched.
+     * @param maxBytes    Bytes of the page responses after which no further pages are fetched.
+     * @param maxPages    Pages fetched at most.
+     * @param concurrency Pages fetched at the same time.
+     */
+    public record Budget(int maxRecords, long maxBytes, int maxPages, int concurrency) {
+    }
+
+    /**
+     * One fetched page.
+     *
+     * @param body  The parsed response, or null if it is not JSON.
+     * @param text  The response as text.
+     * @param bytes The size of the response.
+     */
+    record Page(JsonNode body, String text, long bytes) {
+    }
+
+    /**
+     * Fetches the page a call with the given arguments returns.
+     */
+    @FunctionalInterface
+    interface PageFetcher {
+        Page fetch(Map<String, Object> arguments) throws Exception;
+    }
+
+    /**
+     * The fetched pages.
+     *
+     * @param firstPage The first page.
+     * @param merged    The first page with the records of all fetched pages, or null if the first page
+     *                  holds no records, e.g. because it is not JSON.
+     * @param note      Describes the merge and how to continue, null if only one page was fetched.
+     */
+    record Result(Page firstPage, JsonNode merged, String note) {
+    }
+
+    /**
+     * Reads the pagination of an operation from its {@value #EXTENSION} extension or detects it
+     * from the query parameters of a GET operation.
+     *
+     * @return The pagination, or null if the operation is not paginated.
+     */
+    static Pagination fromOperation(String method, JsonNode operation) {
+        if (operation == null) {
+            return null;
+        }
+        JsonNode extension = operation.get(EXTENSION);
+        if (extension != null && extension.isBoolean() && !extension.asBoolean()) {
+            return null;
+        }
+        boolean configured = extension != null && extension.asBoolean();
+        Map<String, JsonNode> queryParams = new LinkedHashMap<>();
+        for (JsonNode parameter : operation.path("parameters")) {
+            if ("query".equals(parameter.path("in").asText()) && parameter.hasNonNull("name")) {
+                queryParams.put(parameter.get("name").asText(), parameter.path("schema"));
+            }
+        }
+        if (extension != null && extension.isObject()) {
+            boolean offsetStyle = "offset".equals(extension.path("style").asText("page"));
+            String pageParam = extension.path("page_param").asText(null);
+            if (pageParam == null) {
+                pageParam = findParam(queryParams, offsetStyle ? OFFSET_PARAMS : PAGE_PARAMS);
+            }
+            String sizeParam = extension.path("size_param").asText(null);
+            if (sizeParam == null) {
+                sizeParam = findParam(queryParams, SIZE_PARAMS);
+            }
+            if (pageParam == null) {
+                throw new IllegalArgumentException("The page parameter is neither named nor found");
+            }
+            Integer pageSize = extension.hasNonNull("page_size") ? extension.get("page_size").asInt()
+                    : defaultPageSize(queryParams.get(sizeParam));
+            return new Pagination(true, offsetStyle, pageParam, sizeParam,
+                    extension.hasNonNull("first_page") ? extension.get("first_page").asInt() : firstPage(offsetStyle, queryParams.get(pageParam)),
+                    pageSize,
+                    extension.path("items").asText(null),
+                    extension.hasNonNull("max_records") ? extension.get("max_records").asInt() : null);
+        }
+        if (!"GET".equals(method)) {
+            return null;
+        }
+        String sizeParam = findParam(queryParams, SIZE_PARAMS);
+        if (sizeParam == null) {
+            return null;
+        }
+        String pageParam = findParam(queryParams, PAGE_PARAMS);
+        boolean offsetStyle = pageParam == null;
+        if (offsetStyle) {
+            pageParam = findParam(queryParams, OFFSET_PARAMS);
+            if (pageParam == null) {
+                return null;
+            }
+        }
+        return new Pagination(configured, offsetStyle, pageParam, sizeParam, firstPage(offsetStyle, queryParams.get(pageParam)),
+                defaultPageSize(queryParams.get(sizeParam)), null, null);
+    }
+
+    private static String findParam(Map<String, JsonNode> queryParams, List<String> candidates) {
+        return candidates.stream().filter(queryParams::containsKey).findFirst().orElse(null);
+    }
+
+    /**
+     * The first page is the minimum or default of the page parameter, 0 if it has neither.
+     */
+    private static int firstPage(boolean offsetStyle, JsonNode schema) {
+        if (offsetStyle || schema == null) {
+            return 0;
+        }
+        return schema.hasNonNull("minimum") ? schema.get("minimum").asInt()
+                : schema.path("default").asInt(0);
+    }
+
+    /**
+     * The page size the API uses if none is sent, so that a short page can be recognized.
+     */
+    private static Integer defaultPageSize(JsonNode schema) {
+        return schema != null && schema.hasNonNull("default") ? schema.get("default").asInt() : null;
+    }
+
+    /**
+     * @return Whether the operation is paginated by its {@value #EXTENSION} extension; detected
+     * pagination only applies if it is enabled for the server.
+     */
+    boolean isConfigured() {
+        return configured;
+    }
+
+    /**
+     * @return Whether the pages of a call are fetched and merged; calls asking for a page or a page
+     * size themselves get that page only.
+     */
+    boolean appliesTo(Map<String, Object> arguments) {
+        return !arguments.containsKey(pageParam) && (sizeParam == null || !arguments.containsKey(sizeParam));
+    }
+
+    /**
+     * Fetches the first page and, if it is a full page of records, the further pages in windows of
+     * {@link Budget#concurrency()} parallel calls. A page with fewer records than the first one ends
+     * the list, as does the page count or record count of the response if it has one.
+     *
+     * @throws Exception if the first page cannot be fetched; later failures end the merge with a note.
+     */
+    Result fetchAll(ObjectMapper mapper, Map<String, Object> arguments, Budget budget, PageFetcher fetcher) throws Exception {
+        Page first = fetcher.fetch(pageArguments(arguments, 0, 0));
+        JsonNode firstItems = first.body() != null ? items(first.body()) : null;
+        if (firstItems == null) {
+            return new Result(first, null, null);
+        }
+        int recordsPerPage = firstItems.size();
+        List<JsonNode> records = new ArrayList<>();
+        firstItems.forEach(records::add);
+        long bytes = first.bytes();
+        int pages = 1;
+        int recordBudget = maxRecords != null ? maxRecords : budget.maxRecords();
+        // Pages are never split, so the record budget is a number of pages
+        int maxPages = Math.min(budget.maxPages(), Math.max(1, recordsPerPage > 0 ? recordBudget / recordsPerPage : 1));
+        Integer totalPages = totalPages(first.body(), recordsPerPage);
+        if (totalPages != null) {
+            maxPages = Math.min(maxPages, totalPages);
+        }
+        boolean complete = recordsPerPage == 0 || isShortPage(recordsPerPage) || totalPages != null && totalPages <= 1;
+        String failure = null;
+        while (!complete && pages < maxPages && bytes < budget.maxBytes()) {
+            long bytesPerPage = Math.max(1, bytes / pages);
+            int window = (int) Math.min(Math.min(budget.concurrency(), maxPages - pages),
+                    Math.max(1, (budget.maxBytes() - bytes) / bytesPerPage));
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = 0; i < window; i++) {
+                indexes.add(pages + i);
+            }
+            List<Page> fetched;
+            try {
+                fetched = ParallelCalls.run(indexes, budget.concurrency(),
+                        index -> fetcher.fetch(pageArguments(arguments, index, recordsPerPage)));
+            } catch (ExecutionException e) {
+                failure = e.getCause().getMessage();
+                break;
+            }
+            for (Page page : fetched) {
+                JsonNode items = page.body() != null ? items(page.body()) : null;
+                if (items == null) {
+                    failure = "page " + pageValue(pages, recordsPerPage) + " holds no records";
+                    break;
+                }
+                items.forEach(records::add);
+                bytes += page.bytes();
+                pages++;
+                if (items.size() < recordsPerPage) {
+                    complete = true; // Pages fetched ahead of the last one are dropped
+                    break;
+                }
+            }
+            if (failure != null || complete) {
+                break;
+            }
+            complete = totalPages != null && pages >= totalPages;
+        }
+        if (pages == 1 && failure == null && complete) {
+            return new Result(first, first.body(), null);
+        }
+        StringBuilder note = new StringBuilder("(Merged ").append(pages).append(pages == 1 ? " page with " : " pages with ")
+                .append(records.size()).append(" records.");
+        if (failure != null) {
+            note.append(" Fetching further pages failed: ").append(failure).append('.');
+        }
+        if (!complete) {
+            note.append(" More records may be available: call the tool with ").append(pageParam).append('=')
+                    .append(pageValue(pages, recordsPerPage)).append(" to continue.");
+        }
+        note.append(')');
+        return new Result(first, merge(mapper, first.body(), records), note.toString());
+    }
+
+    /**
+     * A page with fewer records than the page size is the last one.
+     */
+    private boolean isShortPage(int records) {
+        return pageSize != null && records < pageSize;
+    }
+
+    private Map<String, Object> pageArguments(Map<String, Object> arguments, int index, int recordsPerPage) {
+        Map<String, Object> pageArguments = new LinkedHashMap<>(arguments);
+        pageArguments.put(pageParam, pageValue(index, recordsPerPage));
+        if (sizeParam != null && pageSize != null) {
+            pageArguments.put(sizeParam, pageSize);
+        }
+        return pageArguments;
+    }
+
+    private int pageValue(int index, int recordsPerPage) {
+        return offsetStyle ? firstPage + index * recordsPerPage : firstPage + index;
+    }
+
+    /**
+     * @return The records of a page: the page itself if it is an array, otherwise its items field.
+     */
+    JsonNode items(JsonNode page) {
+        if (page.isArray()) {
+            return page;
+        }
+        if (!page.isObject()) {
+            return null;
+        }
+        if (itemsField != null) {
+            JsonNode items = page.get(itemsField);
+            return items != null && items.isArray() ? items : null;
+        }
+        String field = findItemsField(page);
+        return field != null ? page.get(field) : null;
+    }
+
+    /**
+     * Finds the field holding the records: one of the usual names, or else the only array of the object.
+     */
+    private static String findItemsField(JsonNode page) {
+        for (String name : ITEMS_FIELDS) {
+            if (page.path(name).isArray()) {
+                return name;
+            }
+        }
+        String found = null;
+        Iterator<Map.Entry<String, JsonNode>> fields = page.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isArray()) {
+                if (found != null) {
+                    return null;
+                }
+                found = field.getKey();
+            }
+        }
+        return found;
+    }
+
+    private static Integer totalPages(JsonNode page, int recordsPerPage) {
+        List<JsonNode> candidates = new ArrayList<>();
+        candidates.add(page);
+        META_FIELDS.stream().map(page::path).filter(JsonNode::isObject).forEach(candidates::add);
+        for (JsonNode candidate : candidates) {
+            for (String name : TOTAL_PAGES_FIELDS) {
+                if (candidate.path(name).isIntegralNumber()) {
+                    return candidate.get(name).asInt();
+                }
+            }
+            for (String name : TOTAL_RECORDS_FIELDS) {
+                if (candidate.path(name).isIntegralNumber() && recordsPerPage > 0) {
+                    return (int) ((candidate.get(name).asLong() + recordsPerPage - 1) / recordsPerPage);
+                }
+            }
+        }
+        return null;
+    }
+
+    private JsonNode merge(ObjectMapper mapper, JsonNode first, List<JsonNode> records) {
+        ArrayNode merged = mapper.createArrayNode().addAll(records);
+        if (first.isArray()) {
+            return merged;
+        }
+        ObjectNode body = first.deepCopy();
+        body.set(itemsField != null ? itemsField : findItemsField(first), merged);
+        return body;
+    }
+}
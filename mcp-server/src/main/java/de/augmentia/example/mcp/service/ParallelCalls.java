@@ -0,0 +1,85 @@
+package de.augmentia.example.mcp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs upstream calls in parallel on a pool shared by all tools. Each run has its own concurrency
+ * cap, so one large fan-out cannot take all threads; when all threads are busy, the calling thread
+ * works through the calls itself.
+ */
+final class ParallelCalls {
+
+    private static final int MAX_THREADS = 64;
+
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    private ParallelCalls() {
+    }
+
+    /**
+     * A call of one item, which may fail.
+     */
+    @FunctionalInterface
+    interface Call<T, R> {
+        R call(T item) throws Exception;
+    }
+
+    /**
+     * Calls every item, at most {@code maxConcurrency} at a time. After the first failure no further
+     * calls are started; if the current thread is interrupted, the running calls are interrupted too.
+     *
+     * @return The results in the order of the items.
+     * @throws ExecutionException if a call failed, with the failure as cause.
+     */
+    static <T, R> List<R> run(List<T> items, int maxConcurrency, Call<T, R> call)
+            throws InterruptedException, ExecutionException {
+        AtomicReferenceArray<R> results = new AtomicReferenceArray<>(items.size());
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            int workerCount = Math.min(Math.max(1, maxConcurrency), items.size());
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(EXECUTOR.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < items.size() && !Thread.currentThread().isInterrupted()) {
+                        try {
+                            results.set(index, call.call(items.get(index)));
+                        } catch (Exception e) {
+                            next.set(items.size()); // The other workers stop after their current call
+                            throw e;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            workers.forEach(worker -> worker.cancel(true));
+        }
+        List<R> ordered = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            ordered.add(results.get(i));
+        }
+        return ordered;
+    }
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        return new ThreadPoolExecutor(0, MAX_THREADS, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "mcp-parallel-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,56 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically applies registrations and deletions that other replicas wrote to the persistent registry.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "mcp.registry", name = "enabled", havingValue = "true")
+public class PersistentRegistryPoller {
+
+    private final McpServerService mcpServerService;
+    private final McpServerProperties.Registry properties;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "registry-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public PersistentRegistryPoller(McpServerService mcpServerService, McpServerProperties mcpServerProperties) {
+        this.mcpServerService = mcpServerService;
+        this.properties = mcpServerProperties.getRegistry();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long interval = Math.max(1, properties.getPollIntervalSeconds());
+        executor.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.SECONDS);
+    }
+
+    private void poll() {
+        try {
+            mcpServerService.syncPersistedSpecs();
+        } catch (Exception e) {
+            log.warn("Polling the persistent registry failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,187 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.exception.ToolRegistrationException;
+import de.augmentia.example.mcp.model.PersistedSpec;
+import de.augmentia.example.mcp.model.RegistryState;
+import de.augmentia.example.mcp.model.SpecRecord;
+import de.augmentia.example.mcp.repository.PersistedSpecRepository;
+import de.augmentia.example.mcp.repository.RegistryStateRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.modelcontextprotocol.spec.McpSchema.Tool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Stores runtime registrations in the database, so that they survive a restart and are shared
+ * by all replicas. Specs are stored in compiled form (tools and path mappings as JSON) and every
+ * change increments the registry version; replicas poll the version and fetch only the changed specs.
+ * Only active with {@code mcp.registry.enabled=true}.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "mcp.registry", name = "enabled", havingValue = "true")
+public class PersistentToolRegistry {
+
+    private final PersistedSpecRepository specRepository;
+    private final RegistryStateRepository stateRepository;
+    private final TransactionTemplate newTransaction; // Creates the state row independently of the writing transaction
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Autowired
+    public PersistentToolRegistry(PersistedSpecRepository specRepository, RegistryStateRepository stateRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.specRepository = specRepository;
+        this.stateRepository = stateRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Stores the compiled tools of a spec, replacing an earlier version of the same spec.
+     *
+     * @param spec      The spec record.
+     * @param tools     The tools currently owned by the spec.
+     * @param pathItems The path mappings of the tools, keyed by tool name.
+     * @return The registry version of the change.
+     * @throws ToolRegistrationException if the tools cannot be serialized.
+     */
+    @Transactional
+    public long save(SpecRecord spec, List<Tool> tools, Map<String, Map.Entry<String, JsonNode>> pathItems) {
+        PersistedSpec persisted = specRepository.findById(spec.getId()).orElseGet(PersistedSpec::new);
+        persisted.setId(spec.getId());
+        persisted.setName(spec.getName());
+        persisted.setSource(spec.getSource());
+        persisted.setBaseUrl(spec.getBaseUrl());
+        persisted.setDeleted(false);
+        try {
+            persisted.setToolsJson(jsonMapper.writeValueAsString(tools));
+            ObjectNode paths = jsonMapper.createObjectNode();
+            pathItems.forEach((toolName, entry) -> {
+                ObjectNode pathNode = paths.putObject(toolName);
+                pathNode.put("path", entry.getKey());
+                pathNode.set("item", entry.getValue());
+            });
+            persisted.setPathItemsJson(jsonMapper.writeValueAsString(paths));
+        } catch (JsonProcessingException e) {
+            throw new ToolRegistrationException("Failed to serialize tools of spec: " + spec.getName(), e);
+        }
+        return store(persisted);
+    }
+
+    /**
+     * Marks a spec as deleted. The row is kept without its tools, so other replicas learn about the deletion.
+     *
+     * @param specId The id of the spec.
+     * @return The registry version of the change, or the current version if the spec is not persisted.
+     */
+    @Transactional
+    public long markDeleted(String specId) {
+        Optional<PersistedSpec> existing = specRepository.findById(specId);
+        if (existing.isEmpty()) {
+            return getVersion();
+        }
+        PersistedSpec persisted = existing.get();
+        persisted.setDeleted(true);
+        persisted.setToolsJson(null);
+        persisted.setPathItemsJson(null);
+        return store(persisted);
+    }
+
+    private long store(PersistedSpec persisted) {
+        long version = nextVersion();
+        persisted.setVersion(version);
+        persisted.setUpdatedAt(Instant.now());
+        specRepository.save(persisted);
+        return version;
+    }
+
+    private long nextVersion() {
+        // The update locks the state row until commit, so concurrent writers get versions in commit order
+        if (stateRepository.incrementVersion(RegistryState.ID) == 0) {
+            createState();
+            if (stateRepository.incrementVersion(RegistryState.ID) == 0) {
+                throw new IllegalStateException("Registry state row is missing");
+            }
+        }
+        return getVersion();
+    }
+
+    /**
+     * Creates the state row of an empty registry at version 0 in a transaction of its own.
+     * If another replica creates it at the same time, the insert fails on the primary key and
+     * the row of the other replica is used; either way the caller can increment it afterwards.
+     */
+    private void createState() {
+        try {
+            newTransaction.executeWithoutResult(status -> stateRepository.saveAndFlush(new RegistryState()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Registry state row was created by another replica");
+        }
+    }
+
+    /**
+     * @return The current registry version, 0 for an empty registry.
+     */
+    @Transactional(readOnly = true)
+    public long getVersion() {
+        return stateRepository.findById(RegistryState.ID).map(RegistryState::getVersion).orElse(0L);
+    }
+
+    /**
+     * @return All specs that are not deleted, in the order they were last changed.
+     */
+    @Transactional(readOnly = true)
+    public List<PersistedSpec> findAll() {
+        return specRepository.findByDeletedFalseOrderByVersion();
+    }
+
+    /**
+     * @param version The last version the caller has seen.
+     * @return All specs changed after the given version, including deleted ones.
+     */
+    @Transactional(readOnly = true)
+    public List<PersistedSpec> findChangedSince(long version) {
+        return specRepository.findByVersionGreaterThanOrderByVersion(version);
+    }
+
+    /**
+     * Deserializes the tools of a persisted spec.
+     */
+    public List<Tool> readTools(PersistedSpec spec) {
+        try {
+            return jsonMapper.readValue(spec.getToolsJson(), new TypeReference<List<Tool>>() { });
+        } catch (JsonProcessingException e) {
+            throw new ToolRegistrationException("Failed to read persisted tools of spec: " + spec.getName(), e);
+        }
+    }
+
+    /**
+     * Deserializes the path mappings of a persisted spec.
+     */
+    public Map<String, Map.Entry<String, JsonNode>> readPathItems(PersistedSpec spec) {
+        try {
+            Map<String, Map.Entry<String, JsonNode>> pathItems = new HashMap<>();
+            jsonMapper.readTree(spec.getPathItemsJson()).fields().forEachRemaining(field ->
+                    pathItems.put(field.getKey(), new AbstractMap.SimpleImmutableEntry<>(
+                            field.getValue().path("path").asText(), field.getValue().get("item"))));
+            return pathItems;
+        } catch (JsonProcessingException e) {
+            throw new ToolRegistrationException("Failed to read persisted path mappings of spec: " + spec.getName(), e);
+        }
+    }
+}
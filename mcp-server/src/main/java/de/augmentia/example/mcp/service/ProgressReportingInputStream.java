@@ -0,0 +1,255 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upstream response body that reports the progress of reading it to a {@link ToolProgressListener}.
+ * Records are passed on as soon as they have been read: the lines of NDJSON and text responses and
+ * the elements of a top-level JSON array. Other bodies only report the number of bytes read.
+ * The bytes are passed through unchanged, so the response is shaped, spooled or returned as binary
+ * content like any other; only the current record is held in addition.
+ */
+class ProgressReportingInputStream extends FilterInputStream {
+
+    // Reports are sent at most this often, unless a batch of records is full
+    private static final long REPORT_INTERVAL_MILLIS = 250;
+    private static final int MAX_BATCH_RECORDS = 100;
+    // Longer records are counted, but not passed on
+    private static final int MAX_RECORD_BYTES = 65536;
+
+    private final ObjectMapper jsonMapper;
+    private final ToolProgressListener listener;
+    private final Long total;
+
+    private final List<String> batch = new ArrayList<>();
+    private long bytesRead;
+    private long lastReport = System.currentTimeMillis();
+    private boolean finished;
+
+    // Splitting of line-delimited bodies
+    private final Charset charset;
+    private final ByteArrayOutputStream line;
+    private boolean lineTooLong;
+
+    // Splitting of JSON arrays, null once the body turns out not to be one
+    private JsonParser arrayParser;
+    private int depth;
+    private TokenBuffer element; // Tokens of the current element, null between elements or if it is too long
+    private long elementStart;
+
+    /**
+     * @param body        The upstream response body.
+     * @param contentType The content type of the response, or null if unknown.
+     * @param total       The length of the response, or null if unknown.
+     */
+    ProgressReportingInputStream(InputStream body, ObjectMapper jsonMapper, MediaType contentType, Long total,
+                                 ToolProgressListener listener) throws IOException {
+        super(body);
+        this.jsonMapper = jsonMapper;
+        this.listener = listener;
+        this.total = total;
+        this.charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        this.line = isLineDelimited(contentType) ? new ByteArrayOutputStream() : null;
+        if (line == null && (contentType == null || isJson(contentType))) {
+            arrayParser = jsonMapper.getFactory().createNonBlockingByteArrayParser();
+        }
+    }
+
+    private static boolean isLineDelimited(MediaType contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String subtype = contentType.getSubtype();
+        return "text".equals(contentType.getType()) || subtype.endsWith("ndjson") || subtype.endsWith("jsonl")
+                || subtype.endsWith("json-seq");
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType.getSubtype().equals("json") || contentType.getSubtype().endsWith("+json");
+    }
+
+    @Override
+    public int read() throws IOException {
+        int value = super.read();
+        if (value >= 0) {
+            consumed(new byte[]{(byte) value}, 0, 1);
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+            consumed(buffer, offset, count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytesRead += skipped;
+        arrayParser = null; // Records cannot be split without the skipped bytes
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        super.close();
+    }
+
+    /**
+     * Passes on the records still pending and reports the final progress; called once the body has been processed.
+     */
+    void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (line != null) {
+            completeLine();
+        }
+        closeParser();
+        flush();
+    }
+
+    private void consumed(byte[] buffer, int offset, int count) {
+        bytesRead += count;
+        if (line != null) {
+            splitLines(buffer, offset, count);
+        } else if (arrayParser != null) {
+            splitArray(buffer, offset, count);
+        }
+        if (!finished) {
+            reportIfDue();
+        }
+    }
+
+    private void splitLines(byte[] buffer, int offset, int count) {
+        int start = offset;
+        for (int i = offset; i < offset + count; i++) {
+            if (buffer[i] == '\n') {
+                appendToLine(buffer, start, i - start);
+                completeLine();
+                start = i + 1;
+            }
+        }
+        appendToLine(buffer, start, offset + count - start);
+    }
+
+    private void appendToLine(byte[] buffer, int offset, int count) {
+        if (lineTooLong || count == 0) {
+            return;
+        }
+        if (line.size() + count > MAX_RECORD_BYTES) {
+            lineTooLong = true;
+            line.reset();
+            return;
+        }
+        line.write(buffer, offset, count);
+    }
+
+    private void completeLine() {
+        String record = line.toString(charset).strip();
+        if (!lineTooLong && !record.isEmpty()) {
+            addRecord(record);
+        }
+        line.reset();
+        lineTooLong = false;
+    }
+
+    private void splitArray(byte[] buffer, int offset, int count) {
+        try {
+            ((ByteArrayFeeder) arrayParser.getNonBlockingInputFeeder()).feedInput(buffer, offset, offset + count);
+            JsonToken token;
+            while (arrayParser != null && (token = arrayParser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                onToken(token);
+            }
+        } catch (IOException e) {
+            closeParser(); // Not JSON after all, only the bytes are reported
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        if (depth == 0) {
+            if (token != JsonToken.START_ARRAY) {
+                closeParser(); // Only the elements of a top-level array are records
+                return;
+            }
+            depth = 1;
+            return;
+        }
+        if (depth == 1) {
+            if (token == JsonToken.END_ARRAY) {
+                closeParser();
+                return;
+            }
+            element = new TokenBuffer(jsonMapper, false);
+            elementStart = bytesRead;
+        }
+        if (element != null) {
+            element.copyCurrentEvent(arrayParser);
+            if (bytesRead - elementStart > MAX_RECORD_BYTES) {
+                element = null; // Too long to pass on, skipped up to its end
+            }
+        }
+        if (token.isStructStart()) {
+            depth++;
+        } else if (token.isStructEnd()) {
+            depth--;
+        }
+        if (depth == 1) {
+            if (element != null) {
+                addRecord(jsonMapper.writeValueAsString(element));
+            }
+            element = null;
+        }
+    }
+
+    private void closeParser() {
+        if (arrayParser != null) {
+            try {
+                arrayParser.close();
+            } catch (IOException e) {
+                // Nothing to release
+            }
+            arrayParser = null;
+            element = null;
+        }
+    }
+
+    private void addRecord(String record) {
+        batch.add(record);
+        if (batch.size() >= MAX_BATCH_RECORDS) {
+            flush();
+        }
+    }
+
+    private void reportIfDue() {
+        if (System.currentTimeMillis() - lastReport >= REPORT_INTERVAL_MILLIS) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        lastReport = System.currentTimeMillis();
+        listener.onProgress(bytesRead, total, batch.isEmpty() ? null : String.join("\n", batch));
+        batch.clear();
+    }
+}
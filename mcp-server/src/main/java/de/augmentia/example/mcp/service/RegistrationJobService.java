@@ -0,0 +1,223 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.controller.McpServerController;
+import de.augmentia.example.mcp.model.RegistrationJob;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs OpenAPI registrations as background jobs so that slow downloads or large specs
+ * do not block the HTTP request thread. The number of specs compiled at the same time
+ * is capped by a bounded worker pool; jobs beyond the queue capacity are rejected.
+ */
+@Service
+@Slf4j
+public class RegistrationJobService {
+
+    private final McpServerService mcpServerService;
+    private final McpServerProperties.Registration properties;
+    private final ThreadPoolExecutor executor;
+
+    // All known jobs, keyed by job id
+    private final Map<String, RegistrationJob> jobs = new ConcurrentHashMap<>();
+    // Futures of jobs that have not finished yet, used for cancellation
+    private final Map<String, Future<?>> runningJobs = new ConcurrentHashMap<>();
+    // Resources (e.g. spooled uploads) owned by unfinished jobs
+    private final Map<String, Closeable> jobResources = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RegistrationJobService(McpServerService mcpServerService, McpServerProperties mcpServerProperties) {
+        this.mcpServerService = mcpServerService;
+        this.properties = mcpServerProperties.getRegistration();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        int workers = Math.max(1, properties.getMaxConcurrentJobs());
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "openapi-registration-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Queues a registration request for background execution.
+     *
+     * @param request The registration request.
+     * @return The queued job.
+     * @throws RejectedExecutionException if the job queue is full.
+     */
+    public RegistrationJob submit(McpServerController.OpenApiRegistrationRequest request) {
+        return submit(request.getType(), "URL".equals(request.getType()) ? request.getSource() : null,
+                progress -> mcpServerService.registerOpenApi(request, progress), null);
+    }
+
+    /**
+     * Queues the registration of an uploaded specification for background execution.
+     * The job takes ownership of the spool and closes it when it finishes.
+     *
+     * @param spec The spooled specification.
+     * @return The queued job.
+     * @throws RejectedExecutionException if the job queue is full; the spool is closed in that case.
+     */
+    public RegistrationJob submitUpload(SpecSpool spec) {
+        return submit("UPLOAD", null, progress -> mcpServerService.registerOpenApiUpload(spec, progress), spec);
+    }
+
+    private RegistrationJob submit(String type, String source, Function<McpServerService.RegistrationProgress, List<String>> work,
+                                   Closeable resource) {
+        purgeExpiredJobs();
+
+        RegistrationJob job = new RegistrationJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(type);
+        job.setSource(source);
+        job.setStage("Queued");
+        jobs.put(job.getId(), job);
+        if (resource != null) {
+            jobResources.put(job.getId(), resource);
+        }
+
+        // The future is tracked before it is handed to the pool, so a fast job cannot finish before it is put
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            try {
+                run(job, work);
+            } finally {
+                closeQuietly(jobResources.remove(job.getId()));
+            }
+        }, null);
+        runningJobs.put(job.getId(), task);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            runningJobs.remove(job.getId());
+            jobs.remove(job.getId());
+            closeQuietly(jobResources.remove(job.getId()));
+            log.warn("Rejected registration job, {} jobs are already waiting", executor.getQueue().size());
+            throw e;
+        }
+        log.info("Queued registration job {} ({})", job.getId(), job.getType());
+        return job;
+    }
+
+    private void run(RegistrationJob job, Function<McpServerService.RegistrationProgress, List<String>> work) {
+        // Only one of run() and cancel() may take the job out of QUEUED and finish it
+        if (!job.transition(RegistrationJob.Status.QUEUED, RegistrationJob.Status.RUNNING)) {
+            runningJobs.remove(job.getId());
+            return;
+        }
+        try {
+            if (job.isCancelRequested()) {
+                throw new CancellationException("Job cancelled before start");
+            }
+            List<String> registered = work.apply((percent, stage) -> {
+                if (job.isCancelRequested() || Thread.currentThread().isInterrupted()) {
+                    throw new CancellationException("Job cancelled during: " + stage);
+                }
+                job.setProgress(percent);
+                job.setStage(stage);
+            });
+            job.setRegisteredTools(registered);
+            job.setMessage(registered.size() + " tool(s) registered");
+            job.setStatus(RegistrationJob.Status.SUCCEEDED);
+        } catch (CancellationException e) {
+            job.setMessage(e.getMessage());
+            job.setStatus(RegistrationJob.Status.CANCELLED);
+        } catch (Exception e) {
+            log.error("Registration job {} failed: {}", job.getId(), e.getMessage());
+            job.setMessage(e.getMessage());
+            job.setStatus(job.isCancelRequested() ? RegistrationJob.Status.CANCELLED : RegistrationJob.Status.FAILED);
+        } finally {
+            job.setFinishedAt(Instant.now());
+            runningJobs.remove(job.getId());
+        }
+    }
+
+    private void closeQuietly(Closeable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (IOException e) {
+            log.warn("Error releasing registration job resource: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the job with the given id.
+     *
+     * @param jobId The id of the job.
+     * @return The job, or empty if it is unknown or already purged.
+     */
+    public Optional<RegistrationJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Returns all jobs that have not been purged yet, newest first.
+     */
+    public List<RegistrationJob> getJobs() {
+        purgeExpiredJobs();
+        List<RegistrationJob> result = new ArrayList<>(jobs.values());
+        result.sort(Comparator.comparing(RegistrationJob::getCreatedAt).reversed());
+        return result;
+    }
+
+    /**
+     * Requests cancellation of a job. Queued jobs never start; running jobs stop at the next
+     * stage boundary and do not register any tools.
+     *
+     * @param jobId The id of the job.
+     * @return The job, or empty if it is unknown.
+     */
+    public Optional<RegistrationJob> cancel(String jobId) {
+        RegistrationJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (!job.isFinished()) {
+            job.setCancelRequested(true);
+            if (job.transition(RegistrationJob.Status.QUEUED, RegistrationJob.Status.CANCELLED)) {
+                // The job never reached run(), so finish it here
+                Future<?> future = runningJobs.remove(jobId);
+                if (future != null) {
+                    future.cancel(false);
+                }
+                job.setMessage("Job cancelled before start");
+                job.setFinishedAt(Instant.now());
+                closeQuietly(jobResources.remove(jobId));
+            } else {
+                Future<?> future = runningJobs.get(jobId);
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+            log.info("Cancellation requested for registration job {}", jobId);
+        }
+        return Optional.of(job);
+    }
+
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minusSeconds(properties.getJobRetentionSeconds());
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,262 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled projection and truncation rules for the JSON response of a tool. The response is
+ * copied token by token from the upstream stream to the result, dropping the fields that are not
+ * selected, the array elements beyond the limit and the end of long strings, so the complete
+ * document is never held as a tree.
+ * <p>
+ * Fields are selected with a subset of JSONPath: {@code $.name}, {@code $['name']}, {@code $.*}
+ * and {@code $.items[*]}. Arrays are transparent, so {@code $.items.id} selects the {@code id}
+ * of every element of {@code items} like {@code $.items[*].id} does.
+ * <p>
+ * With the {@code table} format, uniform arrays in the shaped response are encoded by the
+ * {@link TabularEncoder}. This needs the shaped response as a tree, which is built from the
+ * already projected and truncated tokens.
+ */
+public final class ResponseShape {
+
+    static final String EXTENSION = "x-mcp-response";
+    static final String FORMAT_JSON = "json";
+    static final String FORMAT_TABLE = "table";
+
+    private static final String ELLIPSIS = "…";
+
+    // Selected fields, null if all fields are kept
+    private final Selection root;
+    private final int maxItems;
+    private final int maxStringLength;
+    private final boolean table;
+
+    private ResponseShape(Selection root, int maxItems, int maxStringLength, boolean table) {
+        this.root = root;
+        this.maxItems = maxItems;
+        this.maxStringLength = maxStringLength;
+        this.table = table;
+    }
+
+    /**
+     * Compiles the rules.
+     *
+     * @param fields          JSONPaths of the fields kept; all fields are kept if null or empty.
+     * @param maxItems        Elements kept per array, no limit if null or not positive.
+     * @param maxStringLength Characters kept per string, no limit if null or not positive.
+     * @throws IllegalArgumentException if a path is not supported.
+     */
+    static ResponseShape compile(List<String> fields, Integer maxItems, Integer maxStringLength) {
+        return compile(fields, maxItems, maxStringLength, null);
+    }
+
+    /**
+     * Compiles the rules.
+     *
+     * @param format {@code table} to encode uniform arrays as tables, {@code json} or null for JSON.
+     * @throws IllegalArgumentException if a path or the format is not supported.
+     */
+    static ResponseShape compile(List<String> fields, Integer maxItems, Integer maxStringLength, String format) {
+        boolean table = FORMAT_TABLE.equals(format);
+        if (format != null && !table && !FORMAT_JSON.equals(format)) {
+            throw new IllegalArgumentException("Unknown response format: " + format);
+        }
+        Selection root = null;
+        if (fields != null && !fields.isEmpty()) {
+            root = new Selection();
+            for (String field : fields) {
+                root.add(parsePath(field));
+            }
+        }
+        return new ResponseShape(root, maxItems != null ? Math.max(0, maxItems) : 0,
+                maxStringLength != null ? Math.max(0, maxStringLength) : 0, table);
+    }
+
+    /**
+     * Compiles the {@code x-mcp-response} extension of an OpenAPI operation, with the properties
+     * {@code fields}, {@code max_items}, {@code max_string_length} and {@code format}.
+     *
+     * @return The shape, or null if the operation has no extension.
+     */
+    static ResponseShape fromOperation(JsonNode operation) {
+        JsonNode extension = operation != null ? operation.get(EXTENSION) : null;
+        if (extension == null || !extension.isObject()) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        extension.path("fields").forEach(field -> fields.add(field.asText()));
+        return compile(fields,
+                extension.hasNonNull("max_items") ? extension.get("max_items").asInt() : null,
+                extension.hasNonNull("max_string_length") ? extension.get("max_string_length").asInt() : null,
+                extension.hasNonNull("format") ? extension.get("format").asText() : null);
+    }
+
+    private static List<String> parsePath(String path) {
+        String trimmed = path.trim();
+        if (!trimmed.startsWith("$")) {
+            throw new IllegalArgumentException("JSONPath must start with '$': " + path);
+        }
+        List<String> segments = new ArrayList<>();
+        int i = 1;
+        while (i < trimmed.length()) {
+            char c = trimmed.charAt(i);
+            if (c == '.') {
+                if (trimmed.startsWith("..", i)) {
+                    throw new IllegalArgumentException("Recursive descent is not supported: " + path);
+                }
+                int end = i + 1;
+                while (end < trimmed.length() && trimmed.charAt(end) != '.' && trimmed.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i + 1) {
+                    throw new IllegalArgumentException("Empty field name in JSONPath: " + path);
+                }
+                String name = trimmed.substring(i + 1, end);
+                segments.add("*".equals(name) ? Selection.ANY_FIELD : name);
+                i = end;
+            } else if (c == '[') {
+                int end = trimmed.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed '[' in JSONPath: " + path);
+                }
+                String selector = trimmed.substring(i + 1, end).trim();
+                boolean quoted = selector.length() >= 2 && (selector.startsWith("'") && selector.endsWith("'")
+                        || selector.startsWith("\"") && selector.endsWith("\""));
+                if (quoted) {
+                    segments.add(selector.substring(1, selector.length() - 1));
+                } else if (!"*".equals(selector)) {
+                    throw new IllegalArgumentException("Unsupported selector [" + selector + "] in JSONPath: " + path);
+                }
+                // [*] adds no segment, arrays are transparent
+                i = end + 1;
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in JSONPath: " + path);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Reads a JSON response and returns it shaped, as tables or pretty-printed JSON. If anything
+     * was dropped, a note saying so follows.
+     */
+    String apply(ObjectMapper mapper, InputStream body) throws IOException {
+        StringWriter out = new StringWriter();
+        Truncation truncation = new Truncation();
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() == null) {
+                return "";
+            }
+            if (table) {
+                TokenBuffer shaped = new TokenBuffer(parser);
+                copy(parser, shaped, root != null && root.all ? null : root, truncation);
+                JsonNode tree = mapper.readTree(shaped.asParser(parser.getCodec()));
+                String encoded = TabularEncoder.encode(mapper, tree);
+                out.write(encoded != null ? encoded : mapper.writerWithDefaultPrettyPrinter().writeValueAsString(tree));
+            } else {
+                try (JsonGenerator generator = mapper.createGenerator(out).useDefaultPrettyPrinter()) {
+                    copy(parser, generator, root != null && root.all ? null : root, truncation);
+                }
+            }
+        }
+        if (truncation.elements > 0 || truncation.strings > 0) {
+            out.append("\n(Shortened by the response rules of the tool: ")
+                    .append(String.valueOf(truncation.elements)).append(" array elements dropped, ")
+                    .append(String.valueOf(truncation.strings)).append(" strings cut)");
+        }
+        return out.toString();
+    }
+
+    /**
+     * Copies the value at the current token.
+     *
+     * @param selection The selected fields below the value, null to copy all of them.
+     */
+    private void copy(JsonParser parser, JsonGenerator generator, Selection selection, Truncation truncation) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                Selection child = selection != null ? selection.child(name) : null;
+                if (selection != null && (child == null || !child.all && value.isScalarValue())) {
+                    parser.skipChildren(); // Not selected, or a scalar where the path expects more levels
+                    continue;
+                }
+                generator.writeFieldName(name);
+                copy(parser, generator, child != null && child.all ? null : child, truncation);
+            }
+            generator.writeEndObject();
+        } else if (token == JsonToken.START_ARRAY) {
+            generator.writeStartArray();
+            int count = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (maxItems > 0 && count >= maxItems) {
+                    parser.skipChildren();
+                    truncation.elements++;
+                } else if (selection != null && parser.currentToken().isScalarValue()) {
+                    // Scalar elements have none of the selected fields
+                    count++;
+                } else {
+                    copy(parser, generator, selection, truncation);
+                    count++;
+                }
+            }
+            generator.writeEndArray();
+        } else if (token == JsonToken.VALUE_STRING && maxStringLength > 0 && parser.getTextLength() > maxStringLength) {
+            String text = parser.getText();
+            int end = Character.isHighSurrogate(text.charAt(maxStringLength - 1)) ? maxStringLength - 1 : maxStringLength;
+            generator.writeString(text.substring(0, end) + ELLIPSIS);
+            truncation.strings++;
+        } else {
+            generator.copyCurrentEvent(parser);
+        }
+    }
+
+    /**
+     * Tree of the selected paths. A node is {@code all} if a path ends there, so everything below it is kept.
+     */
+    private static final class Selection {
+
+        static final String ANY_FIELD = "\u0000*";
+
+        private final Map<String, Selection> fields = new HashMap<>();
+        private Selection anyField;
+        private boolean all;
+
+        void add(List<String> segments) {
+            Selection node = this;
+            for (String segment : segments) {
+                if (ANY_FIELD.equals(segment)) {
+                    node = node.anyField != null ? node.anyField : (node.anyField = new Selection());
+                } else {
+                    node = node.fields.computeIfAbsent(segment, name -> new Selection());
+                }
+            }
+            node.all = true;
+        }
+
+        Selection child(String name) {
+            Selection child = fields.get(name);
+            return child != null ? child : anyField;
+        }
+    }
+
+    private static final class Truncation {
+        int elements;
+        int strings;
+    }
+}
@@ -1,24 +1,49 @@
 package de.augmentia.example.mcp.service;
 
+import de.augmentia.example.mcp.config.McpServerProperties;
 import de.augmentia.example.mcp.config.SecurityProperties;
+import de.augmentia.example.mcp.model.ResponseShapeRule;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 @Service
+@Slf4j
 public class RestApiExecutorService {
 
     @Autowired
@@ -30,10 +55,118 @@ public class RestApiExecutorService {
     @Autowired
     private OpenApiToMcpConverter openApiToMcpConverter;
 
+    private ResultSpool resultSpool;
+
+    private McpServerProperties.Pagination paginationProperties = new McpServerProperties.Pagination();
+
+    private McpServerProperties.AsyncJobs asyncJobProperties = new McpServerProperties.AsyncJobs();
+
+    private AsyncJobPoller jobPoller = new AsyncJobPoller(asyncJobProperties);
+
+    private UpstreamBalancer upstreamBalancer;
+
+    // Largest body of a 202 response or job status that is parsed
+    private static final int MAX_STATUS_BYTES = 65536;
+
+    // Response shapes of the configuration by tool name pattern; they take precedence over x-mcp-response
+    private volatile List<Map.Entry<Pattern, ResponseShape>> responseShapes = List.of();
+
     private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
     private final ObjectMapper jsonMapper = new ObjectMapper();
 
+    public RestApiExecutorService() {
+        // Dependencies are injected by Spring
+    }
+
+    /**
+     * Creates an executor with its own HTTP client and path mappings, as used by additional server instances.
+     */
+    public RestApiExecutorService(RestTemplate restTemplate, SecurityProperties securityProperties,
+                                  OpenApiToMcpConverter openApiToMcpConverter) {
+        this.restTemplate = restTemplate;
+        this.securityProperties = securityProperties;
+        this.openApiToMcpConverter = openApiToMcpConverter;
+    }
+
+    /**
+     * Sets the spool that takes responses over its threshold, instead of returning them inline.
+     */
+    @Autowired(required = false)
+    public void setResultSpool(ResultSpool resultSpool) {
+        this.resultSpool = resultSpool;
+    }
+
+    @Autowired(required = false)
+    public void setMcpServerProperties(McpServerProperties mcpServerProperties) {
+        this.paginationProperties = mcpServerProperties.getPagination();
+        this.asyncJobProperties = mcpServerProperties.getAsyncJobs();
+        this.jobPoller = new AsyncJobPoller(asyncJobProperties);
+    }
+
+    /**
+     * Sets the balancer that spreads the calls of an API across its endpoints. Without it, every call
+     * goes to the base URL.
+     */
+    @Autowired(required = false)
+    public void setUpstreamBalancer(UpstreamBalancer upstreamBalancer) {
+        this.upstreamBalancer = upstreamBalancer;
+    }
+
+    /**
+     * Compiles the response shaping rules of the configuration. Invalid rules are skipped.
+     */
+    public void setResponseShapes(List<ResponseShapeRule> rules) {
+        List<Map.Entry<Pattern, ResponseShape>> compiled = new ArrayList<>();
+        for (ResponseShapeRule rule : rules) {
+            try {
+                ResponseShape shape = ResponseShape.compile(rule.getFields(), rule.getMaxItems(), rule.getMaxStringLength(),
+                        rule.getFormat());
+                rule.getTools().forEach(tool -> compiled.add(Map.entry(globPattern(tool), shape)));
+            } catch (IllegalArgumentException e) {
+                log.error("Ignoring response shape of tools {}: {}", rule.getTools(), e.getMessage());
+            }
+        }
+        this.responseShapes = compiled;
+    }
+
+    private ResponseShape findResponseShape(String toolName, OpenApiToMcpConverter.DispatchPlan plan) {
+        for (Map.Entry<Pattern, ResponseShape> entry : responseShapes) {
+            if (entry.getKey().matcher(toolName).matches()) {
+                return entry.getValue();
+            }
+        }
+        return plan.responseShape();
+    }
+
+    private static Pattern globPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
     public String initialize(InputStream inputStream, String content) throws IOException, URISyntaxException {
+        return readServers(inputStream, content).baseUrl();
+    }
+
+    /**
+     * The servers of a spec.
+     *
+     * @param baseUrl    The URL of the first server, which the calls of the API are made with.
+     * @param alternates The URLs of the further servers; they are validated when they are registered.
+     */
+    public record Servers(String baseUrl, List<String> alternates) {
+    }
+
+    /**
+     * Reads the servers of a spec and validates its base URL.
+     */
+    public Servers readServers(InputStream inputStream, String content) throws IOException, URISyntaxException {
         JsonNode openApiDoc;
         if (content == null || content.isEmpty()) {
             openApiDoc = yamlMapper.readTree(inputStream);
@@ -42,7 +175,47 @@ public class RestApiExecutorService {
         }
         String extractedBaseUrl = extractBaseUrl(openApiDoc);
         validateBaseUrl(extractedBaseUrl);
-        return extractedBaseUrl;
+        JsonNode servers = openApiDoc.path("servers");
+        List<String> alternates = new ArrayList<>();
+        for (int i = 1; i < servers.size(); i++) {
+            alternates.add(servers.get(i).path("url").asText());
+        }
+        return new Servers(extractedBaseUrl, alternates);
+    }
+
+    /**
+     * Registers the endpoints to which the calls of the API at a base URL are balanced, once its
+     * tools are adopted by a registry. Each registration is undone by {@link #releaseEndpoints(String)}.
+     * Endpoints that are not absolute URLs, contain server variables or are in a domain that is not
+     * allowed are skipped.
+     */
+    public void registerEndpoints(String baseUrl, List<String> endpoints) {
+        if (upstreamBalancer == null) {
+            return;
+        }
+        List<String> valid = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            try {
+                if (endpoint.contains("{")) {
+                    throw new IllegalArgumentException("Server variables are not supported");
+                }
+                validateBaseUrl(endpoint);
+                valid.add(endpoint);
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                log.warn("Not balancing calls of {} to {}: {}", baseUrl, endpoint, e.getMessage());
+            }
+        }
+        upstreamBalancer.register(baseUrl, valid);
+    }
+
+    /**
+     * Releases a registration of {@link #registerEndpoints(String, List)}. The endpoints of the API
+     * and their metrics are dropped when no registration is left.
+     */
+    public void releaseEndpoints(String baseUrl) {
+        if (upstreamBalancer != null) {
+            upstreamBalancer.unregister(baseUrl);
+        }
     }
 
     private void validateBaseUrl(String url) throws URISyntaxException {
@@ -70,41 +243,373 @@ public class RestApiExecutorService {
     }
 
     public String executeApiCall(String baseUrl, String toolName, Map<String, Object> arguments) {
+        return executeApiCall(baseUrl, toolName, arguments, null);
+    }
+
+    /**
+     * Calls the upstream operation of a tool, see {@link #executeToolCall}.
+     *
+     * @return The formatted response, or an error message. Binary responses are returned as a description.
+     */
+    public String executeApiCall(String baseUrl, String toolName, Map<String, Object> arguments,
+                                 ToolProgressListener progressListener) {
+        StringBuilder text = new StringBuilder();
+        for (McpSchema.Content content : executeToolCall(baseUrl, toolName, arguments, progressListener).content()) {
+            if (content instanceof McpSchema.TextContent textContent) {
+                text.append(textContent.text());
+            } else if (content instanceof McpSchema.ImageContent image) {
+                text.append("Image (").append(image.mimeType()).append(", BASE64): ").append(image.data());
+            } else if (content instanceof McpSchema.EmbeddedResource resource
+                    && resource.resource() instanceof McpSchema.BlobResourceContents blob) {
+                text.append("Binary content (").append(blob.mimeType()).append(", BASE64): ").append(blob.blob());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Calls the upstream operation of a tool. JSON responses are shaped by the response rules of the
+     * tool while they are read. Images are returned as image content and other binary responses as
+     * an embedded blob resource named by the upstream URL. Responses larger than the threshold of
+     * the result spool are written to disk and a description of the spooled result is returned.
+     * <p>
+     * The calling thread is blocked while an asynchronous upstream job is polled, at most for
+     * {@code mcp.async-jobs.blocking-timeout-seconds}; a job still running then is returned as an
+     * error with its status URL. Callers that can compose a {@link Mono} use {@link #executeToolCallAsync}.
+     *
+     * @param progressListener Receives the progress and the records of the response while it is read,
+     *                         or null to read the response at once.
+     * @return The response, or an error message as text.
+     */
+    public McpSchema.CallToolResult executeToolCall(String baseUrl, String toolName, Map<String, Object> arguments,
+                                                    ToolProgressListener progressListener) {
+        Outcome outcome = call(baseUrl, toolName, arguments, progressListener);
+        if (outcome.job() == null) {
+            return outcome.result();
+        }
+        Duration timeout = Duration.ofSeconds(asyncJobProperties.getBlockingTimeoutSeconds());
         try {
-            Map.Entry<String, JsonNode> entry = openApiToMcpConverter.getPathMap().get(toolName);
-            String path = entry.getKey();
-            JsonNode jsonNode = entry.getValue();
-            String method = findHttpMethodByOperationId(jsonNode, toolName)
-                    .orElseThrow(() -> new IllegalArgumentException("Operation ID not found: " + toolName));
-            boolean needsRequestBody = needsRequestBody(method);
-            //ApiCallInfo callInfo = parseToolName(toolName);
-            String url = buildUrl(baseUrl, path, arguments, needsRequestBody);
+            return awaitJob(outcome, toolName, progressListener).block(timeout);
+        } catch (IllegalStateException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.debug("Stopped polling the job of {}: {}", toolName, e.getMessage());
+                return new McpSchema.CallToolResult("API call cancelled", false);
+            }
+            log.debug("Stopped waiting for the job of {} after {}", toolName, timeout);
+            return new McpSchema.CallToolResult("The operation is still running after " + timeout.toSeconds()
+                    + " seconds. Its status is at " + outcome.job().statusUrl(), true);
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                log.debug("Stopped polling the job of {}: {}", toolName, e.getMessage());
+                return new McpSchema.CallToolResult("API call cancelled", false);
+            }
+            throw e;
+        }
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            addAuthHeader(method, headers);
+    /**
+     * Calls the upstream operation of a tool like {@link #executeToolCall}, without blocking the
+     * caller. The upstream exchanges run on worker threads, but between the polls of an asynchronous
+     * job no thread waits for it; the job is given up after {@code mcp.async-jobs.timeout-seconds}.
+     */
+    public Mono<McpSchema.CallToolResult> executeToolCallAsync(String baseUrl, String toolName, Map<String, Object> arguments,
+                                                               ToolProgressListener progressListener) {
+        return Mono.fromCallable(() -> call(baseUrl, toolName, arguments, progressListener))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(outcome -> outcome.job() == null
+                        ? Mono.just(outcome.result())
+                        : awaitJob(outcome, toolName, progressListener));
+    }
 
+    /**
+     * The result of an upstream call, or the job it started.
+     *
+     * @param shape   The response shape applied to the result of the job.
+     * @param request The request that started the job.
+     */
+    private record Outcome(McpSchema.CallToolResult result, AsyncJobPoller.AcceptedJob job, ResponseShape shape,
+                           UpstreamRequest request) {
+
+        static Outcome of(McpSchema.CallToolResult result) {
+            return new Outcome(result, null, null, null);
+        }
+    }
 
-            Object requestBody = null;
-            if (needsRequestBody) {
-                requestBody = buildRequestBody(arguments);
+    private Outcome call(String baseUrl, String toolName, Map<String, Object> arguments,
+                         ToolProgressListener progressListener) {
+        try {
+            OpenApiToMcpConverter.DispatchPlan plan = openApiToMcpConverter.getDispatchPlan(toolName);
+            Pagination pagination = plan != null ? plan.pagination() : null;
+            if (pagination != null && paginationProperties.isEnabled()
+                    && (pagination.isConfigured() || paginationProperties.isDetect()) && pagination.appliesTo(arguments)) {
+                return Outcome.of(executePaginated(baseUrl, toolName, arguments, pagination,
+                        findResponseShape(toolName, plan), progressListener));
             }
 
-            HttpEntity<Object> entity = null;
-            if (requestBody != null)
-                entity = new HttpEntity<>(requestBody, headers);
+            UpstreamRequest request = prepareRequest(baseUrl, toolName, arguments);
+            String url = request.url();
+            ResponseShape shape = findResponseShape(toolName, request.plan());
+            return exchange(request, response -> {
+                Outcome accepted = readAccepted(response, request, shape);
+                return accepted != null ? accepted : Outcome.of(readResponse(response, url, toolName, shape, progressListener));
+            });
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.valueOf(method),
-                    entity,
-                    String.class
-            );
+        } catch (Exception e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // The MCP request was cancelled; the HTTP client has already aborted the exchange
+                log.debug("Aborted API call of {}: {}", toolName, e.getMessage());
+                return Outcome.of(new McpSchema.CallToolResult("API call cancelled", false));
+            }
+            return Outcome.of(new McpSchema.CallToolResult("Error executing API call: " + e.getMessage(), true));
+        }
+    }
 
-            return formatResponse(response);
+    /**
+     * Reads a {@code 202 Accepted} response. If it names a status URL, the job is polled; otherwise
+     * the response is returned as it is. A status URL outside the allowed domains is not polled.
+     *
+     * @return The outcome, or null if the response is not a 202 or async jobs are disabled.
+     */
+    private Outcome readAccepted(ClientHttpResponse response, UpstreamRequest request, ResponseShape shape) throws IOException {
+        if (!asyncJobProperties.isEnabled() || response.getStatusCode().value() != HttpStatus.ACCEPTED.value()) {
+            return null;
+        }
+        byte[] body = response.getBody().readNBytes(MAX_STATUS_BYTES);
+        AsyncJobPoller.AcceptedJob job = AsyncJobPoller.accepted(request.url(), response.getHeaders(), parseJson(body));
+        if (job == null) {
+            return Outcome.of(new McpSchema.CallToolResult(
+                    formatResponse(response.getStatusCode(), new String(body, StandardCharsets.UTF_8)), false));
+        }
+        String rejected = checkJobUrl(job.statusUrl());
+        if (rejected != null) {
+            return Outcome.of(new McpSchema.CallToolResult(rejected, true));
+        }
+        log.debug("Upstream accepted a job, polling {}", job.statusUrl());
+        return new Outcome(null, job, shape, request);
+    }
 
-        } catch (Exception e) {
-            return "Error executing API call: " + e.getMessage();
+    /**
+     * @return An error message if the status or result URL of a job is outside the allowed domains, else null.
+     */
+    private String checkJobUrl(String url) {
+        try {
+            validateBaseUrl(url);
+            return null;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            log.warn("Not following job URL {}: {}", url, e.getMessage());
+            return "The upstream named a job URL that is not allowed: " + url;
+        }
+    }
+
+    private Mono<McpSchema.CallToolResult> awaitJob(Outcome outcome, String toolName, ToolProgressListener progressListener) {
+        return jobPoller.await(outcome.job(), statusUrl -> pollJob(statusUrl, toolName, outcome.shape(), outcome.request()),
+                        progressListener)
+                .onErrorResume(e -> Mono.just(new McpSchema.CallToolResult(
+                        "Error polling the operation status: " + e.getMessage(), true)));
+    }
+
+    /**
+     * Polls the status of a job once. A status that names a result URL is followed by a request for
+     * the result; a response that is no job status is the result itself.
+     */
+    private AsyncJobPoller.Poll pollJob(String statusUrl, String toolName, ResponseShape shape, UpstreamRequest request) {
+        return restTemplate.execute(statusUrl, HttpMethod.GET, restTemplate.httpEntityCallback(authorizedGet(statusUrl, request)), response -> {
+            HttpHeaders headers = response.getHeaders();
+            MediaType contentType = headers.getContentType();
+            InputStream body = response.getBody();
+            byte[] head = body.readNBytes(MAX_STATUS_BYTES + 1);
+            JsonNode status = head.length <= MAX_STATUS_BYTES && (contentType == null || isJson(contentType)) ? parseJson(head) : null;
+            if (response.getStatusCode().value() == HttpStatus.ACCEPTED.value()) {
+                return AsyncJobPoller.Poll.running(AsyncJobPoller.retryAfter(headers), status != null ? AsyncJobPoller.progress(status) : null);
+            }
+            if (status != null) {
+                Boolean running = AsyncJobPoller.running(status);
+                if (Boolean.TRUE.equals(running)) {
+                    return AsyncJobPoller.Poll.running(AsyncJobPoller.retryAfter(headers), AsyncJobPoller.progress(status));
+                }
+                if (Boolean.FALSE.equals(running)) {
+                    return AsyncJobPoller.Poll.done(new McpSchema.CallToolResult("The operation failed:\n"
+                            + formatResponse(response.getStatusCode(), new String(head, StandardCharsets.UTF_8)), true));
+                }
+                String resultUrl = AsyncJobPoller.resultUrl(statusUrl, status);
+                if (resultUrl != null) {
+                    String rejected = checkJobUrl(resultUrl);
+                    if (rejected != null) {
+                        return AsyncJobPoller.Poll.done(new McpSchema.CallToolResult(rejected, true));
+                    }
+                    return AsyncJobPoller.Poll.done(restTemplate.execute(resultUrl, HttpMethod.GET,
+                            restTemplate.httpEntityCallback(authorizedGet(resultUrl, request)),
+                            result -> readResponse(result, resultUrl, toolName, shape)));
+                }
+            }
+            return AsyncJobPoller.Poll.done(readResponse(contentType, response.getStatusCode(),
+                    new SequenceInputStream(new ByteArrayInputStream(head), body), statusUrl, toolName, shape));
+        });
+    }
+
+    /**
+     * Builds a GET of a job URL. It carries the credential of the request that started the job,
+     * if any, and only if the URL is on the same host and port as that request.
+     */
+    private HttpEntity<Void> authorizedGet(String url, UpstreamRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        String authorization = request.entity() != null
+                ? request.entity().getHeaders().getFirst(HttpHeaders.AUTHORIZATION) : null;
+        if (authorization != null && sameOrigin(url, request.url())) {
+            headers.set(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        return new HttpEntity<>(headers);
+    }
+
+    private static boolean sameOrigin(String url, String other) {
+        URI first = URI.create(url);
+        URI second = URI.create(other);
+        return first.getHost() != null && first.getHost().equalsIgnoreCase(second.getHost())
+                && first.getPort() == second.getPort()
+                && Objects.equals(first.getScheme(), second.getScheme());
+    }
+
+    private JsonNode parseJson(byte[] body) {
+        try {
+            JsonNode json = jsonMapper.readTree(body);
+            return json == null || json.isMissingNode() ? null : json;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Calls the upstream operation of a tool and returns the complete response as JSON, e.g. to pass
+     * values on to the next call of a composite tool. Responses are neither shaped nor spooled; a
+     * response that is not JSON is returned as a text node.
+     *
+     * @throws IllegalArgumentException if the tool has no upstream operation.
+     * @throws org.springframework.web.client.RestClientException if the call fails.
+     */
+    public JsonNode executeForJson(String baseUrl, String toolName, Map<String, Object> arguments) throws URISyntaxException {
+        Pagination.Page page = fetchPage(baseUrl, toolName, arguments);
+        return page.body() != null ? page.body() : TextNode.valueOf(page.text());
+    }
+
+    /**
+     * Fetches the pages of a paginated list operation in parallel and returns their records merged in
+     * order, shaped like a single response, with a note on the pages fetched.
+     */
+    private McpSchema.CallToolResult executePaginated(String baseUrl, String toolName, Map<String, Object> arguments,
+                                                      Pagination pagination, ResponseShape shape,
+                                                      ToolProgressListener progressListener) throws Exception {
+        McpServerProperties.Pagination properties = paginationProperties;
+        AtomicLong bytesRead = new AtomicLong();
+        Pagination.Result result = pagination.fetchAll(jsonMapper, arguments,
+                new Pagination.Budget(properties.getMaxRecords(), properties.getMaxBytes(), properties.getMaxPages(),
+                        properties.getConcurrency()),
+                pageArguments -> {
+                    Pagination.Page page = fetchPage(baseUrl, toolName, pageArguments);
+                    if (progressListener != null) {
+                        progressListener.onProgress(bytesRead.addAndGet(page.bytes()), null, null);
+                    }
+                    return page;
+                });
+        JsonNode body = result.merged() != null ? result.merged() : result.firstPage().body();
+        if (body == null) {
+            return new McpSchema.CallToolResult(result.firstPage().text(), false);
+        }
+        String text = shape != null
+                ? shape.apply(jsonMapper, new ByteArrayInputStream(jsonMapper.writeValueAsBytes(body)))
+                : jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(body);
+        if (result.note() != null) {
+            text = text + "\n" + result.note();
+        }
+        if (resultSpool != null && resultSpool.getThresholdBytes() > 0 && resultSpool.exceedsThreshold(text.length())) {
+            return spool(toolName, MediaType.APPLICATION_JSON_VALUE, text.getBytes(StandardCharsets.UTF_8), InputStream.nullInputStream());
+        }
+        return new McpSchema.CallToolResult(text, false);
+    }
+
+    /**
+     * Reads a complete upstream response. JSON is parsed; binary content is described instead of returned.
+     */
+    private Pagination.Page fetchPage(String baseUrl, String toolName, Map<String, Object> arguments) throws URISyntaxException {
+        UpstreamRequest request = prepareRequest(baseUrl, toolName, arguments);
+        return exchange(request, response -> {
+            MediaType contentType = response.getHeaders().getContentType();
+            byte[] body = response.getBody().readAllBytes();
+            if (contentType != null && !ResultSpool.isText(contentType.toString())) {
+                return new Pagination.Page(null, "Binary content (" + contentType + ", " + body.length + " bytes)", body.length);
+            }
+            Charset charset = contentType != null && contentType.getCharset() != null
+                    ? contentType.getCharset() : StandardCharsets.UTF_8;
+            String text = new String(body, charset);
+            try {
+                JsonNode json = jsonMapper.reader().with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS).readTree(text);
+                return new Pagination.Page(json == null || json.isMissingNode() ? null : json, text, body.length);
+            } catch (JsonProcessingException e) {
+                return new Pagination.Page(null, text, body.length);
+            }
+        });
+    }
+
+    private UpstreamRequest prepareRequest(String baseUrl, String toolName, Map<String, Object> arguments) throws URISyntaxException {
+        OpenApiToMcpConverter.DispatchPlan plan = openApiToMcpConverter.getDispatchPlan(toolName);
+        if (plan == null) {
+            throw new IllegalArgumentException("Operation ID not found: " + toolName);
+        }
+        String path = plan.path();
+        String method = plan.method();
+        boolean needsRequestBody = needsRequestBody(method);
+        //ApiCallInfo callInfo = parseToolName(toolName);
+        UpstreamBalancer.Lease lease = upstreamBalancer != null ? upstreamBalancer.acquire(baseUrl) : null;
+        String url;
+        try {
+            url = buildUrl(lease != null ? lease.url() : baseUrl, path, arguments, needsRequestBody);
+        } catch (URISyntaxException | RuntimeException e) {
+            if (lease != null) {
+                lease.release();
+            }
+            throw e;
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        addAuthHeader(method, headers);
+
+
+        Object requestBody = null;
+        if (needsRequestBody) {
+            requestBody = buildRequestBody(arguments);
+        }
+
+        HttpEntity<Object> entity = null;
+        if (requestBody != null)
+            entity = new HttpEntity<>(requestBody, headers);
+        return new UpstreamRequest(url, HttpMethod.valueOf(method), entity, plan, lease);
+    }
+
+    /**
+     * A request to an upstream operation.
+     *
+     * @param lease The endpoint the request is sent to, or null if calls are not balanced.
+     */
+    private record UpstreamRequest(String url, HttpMethod method, HttpEntity<Object> entity,
+                                   OpenApiToMcpConverter.DispatchPlan plan, UpstreamBalancer.Lease lease) {
+    }
+
+    /**
+     * Sends a request and reports its outcome to the balancer. Connection errors and 5xx responses
+     * count as failures of the endpoint; calls aborted by a cancellation do not.
+     */
+    private <T> T exchange(UpstreamRequest request, ResponseExtractor<T> extractor) {
+        boolean failed = false;
+        try {
+            return restTemplate.execute(request.url(), request.method(),
+                    restTemplate.httpEntityCallback(request.entity(), String.class), extractor);
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            failed = !Thread.currentThread().isInterrupted();
+            throw e;
+        } finally {
+            if (request.lease() != null) {
+                request.lease().complete(failed);
+            }
         }
     }
 
@@ -201,12 +706,81 @@ public class RestApiExecutorService {
         }
     }
 
-    private String formatResponse(ResponseEntity<String> response) {
+    /**
+     * Shapes a JSON response if the tool has a response shape and reads any other response up to
+     * the spool threshold. A longer result is copied to the spool.
+     */
+    private McpSchema.CallToolResult readResponse(ClientHttpResponse response, String url, String toolName,
+                                                  ResponseShape shape) throws IOException {
+        return readResponse(response, url, toolName, shape, null);
+    }
+
+    /**
+     * Reads a response like {@link #readResponse(ClientHttpResponse, String, String, ResponseShape)}
+     * and reports the progress of reading it to the listener, if any.
+     */
+    private McpSchema.CallToolResult readResponse(ClientHttpResponse response, String url, String toolName,
+                                                  ResponseShape shape, ToolProgressListener progressListener) throws IOException {
+        HttpHeaders headers = response.getHeaders();
+        if (progressListener == null) {
+            return readResponse(headers.getContentType(), response.getStatusCode(), response.getBody(), url, toolName, shape);
+        }
+        long contentLength = headers.getContentLength();
+        ProgressReportingInputStream body = new ProgressReportingInputStream(response.getBody(), jsonMapper,
+                headers.getContentType(), contentLength >= 0 ? contentLength : null, progressListener);
+        McpSchema.CallToolResult result = readResponse(headers.getContentType(), response.getStatusCode(), body,
+                url, toolName, shape);
+        body.finish();
+        return result;
+    }
+
+    private McpSchema.CallToolResult readResponse(MediaType contentType, HttpStatusCode statusCode, InputStream body,
+                                                  String url, String toolName, ResponseShape shape) throws IOException {
+        String mimeType = contentType != null ? contentType.toString() : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+        boolean spooling = resultSpool != null && resultSpool.getThresholdBytes() > 0;
+        if (shape != null && isJson(contentType)) {
+            String shaped = shape.apply(jsonMapper, body);
+            if (spooling && resultSpool.exceedsThreshold(shaped.length())) {
+                byte[] bytes = shaped.getBytes(StandardCharsets.UTF_8);
+                return spool(toolName, mimeType, bytes, InputStream.nullInputStream());
+            }
+            return new McpSchema.CallToolResult(shaped, false);
+        }
+        byte[] head = spooling ? body.readNBytes(resultSpool.getThresholdBytes() + 1) : body.readAllBytes();
+        if (spooling && resultSpool.exceedsThreshold(head.length)) {
+            return spool(toolName, mimeType, head, body);
+        }
+        if (contentType != null && !ResultSpool.isText(mimeType)) {
+            String baseType = contentType.getType() + "/" + contentType.getSubtype();
+            String data = Base64.getEncoder().encodeToString(head);
+            McpSchema.Content content = "image".equals(contentType.getType())
+                    ? new McpSchema.ImageContent(null, null, data, baseType)
+                    : new McpSchema.EmbeddedResource(null, null, new McpSchema.BlobResourceContents(url, baseType, data));
+            return new McpSchema.CallToolResult(List.of(content), false);
+        }
+        Charset charset = contentType != null && contentType.getCharset() != null
+                ? contentType.getCharset() : StandardCharsets.UTF_8;
+        return new McpSchema.CallToolResult(formatResponse(statusCode, new String(head, charset)), false);
+    }
+
+    private McpSchema.CallToolResult spool(String toolName, String mimeType, byte[] head, InputStream rest) throws IOException {
+        return new McpSchema.CallToolResult(resultSpool.describe(resultSpool.spool(toolName, mimeType, head, rest)), false);
+    }
+
+    private static boolean isJson(MediaType contentType) {
+        return contentType != null
+                && (contentType.getSubtype().equals("json") || contentType.getSubtype().endsWith("+json"));
+    }
+
+    private String formatResponse(HttpStatusCode status, String body) {
         try {
-            JsonNode responseBody = jsonMapper.readTree(response.getBody());
+            JsonNode responseBody = jsonMapper.readTree(body);
+            if (responseBody == null || responseBody.isMissingNode()) {
+                return "Status: " + status + "\nBody: " + body;
+            }
             return jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(responseBody);
         } catch (Exception e) {
-            return "Status: " + response.getStatusCode() + "\nBody: " + response.getBody();
+            return "Status: " + status + "\nBody: " + body;
         }
     }
 
@@ -0,0 +1,353 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.modelcontextprotocol.spec.McpSchema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps tool results that are too large to be returned inline in files on disk, from where clients
+ * read them in ranges as MCP resources ({@code tool-result://<id>?offset=&length=}). The results of
+ * all server instances share one directory and one disk quota; they are deleted when their TTL expires.
+ * <p>
+ * Result ids are random, so a result can only be read by a client that received its URI.
+ */
+@Slf4j
+public class ResultSpool implements MeterBinder {
+
+    public static final String URI_PREFIX = "tool-result://";
+
+    private static final String FILE_SUFFIX = ".result";
+    private static final int BUFFER_SIZE = 65536;
+
+    private final McpServerProperties.ResultSpool properties;
+    private final Path directory;
+
+    // Spooled results, keyed by id
+    private final Map<String, SpooledResult> results = new ConcurrentHashMap<>();
+    // Disk space reserved by spooled results and results being written
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong spooled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-result-spool-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ResultSpool(McpServerProperties.ResultSpool properties) throws IOException {
+        this.properties = properties;
+        this.directory = properties.getDirectory() == null || properties.getDirectory().isBlank()
+                ? Path.of(System.getProperty("java.io.tmpdir"), "mcp-result-spool")
+                : Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        deleteLeftovers();
+        long interval = Math.max(1, Math.min(60, properties.getTtlSeconds()));
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return Whether a result of the given size has to be spooled instead of being returned inline.
+     */
+    public boolean exceedsThreshold(long size) {
+        return properties.getThresholdBytes() > 0 && size > properties.getThresholdBytes();
+    }
+
+    public int getThresholdBytes() {
+        return properties.getThresholdBytes();
+    }
+
+    /**
+     * Writes a result to disk. The beginning of the result has already been read, the rest is
+     * copied from the stream without buffering it. The stream is not closed.
+     *
+     * @param toolName The tool that produced the result.
+     * @param mimeType The media type of the result.
+     * @param head     The beginning of the result.
+     * @param rest     The rest of the result.
+     * @return The spooled result.
+     * @throws IOException if the result exceeds the size limits or writing the file fails.
+     */
+    public SpooledResult spool(String toolName, String mimeType, byte[] head, InputStream rest) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path file = directory.resolve(id + FILE_SUFFIX);
+        long size = 0;
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            reserve(head.length);
+            size = head.length;
+            out.write(head);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = rest.read(buffer)) != -1) {
+                if (size + read > properties.getMaxResultBytes()) {
+                    throw new IOException("Result exceeds the maximum size of " + properties.getMaxResultBytes() + " bytes");
+                }
+                reserve(read);
+                size += read;
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            rejected.incrementAndGet();
+            usedBytes.addAndGet(-size);
+            deleteQuietly(file);
+            throw e;
+        }
+
+        int previewLength = isText(mimeType)
+                ? completeLength(head, Math.min(head.length, Math.max(0, properties.getPreviewBytes()))) : 0;
+        String preview = new String(head, 0, previewLength, StandardCharsets.UTF_8);
+        Instant now = Instant.now();
+        SpooledResult result = new SpooledResult(id, URI_PREFIX + id, toolName, mimeType, size, now,
+                now.plusSeconds(properties.getTtlSeconds()), preview, file);
+        results.put(id, result);
+        spooled.incrementAndGet();
+        log.debug("Spooled {} bytes of tool {} to {}", size, toolName, file);
+        return result;
+    }
+
+    private void reserve(long bytes) throws IOException {
+        if (usedBytes.addAndGet(bytes) <= properties.getMaxDiskBytes()) {
+            return;
+        }
+        deleteExpired(Instant.now());
+        if (usedBytes.get() > properties.getMaxDiskBytes()) {
+            usedBytes.addAndGet(-bytes);
+            throw new IOException("Result spool is full (" + properties.getMaxDiskBytes() + " bytes)");
+        }
+    }
+
+    /**
+     * @return Whether content of the media type is text. Content without media type is treated as text.
+     */
+    public static boolean isText(String mimeType) {
+        if (mimeType == null || mimeType.isBlank()) {
+            return true;
+        }
+        String type = mimeType.toLowerCase(Locale.ROOT);
+        int parameters = type.indexOf(';');
+        if (parameters >= 0) {
+            if (type.contains("charset=")) {
+                return true;
+            }
+            type = type.substring(0, parameters).trim();
+        }
+        String subtype = type.substring(type.indexOf('/') + 1);
+        return type.startsWith("text/") || subtype.equals("json") || subtype.endsWith("+json") || subtype.equals("xml")
+                || subtype.endsWith("+xml") || subtype.contains("yaml") || subtype.contains("javascript")
+                || subtype.contains("ndjson") || subtype.equals("jsonl") || subtype.equals("json-seq")
+                || subtype.equals("x-www-form-urlencoded") || subtype.equals("csv") || subtype.equals("graphql");
+    }
+
+    /**
+     * Reads a range of a spooled result. The range is shortened to at most {@code maxReadBytes}
+     * and, for text, so that it does not split a UTF-8 character; the URI of the returned contents
+     * names the range returned. Binary results are returned BASE64 encoded as a blob.
+     *
+     * @param uri {@code tool-result://<id>}, optionally with the query parameters {@code offset} and {@code length}.
+     * @return The contents of the range, or null if the URI does not name a spooled result.
+     * @throws IllegalArgumentException if the result has expired or the range is invalid.
+     */
+    public McpSchema.ReadResourceResult read(String uri) {
+        if (uri == null || !uri.startsWith(URI_PREFIX)) {
+            return null;
+        }
+        String reference = uri.substring(URI_PREFIX.length());
+        int query = reference.indexOf('?');
+        String id = query < 0 ? reference : reference.substring(0, query);
+        long offset = 0;
+        long length = properties.getMaxReadBytes();
+        if (query >= 0) {
+            for (String parameter : reference.substring(query + 1).split("&")) {
+                String[] pair = parameter.split("=", 2);
+                if ("offset".equals(pair[0]) && pair.length == 2) {
+                    offset = parseNumber(pair[1], "offset");
+                } else if ("length".equals(pair[0]) && pair.length == 2) {
+                    length = parseNumber(pair[1], "length");
+                }
+            }
+        }
+
+        SpooledResult result = results.get(id);
+        if (result == null || result.expiresAt().isBefore(Instant.now())) {
+            throw new IllegalArgumentException("Unknown or expired tool result: " + id);
+        }
+        if (offset > result.size()) {
+            throw new IllegalArgumentException("Offset " + offset + " is beyond the end of the result (" + result.size() + " bytes)");
+        }
+        int count = (int) Math.min(Math.min(length, properties.getMaxReadBytes()), result.size() - offset);
+        ByteBuffer buffer = ByteBuffer.allocate(count);
+        try (FileChannel channel = FileChannel.open(result.file(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) != -1) {
+                // Reads until the buffer is full
+            }
+        } catch (IOException e) {
+            log.warn("Could not read spooled result {}: {}", id, e.getMessage());
+            throw new IllegalArgumentException("Unknown or expired tool result: " + id);
+        }
+        byte[] bytes = buffer.array();
+        if (!isText(result.mimeType())) {
+            String rangeUri = result.uri() + "?offset=" + offset + "&length=" + buffer.position();
+            return new McpSchema.ReadResourceResult(List.of(new McpSchema.BlobResourceContents(rangeUri, result.mimeType(),
+                    Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, buffer.position())))));
+        }
+        count = Math.max(completeLength(bytes, buffer.position()), Math.min(buffer.position(), 1));
+        String rangeUri = result.uri() + "?offset=" + offset + "&length=" + count;
+        return new McpSchema.ReadResourceResult(List.of(
+                new McpSchema.TextResourceContents(rangeUri, result.mimeType(), new String(bytes, 0, count, StandardCharsets.UTF_8))));
+    }
+
+    private static long parseNumber(String value, String name) {
+        try {
+            long number = Long.parseLong(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    /**
+     * @return The length of the bytes without a UTF-8 character that is cut off at the end.
+     */
+    private static int completeLength(byte[] bytes, int length) {
+        int lead = length - 1;
+        while (lead > 0 && (bytes[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead >= 0 && (bytes[lead] & 0xC0) == 0xC0) {
+            int charLength = (bytes[lead] & 0xE0) == 0xC0 ? 2 : (bytes[lead] & 0xF0) == 0xE0 ? 3 : 4;
+            if (lead + charLength > length) {
+                return lead;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Describes a spooled result for the tool response: its size, the URI to read it from and its beginning.
+     */
+    public String describe(SpooledResult result) {
+        return "The result of " + result.toolName() + " has " + result.size() + " bytes (" + result.mimeType()
+                + ") and was stored as the resource " + result.uri() + " until " + result.expiresAt() + ".\n"
+                + "Read it with resources/read in ranges of up to " + properties.getMaxReadBytes() + " bytes, e.g. "
+                + result.uri() + "?offset=0&length=" + properties.getMaxReadBytes()
+                + "; each response names the range it contains."
+                + (result.preview().isEmpty() ? "" : "\nBeginning of the result:\n" + result.preview());
+    }
+
+    /**
+     * Deletes the results whose TTL has expired.
+     *
+     * @return The number of deleted results.
+     */
+    public int deleteExpired(Instant now) {
+        int count = 0;
+        for (SpooledResult result : results.values()) {
+            if (result.expiresAt().isBefore(now) && results.remove(result.id(), result)) {
+                delete(result);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void sweep() {
+        try {
+            int count = deleteExpired(Instant.now());
+            if (count > 0) {
+                log.debug("Deleted {} expired tool results, {} remain", count, results.size());
+            }
+        } catch (Exception e) {
+            log.warn("Deleting expired tool results failed: {}", e.getMessage());
+        }
+    }
+
+    private void delete(SpooledResult result) {
+        usedBytes.addAndGet(-result.size());
+        deleteQuietly(result.file());
+    }
+
+    private void deleteLeftovers() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            files.forEach(ResultSpool::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not delete tool results of a previous run in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled tool result {}: {}", path, e.getMessage());
+        }
+    }
+
+    public int getResultCount() {
+        return results.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("mcp.results.spooled.bytes", this, ResultSpool::getUsedBytes)
+                .description("Disk space used by spooled tool results")
+                .register(meterRegistry);
+        Gauge.builder("mcp.results.spooled.active", this, ResultSpool::getResultCount)
+                .description("Spooled tool results that can be read")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.results.spooled", this, spool -> spool.spooled.get())
+                .description("Tool results written to disk")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.results.spool.rejected", this, spool -> spool.rejected.get())
+                .description("Tool results that could not be spooled, e.g. because the quota was exceeded")
+                .register(meterRegistry);
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+        results.values().forEach(this::delete);
+        results.clear();
+    }
+
+    /**
+     * A tool result stored on disk.
+     *
+     * @param preview The beginning of the result.
+     */
+    public record SpooledResult(String id, String uri, String toolName, String mimeType, long size,
+                                Instant createdAt, Instant expiresAt, String preview, Path file) {
+    }
+}
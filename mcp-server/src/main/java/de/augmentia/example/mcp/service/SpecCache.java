@@ -0,0 +1,83 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.modelcontextprotocol.spec.McpSchema.Tool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short-lived cache of compiled OpenAPI specs, shared by all server instances of the process.
+ * When several instances reference the same spec source, it is downloaded and parsed once;
+ * the other instances adopt the cached tools and path mappings.
+ */
+@Service
+@Slf4j
+public class SpecCache {
+
+    private final McpServerProperties.SpecCache properties;
+
+    // Compiled specs in access order, keyed by resolved spec location
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public SpecCache(McpServerProperties mcpServerProperties) {
+        this.properties = mcpServerProperties.getSpecCache();
+    }
+
+    /**
+     * Returns the compiled spec for the given location if it has not expired yet.
+     *
+     * @param location The resolved location of the spec.
+     * @return The cached spec, or null.
+     */
+    public synchronized Entry get(String location) {
+        Entry entry = entries.get(location);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.cachedAt().plusSeconds(properties.getTtlSeconds()).isBefore(Instant.now())) {
+            entries.remove(location);
+            return null;
+        }
+        log.debug("Reusing compiled spec {}", location);
+        return entry;
+    }
+
+    /**
+     * Caches a compiled spec. The least recently used entry is evicted when the cache is full.
+     *
+     * @param location  The resolved location of the spec.
+     * @param baseUrl   The base URL of the spec.
+     * @param alternates The URLs of the further servers of the spec.
+     * @param tools     The converted tools.
+     * @param pathItems The path mappings of the tools, keyed by tool name.
+     */
+    public synchronized void put(String location, String baseUrl, List<String> alternates, List<Tool> tools,
+                                 Map<String, Map.Entry<String, JsonNode>> pathItems) {
+        if (properties.getTtlSeconds() <= 0 || properties.getMaxEntries() <= 0) {
+            return;
+        }
+        entries.put(location, new Entry(baseUrl, List.copyOf(alternates), List.copyOf(tools), Map.copyOf(pathItems), Instant.now()));
+        while (entries.size() > properties.getMaxEntries()) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * A compiled spec: servers, tools and the path mappings the tools are executed with.
+     */
+    public record Entry(String baseUrl, List<String> alternates, List<Tool> tools, Map<String, Map.Entry<String, JsonNode>> pathItems,
+                        Instant cachedAt) {
+    }
+}
@@ -0,0 +1,137 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.exception.InvalidOpenApiSpecException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+/**
+ * Holds an uploaded OpenAPI specification so that it can be read more than once
+ * (validation and conversion each need their own stream) without keeping large payloads on the heap.
+ * Content up to the threshold stays in memory; anything larger is spooled to a temporary file.
+ * BASE64 encoded uploads are decoded while they are copied, so the encoded text is never materialized.
+ */
+@Slf4j
+public class SpecSpool implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private byte[] memory;
+    private Path file;
+    private final long size;
+
+    private SpecSpool(byte[] memory, Path file, long size) {
+        this.memory = memory;
+        this.file = file;
+        this.size = size;
+    }
+
+    /**
+     * Copies the given stream into a new spool. The stream is not closed.
+     *
+     * @param in             The upload stream.
+     * @param base64         Whether the stream contains BASE64 text that has to be decoded.
+     * @param thresholdBytes The number of decoded bytes kept in memory before spooling to disk.
+     * @param maxBytes       The maximum accepted size of the decoded specification.
+     * @return The spool holding the decoded specification.
+     * @throws InvalidOpenApiSpecException if the upload exceeds the size limit or is not valid BASE64.
+     * @throws IOException                 if reading the upload or writing the temporary file fails.
+     */
+    public static SpecSpool spool(InputStream in, boolean base64, long thresholdBytes, long maxBytes) throws IOException {
+        InputStream source = base64 ? Base64.getMimeDecoder().wrap(in) : in;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) Math.min(thresholdBytes, BUFFER_SIZE * 4L));
+        OutputStream out = buffer;
+        Path tempFile = null;
+        long total = 0;
+        byte[] chunk = new byte[BUFFER_SIZE];
+
+        try {
+            int read;
+            while ((read = source.read(chunk)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new InvalidOpenApiSpecException("OpenAPI specification exceeds the maximum upload size of " + maxBytes + " bytes.");
+                }
+                if (tempFile == null && total > thresholdBytes) {
+                    // Switch to disk: move what we have so far into the temp file and continue there
+                    tempFile = Files.createTempFile("openapi-spec-", ".spool");
+                    out = new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE);
+                    buffer.writeTo(out);
+                    buffer = null;
+                    log.debug("Spooling OpenAPI upload to {}", tempFile);
+                }
+                out.write(chunk, 0, read);
+            }
+            out.close();
+        } catch (IllegalArgumentException e) {
+            // Thrown by the BASE64 decoder for illegal characters
+            closeQuietly(out);
+            deleteQuietly(tempFile);
+            throw new InvalidOpenApiSpecException("Upload is not valid BASE64: " + e.getMessage(), e);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(out);
+            deleteQuietly(tempFile);
+            throw e;
+        }
+
+        return tempFile == null
+                ? new SpecSpool(buffer.toByteArray(), null, total)
+                : new SpecSpool(null, tempFile, total);
+    }
+
+    /**
+     * Opens a new stream over the spooled specification.
+     */
+    public InputStream openStream() throws IOException {
+        if (memory != null) {
+            return new ByteArrayInputStream(memory);
+        }
+        if (file != null) {
+            return new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        }
+        throw new IOException("Spool has already been closed");
+    }
+
+    /**
+     * @return The size of the decoded specification in bytes.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return Whether the specification was spooled to a temporary file.
+     */
+    public boolean isOnDisk() {
+        return file != null;
+    }
+
+    @Override
+    public void close() {
+        memory = null;
+        deleteQuietly(file);
+        file = null;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            log.debug("Error closing spool output: {}", e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled OpenAPI specification {}: {}", path, e.getMessage());
+        }
+    }
+}
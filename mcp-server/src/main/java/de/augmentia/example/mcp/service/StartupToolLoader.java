@@ -0,0 +1,201 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.model.OpenApiDef;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the specs from mcp_server.yml in the background once the application is up,
+ * so the HTTP endpoint does not wait for slow or unavailable spec sources.
+ * The server reports ready as soon as all critical specs are registered; other specs keep
+ * loading afterwards and lazy specs are only compiled on first use. Failed specs are retried with backoff;
+ * critical specs are never given up, so the server becomes ready as soon as they load after all.
+ * The specs of additional server instances are loaded the same way and count towards readiness.
+ */
+@Component
+@Slf4j
+public class StartupToolLoader {
+
+    public enum State {
+        STARTING, LOADING, READY, FAILED
+    }
+
+    private final McpServerService mcpServerService;
+    private final McpServerProperties.Startup properties;
+    private final ScheduledThreadPoolExecutor executor;
+    private McpServerInstanceManager instanceManager; // Additional server instances, optional
+
+    private volatile State state = State.STARTING;
+    private volatile String failureMessage;
+    // Critical specs that are not registered yet
+    private final Set<String> pendingCriticalSpecs = ConcurrentHashMap.newKeySet();
+    // Pending critical specs that failed max-attempts times, they mark the server as failed while they are retried
+    private final Set<String> exhaustedCriticalSpecs = ConcurrentHashMap.newKeySet();
+    // Last error of specs that failed to load, keyed by spec name
+    private final Map<String, String> failedSpecs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StartupToolLoader(McpServerService mcpServerService, McpServerProperties mcpServerProperties) {
+        this.mcpServerService = mcpServerService;
+        this.properties = mcpServerProperties.getStartup();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, properties.getParallelism()), runnable -> {
+            Thread thread = new Thread(runnable, "spec-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Autowired(required = false)
+    public void setInstanceManager(McpServerInstanceManager instanceManager) {
+        this.instanceManager = instanceManager;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        executor.execute(() -> loadTools(1));
+    }
+
+    void loadTools() {
+        loadTools(1);
+    }
+
+    /**
+     * Resets the registries of the main server and all additional instances and schedules loading of all configured specs.
+     * If the configuration cannot be read, this is retried with backoff.
+     */
+    private void loadTools(int attempt) {
+        state = State.LOADING;
+        Map<String, McpServerService> servers = new LinkedHashMap<>();
+        servers.put("", mcpServerService);
+        if (instanceManager != null) {
+            instanceManager.getInstances().forEach(instance -> servers.put(instance.getName() + "/", instance.getMcpServerService()));
+        }
+
+        // Spec keys are prefixed with the instance name, specs of the main server have no prefix
+        Map<String, McpServer> configurations = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, McpServerService> server : servers.entrySet()) {
+                configurations.put(server.getKey(), server.getValue().resetTools());
+            }
+        } catch (Exception e) {
+            long delay = retryDelaySeconds(attempt);
+            log.error("Error during MCP server initialization (attempt {}), retrying in {}s: {}", attempt, delay, e.getMessage(), e);
+            failureMessage = e.getMessage();
+            state = State.FAILED;
+            executor.schedule(() -> loadTools(attempt + 1), delay, TimeUnit.SECONDS);
+            return;
+        }
+
+        failureMessage = null;
+        configurations.forEach((prefix, mcpServer) -> mcpServer.getTools().stream()
+                .filter(t -> !t.isLazy() && t.isCritical())
+                .forEach(tool -> pendingCriticalSpecs.add(prefix + tool.getName())));
+        updateState();
+
+        // Critical specs are queued first so they are not held up by the others
+        configurations.forEach((prefix, mcpServer) -> mcpServer.getTools().stream()
+                .filter(t -> !t.isLazy() && t.isCritical())
+                .forEach(tool -> executor.execute(() -> load(prefix, servers.get(prefix), tool, 1))));
+        configurations.forEach((prefix, mcpServer) -> mcpServer.getTools().stream()
+                .filter(t -> !t.isLazy() && !t.isCritical())
+                .forEach(tool -> executor.execute(() -> load(prefix, servers.get(prefix), tool, 1))));
+
+        configurations.forEach((prefix, mcpServer) -> {
+            McpServerService service = servers.get(prefix);
+            List<OpenApiDef> lazySpecs = mcpServer.getTools().stream().filter(OpenApiDef::isLazy).toList();
+            lazySpecs.forEach(service::deferSpec);
+            if (!lazySpecs.isEmpty() && properties.getLazyWarmupDelaySeconds() >= 0) {
+                executor.schedule(service::loadLazySpecs, properties.getLazyWarmupDelaySeconds(), TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    private void load(String prefix, McpServerService service, OpenApiDef tool, int attempt) {
+        String key = prefix + tool.getName();
+        try {
+            service.loadSpec(tool);
+            failedSpecs.remove(key);
+            exhaustedCriticalSpecs.remove(key);
+            pendingCriticalSpecs.remove(key);
+        } catch (Exception e) {
+            failedSpecs.put(key, e.getMessage());
+            boolean critical = pendingCriticalSpecs.contains(key);
+            if (properties.getMaxAttempts() > 0 && attempt >= properties.getMaxAttempts()) {
+                if (!critical) {
+                    log.error("Giving up loading spec {} after {} attempt(s): {}", key, attempt, e.getMessage());
+                    return;
+                }
+                exhaustedCriticalSpecs.add(key);
+            }
+            long delay = retryDelaySeconds(attempt);
+            log.warn("Loading spec {} failed (attempt {}), retrying in {}s: {}", key, attempt, delay, e.getMessage());
+            executor.schedule(() -> load(prefix, service, tool, attempt + 1), delay, TimeUnit.SECONDS);
+        } finally {
+            updateState();
+        }
+    }
+
+    private long retryDelaySeconds(int attempt) {
+        long delay = properties.getRetryIntervalSeconds() << Math.min(attempt - 1, 16);
+        return Math.min(delay, Math.max(properties.getRetryIntervalSeconds(), properties.getMaxRetryIntervalSeconds()));
+    }
+
+    /**
+     * Derives the state from the critical specs that are still outstanding.
+     */
+    private synchronized void updateState() {
+        State previous = state;
+        if (pendingCriticalSpecs.isEmpty()) {
+            state = State.READY;
+            failureMessage = null;
+        } else if (!exhaustedCriticalSpecs.isEmpty()) {
+            String key = exhaustedCriticalSpecs.iterator().next();
+            failureMessage = "Critical spec " + key + " could not be loaded: " + failedSpecs.get(key);
+            state = State.FAILED;
+        } else {
+            state = State.LOADING;
+        }
+        if (state != previous && state == State.READY) {
+            log.info("All critical specs registered, MCP server is ready.");
+        } else if (state != previous && state == State.FAILED) {
+            log.error("{}, retrying in the background", failureMessage);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    public Set<String> getPendingCriticalSpecs() {
+        return Collections.unmodifiableSet(pendingCriticalSpecs);
+    }
+
+    public Map<String, String> getFailedSpecs() {
+        return Collections.unmodifiableMap(failedSpecs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
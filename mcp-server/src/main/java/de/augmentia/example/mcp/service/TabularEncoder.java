@@ -0,0 +1,174 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Encodes arrays of uniform objects as CSV tables, which name every key once instead of on every
+ * row. A top-level array is encoded as one table; in a top-level object, every uniform array is
+ * encoded as a table and the other fields as {@code name: json} lines. The result starts with a
+ * hint explaining the format to the model and how much smaller it is than pretty-printed JSON.
+ */
+final class TabularEncoder {
+
+    // Arrays with fewer rows gain nothing from a header
+    private static final int MIN_ROWS = 2;
+
+    private TabularEncoder() {
+    }
+
+    /**
+     * @return The tabular encoding, or null if the value contains no uniform array or the encoding
+     * is not smaller than the pretty-printed JSON.
+     */
+    static String encode(ObjectMapper mapper, JsonNode value) throws IOException {
+        StringBuilder out = new StringBuilder();
+        int tables = 0;
+        if (isUniform(value)) {
+            appendTable(mapper, out, value);
+            tables++;
+        } else if (value.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = value.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (isUniform(field.getValue())) {
+                    out.append(field.getKey()).append(": ").append(field.getValue().size()).append(" rows\n");
+                    appendTable(mapper, out, field.getValue());
+                    tables++;
+                } else {
+                    out.append(field.getKey()).append(": ").append(mapper.writeValueAsString(field.getValue())).append('\n');
+                }
+            }
+        }
+        if (tables == 0) {
+            return null;
+        }
+
+        CountingWriter pretty = new CountingWriter();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(pretty, value);
+        if (out.length() >= pretty.count) {
+            return null;
+        }
+        long saved = Math.round(100.0 * (pretty.count - out.length()) / pretty.count);
+        return "(Tabular encoding: CSV with a header row, empty cells are null, nested values are JSON. "
+                + out.length() + " characters instead of " + pretty.count + " as JSON, " + saved + "% smaller.)\n"
+                + out;
+    }
+
+    /**
+     * An array is uniform if it has enough rows, all rows are objects and every row has at least
+     * half of the columns.
+     */
+    private static boolean isUniform(JsonNode value) {
+        if (!value.isArray() || value.size() < MIN_ROWS) {
+            return false;
+        }
+        Set<String> columns = new LinkedHashSet<>();
+        for (JsonNode row : value) {
+            if (!row.isObject()) {
+                return false;
+            }
+            row.fieldNames().forEachRemaining(columns::add);
+        }
+        for (JsonNode row : value) {
+            if (row.size() * 2 < columns.size()) {
+                return false;
+            }
+        }
+        return !columns.isEmpty();
+    }
+
+    private static void appendTable(ObjectMapper mapper, StringBuilder out, JsonNode rows) throws JsonProcessingException {
+        Set<String> columns = new LinkedHashSet<>();
+        rows.forEach(row -> row.fieldNames().forEachRemaining(columns::add));
+        boolean first = true;
+        for (String column : columns) {
+            if (!first) {
+                out.append(',');
+            }
+            appendCell(out, column);
+            first = false;
+        }
+        out.append('\n');
+        for (JsonNode row : rows) {
+            first = true;
+            for (String column : columns) {
+                if (!first) {
+                    out.append(',');
+                }
+                JsonNode cell = row.get(column);
+                if (cell != null && !cell.isNull()) { // Null and missing values are empty cells
+                    appendValue(mapper, out, cell);
+                }
+                first = false;
+            }
+            out.append('\n');
+        }
+    }
+
+    private static void appendValue(ObjectMapper mapper, StringBuilder out, JsonNode cell) throws JsonProcessingException {
+        if (cell.isTextual()) {
+            String text = cell.asText();
+            if (text.isEmpty()) {
+                out.append("\"\""); // Distinguishes the empty string from null
+            } else {
+                appendCell(out, text);
+            }
+        } else if (cell.isValueNode()) {
+            out.append(cell.asText());
+        } else {
+            appendCell(out, mapper.writeValueAsString(cell));
+        }
+    }
+
+    /**
+     * Appends a cell, quoted as in RFC 4180 if necessary.
+     */
+    private static void appendCell(StringBuilder out, String text) {
+        boolean quote = text.isEmpty() || Character.isWhitespace(text.charAt(0))
+                || Character.isWhitespace(text.charAt(text.length() - 1));
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) {
+            out.append('"').append(text.replace("\"", "\"\"")).append('"');
+        } else {
+            out.append(text);
+        }
+    }
+
+    /**
+     * Counts the characters of the pretty-printed JSON without keeping them.
+     */
+    private static final class CountingWriter extends Writer {
+
+        long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String text, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.model.McpServer;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Limits the tool calls of one server instance: how many may execute at the same time and
+ * how many may start per second (token bucket with a burst of one second worth of calls).
+ * Calls beyond the limits are rejected rather than queued, so one busy instance cannot
+ * tie up the request threads of the others.
+ */
+public class ToolCallLimiter {
+
+    public static final ToolCallLimiter UNLIMITED = new ToolCallLimiter(null, null);
+
+    private final Semaphore concurrentCalls;
+    private final double ratePerSecond;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    public ToolCallLimiter(Integer maxConcurrentCalls, Double rateLimitPerSecond) {
+        this.concurrentCalls = maxConcurrentCalls != null && maxConcurrentCalls > 0 ? new Semaphore(maxConcurrentCalls) : null;
+        this.ratePerSecond = rateLimitPerSecond != null && rateLimitPerSecond > 0 ? rateLimitPerSecond : 0;
+        this.tokens = Math.max(1, ratePerSecond);
+    }
+
+    /**
+     * Creates the limiter configured for a server or instance.
+     */
+    public static ToolCallLimiter of(McpServer mcpServer) {
+        if (mcpServer.getMaxConcurrentCalls() == null && mcpServer.getRateLimitPerSecond() == null) {
+            return UNLIMITED;
+        }
+        return new ToolCallLimiter(mcpServer.getMaxConcurrentCalls(), mcpServer.getRateLimitPerSecond());
+    }
+
+    /**
+     * Tries to admit a call. A successful call must be followed by {@link #release()}.
+     *
+     * @return Whether the call may proceed.
+     */
+    public boolean tryAcquire() {
+        if (!takeToken()) {
+            return false;
+        }
+        return concurrentCalls == null || concurrentCalls.tryAcquire();
+    }
+
+    public void release() {
+        if (concurrentCalls != null) {
+            concurrentCalls.release();
+        }
+    }
+
+    private synchronized boolean takeToken() {
+        if (ratePerSecond == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(Math.max(1, ratePerSecond), tokens + (now - lastRefill) / 1_000_000_000.0 * ratePerSecond);
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,31 @@
+package de.augmentia.example.mcp.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the tool catalog as up once all critical specs are registered.
+ * Part of the readiness group, see {@code management.endpoint.health.group.readiness} in application.yml.
+ */
+@Component
+public class ToolCatalogHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private StartupToolLoader startupToolLoader;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = switch (startupToolLoader.getState()) {
+            case READY -> Health.up();
+            case FAILED -> Health.down().withDetail("error", String.valueOf(startupToolLoader.getFailureMessage()));
+            default -> Health.outOfService();
+        };
+        return builder
+                .withDetail("state", startupToolLoader.getState())
+                .withDetail("pendingCriticalSpecs", startupToolLoader.getPendingCriticalSpecs())
+                .withDetail("failedSpecs", startupToolLoader.getFailedSpecs())
+                .build();
+    }
+}
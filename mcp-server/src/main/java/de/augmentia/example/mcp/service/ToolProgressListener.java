@@ -0,0 +1,19 @@
+package de.augmentia.example.mcp.service;
+
+/**
+ * Receives the progress of a tool call while the upstream response is still being read or an
+ * asynchronous upstream job is running.
+ */
+@FunctionalInterface
+public interface ToolProgressListener {
+
+    /**
+     * @param progress       Bytes of the upstream response read so far; while an asynchronous job
+     *                       runs, the progress it reports or the number of polls.
+     * @param total          Length of the upstream response, 100 for a reported percentage, or null
+     *                       if it is not known.
+     * @param partialContent Records received since the last call, one per line, or null if the
+     *                       response cannot be split into records.
+     */
+    void onProgress(long progress, Long total, String partialContent);
+}
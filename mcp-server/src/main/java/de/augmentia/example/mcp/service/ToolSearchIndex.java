@@ -0,0 +1,134 @@
+package de.augmentia.example.mcp.service;
+
+import io.modelcontextprotocol.spec.McpSchema.Tool;
+
+import java.util.*;
+
+/**
+ * In-memory inverted index over the tools of one {@link McpServerService}, ranked with BM25.
+ * Tool names, descriptions, operation tags and parameter names are indexed; tools are added and
+ * removed one by one as the registry changes.
+ */
+class ToolSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Terms of a name or tag say more about a tool than terms of its description
+    private static final int NAME_WEIGHT = 3;
+    private static final int TAG_WEIGHT = 2;
+
+    // Weighted term frequencies per tool, keyed by term and tool name
+    private final Map<String, Map<String, Integer>> postings = new HashMap<>();
+    // Weighted term frequencies of each tool, keyed by tool name, to remove it from the postings again
+    private final Map<String, Map<String, Integer>> documents = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * A tool name and its relevance for a query.
+     */
+    record Hit(String toolName, double score) {
+    }
+
+    /**
+     * Indexes a tool, replacing an earlier entry with the same name.
+     *
+     * @param tool        The tool; stubs without input schema are indexed as well.
+     * @param searchTerms Operation tags and parameter names of the tool.
+     */
+    synchronized void add(Tool tool, Collection<String> searchTerms) {
+        remove(tool.name());
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(tool.name()).forEach(term -> frequencies.merge(term, NAME_WEIGHT, Integer::sum));
+        tokenize(tool.description()).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        for (String searchTerm : searchTerms) {
+            tokenize(searchTerm).forEach(term -> frequencies.merge(term, TAG_WEIGHT, Integer::sum));
+        }
+        if (tool.inputSchema() != null && tool.inputSchema().properties() != null) {
+            tool.inputSchema().properties().keySet().forEach(name -> tokenize(name).forEach(term -> frequencies.merge(term, 1, Integer::sum)));
+        }
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(tool.name(), frequency));
+        documents.put(tool.name(), frequencies);
+        totalLength += length(frequencies);
+    }
+
+    synchronized void remove(String toolName) {
+        Map<String, Integer> frequencies = documents.remove(toolName);
+        if (frequencies == null) {
+            return;
+        }
+        for (String term : frequencies.keySet()) {
+            Map<String, Integer> posting = postings.get(term);
+            posting.remove(toolName);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= length(frequencies);
+    }
+
+    synchronized void clear() {
+        postings.clear();
+        documents.clear();
+        totalLength = 0;
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Ranks the indexed tools for a free-text query.
+     *
+     * @param query The query.
+     * @param limit The maximum number of hits.
+     * @return The matching tools, most relevant first.
+     */
+    synchronized List<Hit> search(String query, int limit) {
+        if (documents.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int documentCount = documents.size();
+        double averageLength = (double) totalLength / documentCount;
+        Map<String, Double> scores = new HashMap<>();
+        for (String term : new LinkedHashSet<>(tokenize(query))) {
+            Map<String, Integer> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+            posting.forEach((toolName, frequency) -> {
+                double normalization = K1 * (1 - B + B * length(documents.get(toolName)) / averageLength);
+                scores.merge(toolName, idf * frequency * (K1 + 1) / (frequency + normalization), Double::sum);
+            });
+        }
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(entry -> new Hit(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    private static long length(Map<String, Integer> frequencies) {
+        return frequencies.values().stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Splits text into lower case terms at non-alphanumeric characters and camel case boundaries,
+     * e.g. {@code getUserById} into get, user, by and id.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String word : text.split("[^\\p{Alnum}]+")) {
+            for (String part : word.split("(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})")) {
+                if (!part.isEmpty()) {
+                    terms.add(part.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return terms;
+    }
+}
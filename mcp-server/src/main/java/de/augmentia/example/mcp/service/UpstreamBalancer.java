@@ -0,0 +1,343 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balances the calls of an API across its endpoints: every server of its spec and the endpoints
+ * added in the configuration. Each call goes to the endpoint with the lowest product of calls in
+ * flight and average latency. An endpoint is ejected for a while after consecutive failed calls,
+ * and for as long as its health probe fails; if every endpoint is ejected, calls go to all of them.
+ */
+@Slf4j
+public class UpstreamBalancer implements MeterBinder {
+
+    // Weight of the latest call in the average latency of an endpoint
+    private static final double LATENCY_WEIGHT = 0.3;
+
+    private final McpServerProperties.Upstream properties;
+    private final HttpClient probeClient;
+    private final ScheduledExecutorService prober;
+
+    // Pools by the base URL the calls are made with, which is the first server of the spec
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+    // Endpoints by URL; an endpoint in several pools has one state
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private volatile MeterRegistry meterRegistry;
+
+    public UpstreamBalancer(McpServerProperties.Upstream properties) {
+        this.properties = properties;
+        this.probeClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(properties.getHealthCheckTimeoutMillis()))
+                .build();
+        if (properties.getHealthCheckIntervalSeconds() > 0) {
+            this.prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "mcp-upstream-probe");
+                thread.setDaemon(true);
+                return thread;
+            });
+            prober.scheduleWithFixedDelay(this::probe, properties.getHealthCheckIntervalSeconds(),
+                    properties.getHealthCheckIntervalSeconds(), TimeUnit.SECONDS);
+        } else {
+            this.prober = null;
+        }
+    }
+
+    /**
+     * Adds endpoints to the pool of an API and counts the caller as an owner of the pool. Endpoints
+     * already in the pool are ignored.
+     *
+     * @param baseUrl   The base URL the calls of the API are made with; it is always an endpoint of its pool.
+     * @param endpoints Further base URLs serving the same API.
+     */
+    public synchronized void register(String baseUrl, Collection<String> endpoints) {
+        Pool pool = pool(baseUrl);
+        pool.owners++;
+        for (String url : endpoints) {
+            Endpoint endpoint = endpoint(url);
+            if (pool.endpoints.addIfAbsent(endpoint)) {
+                log.info("Balancing calls of {} to {}", baseUrl, endpoint.url);
+            }
+        }
+    }
+
+    /**
+     * Ends an ownership of {@link #register(String, Collection)}. When the pool has no owner left,
+     * it is dropped, together with the state and metrics of endpoints that are in no other pool.
+     */
+    public synchronized void unregister(String baseUrl) {
+        Pool pool = pools.get(baseUrl);
+        if (pool == null || --pool.owners > 0) {
+            return;
+        }
+        pools.remove(baseUrl);
+        for (Endpoint endpoint : pool.endpoints) {
+            if (pools.values().stream().noneMatch(other -> other.endpoints.contains(endpoint))) {
+                endpoints.remove(endpoint.url);
+                MeterRegistry registry = meterRegistry;
+                if (registry != null) {
+                    endpoint.meters.forEach(registry::remove);
+                }
+                endpoint.meters.clear();
+            }
+        }
+        log.debug("Released the endpoints of {}", baseUrl);
+    }
+
+    /**
+     * @return The URLs of the endpoints of an API, starting with its base URL.
+     */
+    public List<String> getEndpoints(String baseUrl) {
+        return pool(baseUrl).endpoints.stream().map(endpoint -> endpoint.url).toList();
+    }
+
+    /**
+     * Chooses the endpoint of the next call of an API. The lease must be completed, or released if no
+     * call was made, so that the endpoint no longer counts the call as in flight.
+     */
+    public Lease acquire(String baseUrl) {
+        Pool pool = pool(baseUrl);
+        List<Endpoint> candidates = pool.endpoints;
+        int size = candidates.size();
+        // The search starts at a rotating position, so endpoints with the same score take turns
+        int offset = Math.floorMod(pool.cursor.getAndIncrement(), size);
+        long now = System.nanoTime();
+        Endpoint best = null;
+        Endpoint fallback = null;
+        for (int i = 0; i < size; i++) {
+            Endpoint endpoint = candidates.get((offset + i) % size);
+            if (endpoint.isAvailable(now)) {
+                if (best == null || endpoint.score() < best.score()) {
+                    best = endpoint;
+                }
+            } else if (fallback == null || endpoint.score() < fallback.score()) {
+                fallback = endpoint;
+            }
+        }
+        Endpoint chosen = best != null ? best : fallback;
+        chosen.outstanding.incrementAndGet();
+        return new Lease(chosen);
+    }
+
+    /**
+     * Probes the health of the endpoints of every API with more than one endpoint. A probe that
+     * fails or answers with a 5xx status ejects its endpoint until a probe succeeds again.
+     *
+     * @return Completes when all probes have finished.
+     */
+    CompletableFuture<Void> probe() {
+        List<CompletableFuture<?>> probes = new ArrayList<>();
+        pools.values().stream()
+                .filter(pool -> pool.endpoints.size() > 1)
+                .flatMap(pool -> pool.endpoints.stream())
+                .distinct()
+                .forEach(endpoint -> probes.add(probe(endpoint)));
+        return CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<?> probe(Endpoint endpoint) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(endpoint.url + properties.getHealthCheckPath()))
+                    .timeout(Duration.ofMillis(properties.getHealthCheckTimeoutMillis()))
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.warn("Cannot probe endpoint {}: {}", endpoint.url, e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        return probeClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    boolean healthy = error == null && response.statusCode() < 500;
+                    if (endpoint.probeFailed.getAndSet(!healthy) != !healthy) {
+                        if (healthy) {
+                            log.info("Endpoint {} is healthy again", endpoint.url);
+                        } else {
+                            log.warn("Ejecting endpoint {}, health probe failed: {}", endpoint.url,
+                                    error != null ? error.toString() : "status " + response.statusCode());
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    public void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        endpoints.values().forEach(endpoint -> bindTo(meterRegistry, endpoint));
+    }
+
+    private void bindTo(MeterRegistry meterRegistry, Endpoint endpoint) {
+        endpoint.meters.add(Gauge.builder("mcp.upstream.endpoint.outstanding", endpoint, e -> e.outstanding.get())
+                .description("Calls in flight to an upstream endpoint")
+                .tag("endpoint", endpoint.url)
+                .register(meterRegistry));
+        endpoint.meters.add(Gauge.builder("mcp.upstream.endpoint.healthy", endpoint, e -> e.isAvailable(System.nanoTime()) ? 1 : 0)
+                .description("Whether an upstream endpoint gets calls (1) or is ejected (0)")
+                .tag("endpoint", endpoint.url)
+                .register(meterRegistry));
+        endpoint.meters.add(Gauge.builder("mcp.upstream.endpoint.latency", endpoint, e -> e.latencyMillis)
+                .description("Average latency of the successful calls to an upstream endpoint")
+                .baseUnit("milliseconds")
+                .tag("endpoint", endpoint.url)
+                .register(meterRegistry));
+        endpoint.meters.add(FunctionCounter.builder("mcp.upstream.endpoint.calls", endpoint, e -> e.calls.get())
+                .description("Calls made to an upstream endpoint")
+                .tag("endpoint", endpoint.url)
+                .register(meterRegistry));
+        endpoint.meters.add(FunctionCounter.builder("mcp.upstream.endpoint.failures", endpoint, e -> e.failures.get())
+                .description("Calls to an upstream endpoint that failed with a connection error or a 5xx status")
+                .tag("endpoint", endpoint.url)
+                .register(meterRegistry));
+    }
+
+    private Pool pool(String baseUrl) {
+        return pools.computeIfAbsent(baseUrl, url -> new Pool(endpoint(url)));
+    }
+
+    private Endpoint endpoint(String url) {
+        String normalized = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        return endpoints.computeIfAbsent(normalized, key -> {
+            Endpoint endpoint = new Endpoint(key);
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                bindTo(registry, endpoint);
+            }
+            return endpoint;
+        });
+    }
+
+    /**
+     * A call in flight to an endpoint.
+     */
+    public final class Lease {
+
+        private final Endpoint endpoint;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Lease(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        /**
+         * @return The base URL of the endpoint.
+         */
+        public String url() {
+            return endpoint.url;
+        }
+
+        /**
+         * Records the outcome of the call.
+         *
+         * @param failed Whether the endpoint failed, i.e. could not be reached or answered with a 5xx status.
+         */
+        public void complete(boolean failed) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            endpoint.outstanding.decrementAndGet();
+            endpoint.calls.incrementAndGet();
+            if (failed) {
+                endpoint.failures.incrementAndGet();
+                if (endpoint.consecutiveFailures.incrementAndGet() >= properties.getFailureThreshold()) {
+                    if (!endpoint.isEjected(System.nanoTime())) {
+                        log.warn("Ejecting endpoint {} for {}s after {} failed calls", endpoint.url,
+                                properties.getEjectionSeconds(), endpoint.consecutiveFailures.get());
+                    }
+                    endpoint.ejectedUntil.set(System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getEjectionSeconds()));
+                }
+                return;
+            }
+            endpoint.consecutiveFailures.set(0);
+            endpoint.ejectedUntil.set(0);
+            double latency = (System.nanoTime() - startNanos) / 1_000_000.0;
+            endpoint.latencyMillis = endpoint.latencyMillis == 0 ? latency
+                    : endpoint.latencyMillis * (1 - LATENCY_WEIGHT) + latency * LATENCY_WEIGHT;
+        }
+
+        /**
+         * Ends a lease without a call, e.g. because the request could not be built.
+         */
+        public void release() {
+            if (done.compareAndSet(false, true)) {
+                endpoint.outstanding.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Pool {
+
+        private final CopyOnWriteArrayList<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+        // Registrations of the pool, guarded by the balancer
+        private int owners;
+
+        private Pool(Endpoint primary) {
+            endpoints.add(primary);
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final String url;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        // System.nanoTime() until which the endpoint is ejected after failed calls, 0 if it is not
+        private final AtomicLong ejectedUntil = new AtomicLong();
+        private final AtomicBoolean probeFailed = new AtomicBoolean();
+        private volatile double latencyMillis;
+        // Meters of the endpoint, removed from the registry with the endpoint
+        private final List<Meter> meters = new CopyOnWriteArrayList<>();
+
+        private Endpoint(String url) {
+            this.url = url;
+        }
+
+        private boolean isEjected(long now) {
+            long until = ejectedUntil.get();
+            return until != 0 && now - until < 0;
+        }
+
+        private boolean isAvailable(long now) {
+            return !probeFailed.get() && !isEjected(now);
+        }
+
+        private double score() {
+            return (outstanding.get() + 1) * Math.max(latencyMillis, 1.0);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package de.augmentia.example.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpError;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session wrapper that lets {@link McpRequestInterceptor}s answer requests; everything else is
+ * delegated to the session created by the MCP server. It also keeps the activity and traffic
+ * counters the {@link McpSessionRegistry} reports and evicts idle sessions by.
+ * <p>
+ * Requests in flight are cancelled when the client sends {@code notifications/cancelled} for them or
+ * the session is closed. Cancelling unsubscribes the request handler, which interrupts a tool call
+ * running on a worker thread and with it the upstream HTTP request; no response is sent.
+ */
+@Slf4j
+class InterceptingServerSession extends McpServerSession implements McpSessionContext {
+
+    static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
+    private final McpServerSession delegate;
+    private final McpServerTransport transport;
+    private final Map<String, McpRequestInterceptor> interceptors;
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+    private final long createdAt = System.currentTimeMillis();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    // Cancellation signals of the requests in flight, keyed by request id
+    private final Map<String, Sinks.One<Boolean>> inFlightRequests = new ConcurrentHashMap<>();
+
+    private volatile long lastActivity = createdAt;
+    private volatile McpSessionRegistry registry; // Set when the session is registered
+
+    InterceptingServerSession(McpServerSession delegate, McpServerTransport transport,
+                              Map<String, McpRequestInterceptor> interceptors) {
+        // The superclass state is never used, all calls go to the delegate
+        super(delegate.getId(), Duration.ZERO, transport, null, null, Map.of(), Map.of());
+        this.delegate = delegate;
+        this.transport = transport;
+        this.interceptors = interceptors;
+    }
+
+    @Override
+    public Mono<Void> handle(McpSchema.JSONRPCMessage message) {
+        lastActivity = System.currentTimeMillis();
+        messagesReceived.incrementAndGet();
+        if (message instanceof McpSchema.JSONRPCNotification notification
+                && METHOD_NOTIFICATION_CANCELLED.equals(notification.method())) {
+            // The SDK ignores cancellations, so they are not passed on
+            if (notification.params() instanceof Map<?, ?> params && params.get("requestId") != null) {
+                cancel(String.valueOf(params.get("requestId")), false);
+            }
+            return Mono.empty();
+        }
+        if (!(message instanceof McpSchema.JSONRPCRequest request)) {
+            return delegate.handle(message);
+        }
+        String requestId = String.valueOf(request.id());
+        Sinks.One<Boolean> cancellation = Sinks.one();
+        inFlightRequests.put(requestId, cancellation);
+        Mono<Void> result;
+        try {
+            result = handleRequest(request);
+        } catch (RuntimeException e) {
+            inFlightRequests.remove(requestId, cancellation);
+            throw e;
+        }
+        return result.takeUntilOther(cancellation.asMono())
+                .doFinally(signal -> inFlightRequests.remove(requestId, cancellation));
+    }
+
+    private void cancel(String requestId, boolean sessionClosed) {
+        Sinks.One<Boolean> cancellation = inFlightRequests.remove(requestId);
+        if (cancellation != null && cancellation.tryEmitValue(Boolean.TRUE).isSuccess()) {
+            log.debug("Cancelled request {} of session {}", requestId, getId());
+            McpSessionRegistry current = registry;
+            if (current != null) {
+                current.recordCancelled(sessionClosed);
+            }
+        }
+    }
+
+    private Mono<Void> handleRequest(McpSchema.JSONRPCRequest request) {
+        McpRequestInterceptor interceptor = interceptors.get(request.method());
+        if (interceptor != null) {
+            Object result;
+            try {
+                result = interceptor.intercept(this, request);
+            } catch (Exception e) {
+                return sendError(request, e);
+            }
+            if (result instanceof Mono<?> pending) {
+                return pending.flatMap(value -> sendResult(request, value))
+                        .onErrorResume(e -> sendError(request, e));
+            }
+            if (result != null) {
+                return sendResult(request, result);
+            }
+        }
+        return delegate.handle(request);
+    }
+
+    private Mono<Void> sendResult(McpSchema.JSONRPCRequest request, Object result) {
+        return transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), result, null));
+    }
+
+    private Mono<Void> sendError(McpSchema.JSONRPCRequest request, Throwable error) {
+        if (error instanceof McpError e) {
+            return transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, e.getJsonRpcError()));
+        }
+        log.error("Error handling {} request: {}", request.method(), error.getMessage(), error);
+        return transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null,
+                new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR, error.getMessage(), null)));
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+        attributes.put(name, value);
+    }
+
+    @Override
+    public <T> Mono<T> sendRequest(String method, Object requestParams, TypeReference<T> typeRef) {
+        return delegate.sendRequest(method, requestParams, typeRef);
+    }
+
+    @Override
+    public Mono<Void> sendNotification(String method, Object params) {
+        return delegate.sendNotification(method, params);
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        unregister();
+        cancelAll();
+        return delegate.closeGracefully();
+    }
+
+    @Override
+    public void close() {
+        unregister();
+        cancelAll();
+        delegate.close();
+    }
+
+    private void cancelAll() {
+        inFlightRequests.keySet().forEach(requestId -> cancel(requestId, true));
+    }
+
+    void setRegistry(McpSessionRegistry registry) {
+        this.registry = registry;
+    }
+
+    private void unregister() {
+        McpSessionRegistry current = registry;
+        if (current != null) {
+            current.unregister(this);
+        }
+    }
+
+    long getLastActivity() {
+        return lastActivity;
+    }
+
+    int getInFlightRequests() {
+        return inFlightRequests.size();
+    }
+
+    long getMessagesReceived() {
+        return messagesReceived.get();
+    }
+
+    long getMessagesSent() {
+        return transport instanceof TrackedTransport tracked ? tracked.getMessagesSent() : 0;
+    }
+
+    int getPendingMessages() {
+        return transport instanceof TrackedTransport tracked ? tracked.getPendingMessages() : 0;
+    }
+
+    McpSessionInfo getInfo(String transportName) {
+        return new McpSessionInfo(getId(), transportName, Instant.ofEpochMilli(createdAt), Instant.ofEpochMilli(lastActivity),
+                getMessagesReceived(), getMessagesSent(), inFlightRequests.size(), getPendingMessages(), attributes.size());
+    }
+}
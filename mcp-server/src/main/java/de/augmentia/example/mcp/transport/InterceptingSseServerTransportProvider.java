@@ -0,0 +1,152 @@
+package de.augmentia.example.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.transport.WebMvcSseServerTransportProvider;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.ServerResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SSE transport whose sessions pass requests to registered {@link McpRequestInterceptor}s first.
+ * The MCP SDK offers no hook to customize its request handlers, so the sessions it creates are wrapped.
+ * With a {@link McpSessionRegistry} the sessions are also tracked, and new SSE connections are
+ * refused with 503 while the session limit is reached.
+ */
+public class InterceptingSseServerTransportProvider extends WebMvcSseServerTransportProvider {
+
+    private final Map<String, McpRequestInterceptor> interceptors = new ConcurrentHashMap<>();
+
+    private final String sseEndpoint;
+
+    private volatile McpServerSession.Factory sessionFactory; // Set by the MCP server when it is built
+
+    private McpSessionRegistry sessionRegistry;
+
+    public InterceptingSseServerTransportProvider(ObjectMapper objectMapper, String baseUrl, String messageEndpoint,
+                                                  String sseEndpoint) {
+        super(objectMapper, baseUrl, messageEndpoint, sseEndpoint);
+        this.sseEndpoint = sseEndpoint;
+    }
+
+    /**
+     * Tracks the sessions of this provider in the registry. Must be set before the MCP server is built.
+     */
+    public void setSessionRegistry(McpSessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    /**
+     * Registers the interceptor for an MCP method, replacing an earlier one.
+     *
+     * @param method      The JSON-RPC method, e.g. {@code tools/list}.
+     * @param interceptor The interceptor.
+     */
+    public void addInterceptor(String method, McpRequestInterceptor interceptor) {
+        interceptors.put(method, interceptor);
+    }
+
+    @Override
+    public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        super.setSessionFactory(transport -> {
+            InterceptingServerSession session = newSession(transport, McpSessionRegistry.TRANSPORT_SSE);
+            closeWhenStreamEnds(session);
+            return session;
+        });
+    }
+
+    private InterceptingServerSession newSession(McpServerTransport transport, String transportName) {
+        McpServerSession.Factory factory = sessionFactory;
+        if (factory == null) {
+            throw new IllegalStateException("MCP server not initialized");
+        }
+        if (sessionRegistry == null) {
+            return new InterceptingServerSession(factory.create(transport), transport, interceptors);
+        }
+        TrackedTransport tracked = new TrackedTransport(transport, sessionRegistry.getMaxPendingMessages());
+        InterceptingServerSession session = new InterceptingServerSession(factory.create(tracked), tracked, interceptors);
+        tracked.setOnFailure(session::close);
+        sessionRegistry.register(session, transportName);
+        return session;
+    }
+
+    /**
+     * The SDK creates SSE sessions while the SSE response is written, after the asynchronous request
+     * was started, so the session can follow the end of the stream through the async context. Closing
+     * it cancels the requests still in flight and unregisters it.
+     */
+    private void closeWhenStreamEnds(InterceptingServerSession session) {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (!request.isAsyncStarted()) {
+            return;
+        }
+        request.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                session.close();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                session.close();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                session.close();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+    }
+
+    @Override
+    public RouterFunction<ServerResponse> getRouterFunction() {
+        return super.getRouterFunction().filter((request, next) -> {
+            if (sessionRegistry != null && HttpMethod.GET.equals(request.method()) && sseEndpoint.equals(request.path())
+                    && !sessionRegistry.tryAdmit()) {
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body("Too many open MCP sessions");
+            }
+            return next.handle(request);
+        });
+    }
+
+    /**
+     * Checks whether another session may be opened on another transport.
+     *
+     * @return {@code true} if the session limit is not reached.
+     */
+    public boolean tryAdmitSession() {
+        return sessionRegistry == null || sessionRegistry.tryAdmit();
+    }
+
+    /**
+     * Creates a session of the MCP server of this provider for the {@link StreamableHttpEndpoint}. Requests of the session are intercepted like those of the SSE sessions.
+     *
+     * @param transport The transport of the session.
+     * @return The session.
+     * @throws IllegalStateException if no MCP server uses this provider yet.
+     */
+    public McpServerSession createSession(McpServerTransport transport) {
+        return newSession(transport, McpSessionRegistry.TRANSPORT_STREAMABLE_HTTP);
+    }
+}
@@ -0,0 +1,21 @@
+package de.augmentia.example.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+
+/**
+ * Answers selected MCP requests before they reach the MCP server, e.g. to serve {@code tools/list}
+ * from the registry instead of the tool list held by the SDK.
+ */
+@FunctionalInterface
+public interface McpRequestInterceptor {
+
+    /**
+     * @param session The MCP session that sent the request.
+     * @param request The request.
+     * @return The result to send to the client, or null to let the MCP server handle the request.
+     *         A {@link reactor.core.publisher.Mono} is subscribed to and its value sent once it is available,
+     *         so the interceptor can send notifications for the request meanwhile.
+     * @throws io.modelcontextprotocol.spec.McpError to answer the request with the given JSON-RPC error.
+     */
+    Object intercept(McpSessionContext session, McpSchema.JSONRPCRequest request);
+}
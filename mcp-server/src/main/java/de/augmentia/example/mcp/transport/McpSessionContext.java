@@ -0,0 +1,21 @@
+package de.augmentia.example.mcp.transport;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * State of one MCP session that interceptors can keep between requests, e.g. the tool profile
+ * the client selected at initialization. It is released together with the session.
+ */
+public interface McpSessionContext {
+
+    String getId();
+
+    Object getAttribute(String name);
+
+    void setAttribute(String name, Object value);
+
+    /**
+     * Sends a notification to the client of the session, e.g. the progress of a request.
+     */
+    Mono<Void> sendNotification(String method, Object params);
+}
@@ -0,0 +1,21 @@
+package de.augmentia.example.mcp.transport;
+
+import java.time.Instant;
+
+/**
+ * Snapshot of the state and traffic of one open MCP session.
+ *
+ * @param id               The session id.
+ * @param transport        {@code sse} or {@code streamable-http}.
+ * @param createdAt        When the session was opened.
+ * @param lastActivity     When the client sent its last message.
+ * @param messagesReceived Messages received from the client.
+ * @param messagesSent     Messages written to the client.
+ * @param inFlightRequests Client requests that are still being processed.
+ * @param pendingMessages  Server messages waiting to be written to the client.
+ * @param attributes       Number of attributes interceptors stored in the session.
+ */
+public record McpSessionInfo(String id, String transport, Instant createdAt, Instant lastActivity,
+                             long messagesReceived, long messagesSent, int inFlightRequests,
+                             int pendingMessages, int attributes) {
+}
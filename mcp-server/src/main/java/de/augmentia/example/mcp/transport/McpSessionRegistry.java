@@ -0,0 +1,250 @@
+package de.augmentia.example.mcp.transport;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open MCP sessions of all transports and server instances. The registry limits the number of
+ * sessions, closes sessions whose client has been silent for longer than the idle timeout and
+ * publishes session and message metrics.
+ * <p>
+ * SSE sessions of clients that disconnect without closing the stream are only noticed by the
+ * servlet container on the next write, so the idle timeout is what releases most of them.
+ */
+@Slf4j
+public class McpSessionRegistry implements MeterBinder {
+
+    public static final String TRANSPORT_SSE = "sse";
+    public static final String TRANSPORT_STREAMABLE_HTTP = "streamable-http";
+
+    private final McpServerProperties.Sessions properties;
+
+    // Open sessions, keyed by session id
+    private final Map<String, Registration> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong cancelledByClient = new AtomicLong();
+    private final AtomicLong cancelledBySessionClose = new AtomicLong();
+    // Messages of sessions that are already closed
+    private final AtomicLong closedMessagesReceived = new AtomicLong();
+    private final AtomicLong closedMessagesSent = new AtomicLong();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mcp-session-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public McpSessionRegistry(McpServerProperties.Sessions properties) {
+        this.properties = properties;
+        if (properties.getIdleTimeoutSeconds() > 0) {
+            long interval = Math.max(1, properties.getSweepIntervalSeconds());
+            sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks whether another session may be opened; a refused session is counted as rejected.
+     * Sessions opened at the same moment may exceed the limit by a few.
+     *
+     * @return {@code true} if the session may be opened.
+     */
+    public boolean tryAdmit() {
+        int maxSessions = properties.getMaxSessions();
+        if (maxSessions <= 0 || sessions.size() < maxSessions) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        log.warn("Rejected MCP session, {} sessions are open", sessions.size());
+        return false;
+    }
+
+    int getMaxPendingMessages() {
+        return properties.getMaxPendingMessages();
+    }
+
+    void register(InterceptingServerSession session, String transport) {
+        session.setRegistry(this);
+        sessions.put(session.getId(), new Registration(session, transport));
+        opened.incrementAndGet();
+    }
+
+    void unregister(InterceptingServerSession session) {
+        Registration registration = sessions.get(session.getId());
+        if (registration != null && registration.session() == session && sessions.remove(session.getId(), registration)) {
+            closedMessagesReceived.addAndGet(session.getMessagesReceived());
+            closedMessagesSent.addAndGet(session.getMessagesSent());
+        }
+    }
+
+    void recordCancelled(boolean sessionClosed) {
+        (sessionClosed ? cancelledBySessionClose : cancelledByClient).incrementAndGet();
+    }
+
+    /**
+     * Closes the sessions whose client has sent nothing for longer than the idle timeout.
+     * Sessions waiting for a request to complete are kept.
+     *
+     * @return The number of closed sessions.
+     */
+    public int evictIdle() {
+        return evictIdle(System.currentTimeMillis());
+    }
+
+    int evictIdle(long now) {
+        long idleTimeoutMillis = TimeUnit.SECONDS.toMillis(properties.getIdleTimeoutSeconds());
+        if (idleTimeoutMillis <= 0) {
+            return 0;
+        }
+        int count = 0;
+        for (Registration registration : sessions.values()) {
+            InterceptingServerSession session = registration.session();
+            if (now - session.getLastActivity() > idleTimeoutMillis && session.getInFlightRequests() == 0) {
+                log.debug("Closing idle MCP session {}", session.getId());
+                try {
+                    session.close();
+                } catch (Exception e) {
+                    log.debug("Closing MCP session {} failed: {}", session.getId(), e.getMessage());
+                    unregister(session);
+                }
+                evicted.incrementAndGet();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void sweep() {
+        try {
+            int count = evictIdle();
+            if (count > 0) {
+                log.info("Closed {} idle MCP sessions, {} remain open", count, sessions.size());
+            }
+        } catch (Exception e) {
+            log.warn("Evicting idle MCP sessions failed: {}", e.getMessage());
+        }
+    }
+
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    public int getMaxSessions() {
+        return properties.getMaxSessions();
+    }
+
+    public long getOpenedSessions() {
+        return opened.get();
+    }
+
+    public long getEvictedSessions() {
+        return evicted.get();
+    }
+
+    public long getRejectedSessions() {
+        return rejected.get();
+    }
+
+    /**
+     * @return Requests abandoned because the client cancelled them.
+     */
+    public long getCancelledByClient() {
+        return cancelledByClient.get();
+    }
+
+    /**
+     * @return Requests abandoned because their session was closed or disconnected.
+     */
+    public long getCancelledBySessionClose() {
+        return cancelledBySessionClose.get();
+    }
+
+    public long getMessagesReceived() {
+        return closedMessagesReceived.get()
+                + sessions.values().stream().mapToLong(registration -> registration.session().getMessagesReceived()).sum();
+    }
+
+    public long getMessagesSent() {
+        return closedMessagesSent.get()
+                + sessions.values().stream().mapToLong(registration -> registration.session().getMessagesSent()).sum();
+    }
+
+    public long getPendingMessages() {
+        return sessions.values().stream().mapToLong(registration -> registration.session().getPendingMessages()).sum();
+    }
+
+    /**
+     * Returns the open sessions, most recently active first.
+     *
+     * @param limit Maximum number of sessions returned.
+     */
+    public List<McpSessionInfo> getSessions(int limit) {
+        return sessions.values().stream()
+                .map(registration -> registration.session().getInfo(registration.transport()))
+                .sorted(Comparator.comparing(McpSessionInfo::lastActivity).reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    private long countSessions(String transport) {
+        return sessions.values().stream().filter(registration -> registration.transport().equals(transport)).count();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        for (String transport : List.of(TRANSPORT_SSE, TRANSPORT_STREAMABLE_HTTP)) {
+            Gauge.builder("mcp.sessions.active", this, registry -> registry.countSessions(transport))
+                    .description("Open MCP sessions")
+                    .tag("transport", transport)
+                    .register(meterRegistry);
+        }
+        Gauge.builder("mcp.sessions.pending.messages", this, McpSessionRegistry::getPendingMessages)
+                .description("Server messages waiting to be written to MCP clients")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.sessions.opened", this, McpSessionRegistry::getOpenedSessions)
+                .description("MCP sessions opened")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.sessions.evicted", this, McpSessionRegistry::getEvictedSessions)
+                .description("MCP sessions closed for being idle")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.sessions.rejected", this, McpSessionRegistry::getRejectedSessions)
+                .description("MCP sessions rejected because the session limit was reached")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.requests.cancelled", this, McpSessionRegistry::getCancelledByClient)
+                .description("MCP requests abandoned before completion")
+                .tag("reason", "client")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.requests.cancelled", this, McpSessionRegistry::getCancelledBySessionClose)
+                .description("MCP requests abandoned before completion")
+                .tag("reason", "session_closed")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.messages.received", this, McpSessionRegistry::getMessagesReceived)
+                .description("JSON-RPC messages received from MCP clients")
+                .register(meterRegistry);
+        FunctionCounter.builder("mcp.messages.sent", this, McpSessionRegistry::getMessagesSent)
+                .description("JSON-RPC messages sent to MCP clients")
+                .register(meterRegistry);
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+
+    private record Registration(InterceptingServerSession session, String transport) {
+    }
+}
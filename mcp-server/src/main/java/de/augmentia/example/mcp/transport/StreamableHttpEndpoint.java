@@ -0,0 +1,364 @@
+package de.augmentia.example.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerRequest;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MCP Streamable HTTP endpoint for the sessions of an {@link InterceptingSseServerTransportProvider}.
+ * Every JSON-RPC message is POSTed to one endpoint and the responses are returned in the HTTP response,
+ * so a session holds no connection between requests. The session is identified by the
+ * {@value #SESSION_HEADER} header assigned at initialization and ends with a DELETE.
+ * <p>
+ * Responses are sent as {@code application/json}. Only when a request asks for progress
+ * ({@code _meta.progressToken}) and the client accepts {@code text/event-stream} is the response an SSE
+ * stream, carrying the progress notifications of the request before its response. The server offers no
+ * standalone SSE stream, so other notifications are dropped. Each POST receives only the messages of its
+ * own requests, and no servlet thread is held while they are handled.
+ */
+@Slf4j
+public class StreamableHttpEndpoint {
+
+    public static final String SESSION_HEADER = "Mcp-Session-Id";
+
+    private final ObjectMapper objectMapper;
+    private final String endpoint;
+    private final InterceptingSseServerTransportProvider sessionSource;
+
+    // Open sessions, keyed by session id
+    private final Map<String, StreamableSession> sessions = new ConcurrentHashMap<>();
+
+    private Duration responseTimeout = Duration.ofMinutes(15); // Longest time a POST waits for its responses
+
+    /**
+     * @param objectMapper  The mapper of the JSON-RPC messages.
+     * @param endpoint      The path of the endpoint, e.g. {@code /mcp}.
+     * @param sessionSource The transport provider of the MCP server whose sessions are served.
+     */
+    public StreamableHttpEndpoint(ObjectMapper objectMapper, String endpoint,
+                                  InterceptingSseServerTransportProvider sessionSource) {
+        this.objectMapper = objectMapper;
+        this.endpoint = endpoint;
+        this.sessionSource = sessionSource;
+    }
+
+    /**
+     * Sets how long a POST may wait for its responses before it is answered with 503, e.g. while an upstream job is polled.
+     */
+    public void setResponseTimeout(Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public RouterFunction<ServerResponse> getRouterFunction() {
+        return RouterFunctions.route()
+                .POST(endpoint, this::handlePost)
+                .DELETE(endpoint, this::handleDelete)
+                .GET(endpoint, request -> ServerResponse.status(HttpStatus.METHOD_NOT_ALLOWED)
+                        .allow(HttpMethod.POST, HttpMethod.DELETE)
+                        .build())
+                .build();
+    }
+
+    private ServerResponse handlePost(ServerRequest request) {
+        List<McpSchema.JSONRPCMessage> messages = new ArrayList<>();
+        boolean batch;
+        try {
+            JsonNode body = objectMapper.readTree(request.body(String.class));
+            batch = body.isArray();
+            for (JsonNode node : batch ? body : List.of(body)) {
+                messages.add(McpSchema.deserializeJsonRpcMessage(objectMapper, node.toString()));
+            }
+        } catch (Exception e) {
+            log.warn("Invalid MCP message: {}", e.getMessage());
+            return ServerResponse.badRequest().body("Invalid MCP message: " + e.getMessage());
+        }
+
+        StreamableSession session;
+        if (messages.stream().anyMatch(message -> message instanceof McpSchema.JSONRPCRequest r
+                && McpSchema.METHOD_INITIALIZE.equals(r.method()))) {
+            if (!sessionSource.tryAdmitSession()) {
+                return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "30")
+                        .body("Too many open MCP sessions");
+            }
+            ResponseCollector transport = new ResponseCollector();
+            McpServerSession serverSession = sessionSource.createSession(transport);
+            transport.sessionId = serverSession.getId();
+            session = new StreamableSession(serverSession, transport);
+            sessions.put(serverSession.getId(), session);
+            log.debug("Opened Streamable HTTP session {}", serverSession.getId());
+        } else {
+            String sessionId = request.headers().firstHeader(SESSION_HEADER);
+            if (sessionId == null) {
+                return ServerResponse.badRequest().body("Missing " + SESSION_HEADER + " header");
+            }
+            session = sessions.get(sessionId);
+            if (session == null) {
+                return ServerResponse.notFound().build();
+            }
+        }
+
+        if (acceptsEventStream(request) && messages.stream().anyMatch(StreamableHttpEndpoint::requestsProgress)) {
+            return streamResponses(session, messages);
+        }
+
+        // The servlet thread is released while the requests are handled, e.g. while an upstream job is polled
+        Exchange exchange = session.transport().open(messages, null);
+        CompletableFuture<ServerResponse> response = handleAll(session, messages)
+                .then(Mono.fromCallable(() -> jsonResponse(session, exchange, messages, batch)))
+                .onErrorResume(e -> {
+                    log.error("Error handling MCP message of session {}: {}", session.serverSession().getId(), e.getMessage(), e);
+                    return Mono.just(ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).body(String.valueOf(e.getMessage())));
+                })
+                .doFinally(signal -> session.transport().release(exchange))
+                .toFuture();
+        if (response.isDone()) {
+            return response.join(); // Answered right away, e.g. initialize
+        }
+        return ServerResponse.async(response, responseTimeout);
+    }
+
+    /**
+     * Handles the messages of one POST in order, without blocking the calling thread.
+     */
+    private static Mono<Void> handleAll(StreamableSession session, List<McpSchema.JSONRPCMessage> messages) {
+        return Flux.fromIterable(messages)
+                .concatMap(message -> Mono.defer(() -> session.serverSession().handle(message)))
+                .then();
+    }
+
+    private ServerResponse jsonResponse(StreamableSession session, Exchange exchange, List<McpSchema.JSONRPCMessage> messages,
+                                        boolean batch) throws IOException {
+        List<McpSchema.JSONRPCResponse> responses = new ArrayList<>();
+        for (McpSchema.JSONRPCMessage message : messages) {
+            if (message instanceof McpSchema.JSONRPCRequest r) {
+                McpSchema.JSONRPCResponse response = exchange.responses.get(r.id());
+                if (response != null) {
+                    responses.add(response);
+                }
+            }
+        }
+
+        String sessionId = session.serverSession().getId();
+        if (responses.isEmpty()) {
+            return ServerResponse.accepted().header(SESSION_HEADER, sessionId).build();
+        }
+        String json = objectMapper.writeValueAsString(batch ? responses : responses.get(0));
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(SESSION_HEADER, sessionId)
+                .body(json);
+    }
+
+    private static boolean acceptsEventStream(ServerRequest request) {
+        return request.headers().accept().stream().anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype);
+    }
+
+    private static boolean requestsProgress(McpSchema.JSONRPCMessage message) {
+        return progressToken(message) != null;
+    }
+
+    private static Object progressToken(McpSchema.JSONRPCMessage message) {
+        Object params = message instanceof McpSchema.JSONRPCRequest request ? request.params()
+                : message instanceof McpSchema.JSONRPCNotification notification ? notification.params() : null;
+        if (!(params instanceof Map<?, ?> map)) {
+            return null;
+        }
+        // Requests carry the token in _meta, progress notifications at the top level
+        return map.get("_meta") instanceof Map<?, ?> meta ? meta.get("progressToken") : map.get("progressToken");
+    }
+
+    /**
+     * Answers with an SSE stream that carries the progress notifications of the requests of this POST,
+     * followed by their responses. If the stream breaks, these requests are cancelled.
+     */
+    private ServerResponse streamResponses(StreamableSession session, List<McpSchema.JSONRPCMessage> messages) {
+        return ServerResponse.sse(sse -> {
+            Exchange exchange = session.transport().open(messages, sse);
+            exchange.onStreamFailure = () -> exchange.requestIds.forEach(requestId -> session.serverSession()
+                    .handle(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                            "notifications/cancelled", Map.of("requestId", requestId))).subscribe());
+            handleAll(session, messages)
+                    .doFinally(signal -> {
+                        session.transport().release(exchange);
+                        sse.complete();
+                    })
+                    .subscribe(null, e -> log.error("Error handling MCP message of session {}: {}",
+                            session.serverSession().getId(), e.getMessage(), e));
+        }, responseTimeout);
+    }
+
+    private ServerResponse handleDelete(ServerRequest request) {
+        String sessionId = request.headers().firstHeader(SESSION_HEADER);
+        StreamableSession session = sessionId != null ? sessions.remove(sessionId) : null;
+        if (session == null) {
+            return ServerResponse.notFound().build();
+        }
+        session.serverSession().close();
+        log.debug("Closed Streamable HTTP session {}", sessionId);
+        return ServerResponse.noContent().build();
+    }
+
+    /**
+     * Closes all open sessions, e.g. on shutdown.
+     */
+    public void closeAll() {
+        List.copyOf(sessions.values()).forEach(session -> session.serverSession().close());
+        sessions.clear();
+    }
+
+    private record StreamableSession(McpServerSession serverSession, ResponseCollector transport) {
+    }
+
+    /**
+     * The HTTP exchange of one POST. It receives the responses to its own requests and, if it is an
+     * SSE stream, the progress notifications of its own requests, so concurrent POSTs of a session
+     * never see each other's messages.
+     */
+    private class Exchange {
+
+        private final List<Object> requestIds = new ArrayList<>();
+        private final List<Object> progressTokens = new ArrayList<>();
+        // Responses of a JSON exchange, keyed by request id
+        private final Map<Object, McpSchema.JSONRPCResponse> responses = new ConcurrentHashMap<>();
+        // SSE stream of the exchange, null if the responses are returned as JSON
+        private final ServerResponse.SseBuilder stream;
+        private volatile Runnable onStreamFailure;
+
+        private Exchange(ServerResponse.SseBuilder stream) {
+            this.stream = stream;
+        }
+
+        private Mono<Void> send(McpSchema.JSONRPCMessage message) {
+            if (stream != null) {
+                return Mono.fromRunnable(() -> writeEvent(message));
+            }
+            if (message instanceof McpSchema.JSONRPCResponse response) {
+                responses.put(response.id(), response);
+            }
+            return Mono.empty();
+        }
+
+        private void writeEvent(McpSchema.JSONRPCMessage message) {
+            try {
+                String json = objectMapper.writeValueAsString(message);
+                synchronized (stream) {
+                    stream.event("message").data(json);
+                }
+            } catch (IOException e) {
+                log.debug("SSE stream of an MCP request broke: {}", e.getMessage());
+                Runnable failure = onStreamFailure;
+                onStreamFailure = null;
+                if (failure != null) {
+                    failure.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Session transport that routes every server message to the exchange of the request it belongs to:
+     * responses by request id, progress notifications by progress token. Other messages are dropped,
+     * since the endpoint has no standalone stream. Closing it ends the session, e.g. when it is evicted as idle.
+     */
+    private class ResponseCollector implements McpServerTransport {
+
+        // Exchanges waiting for the response to a request, keyed by request id
+        private final Map<Object, Exchange> requests = new ConcurrentHashMap<>();
+        // SSE exchanges receiving the progress of a request, keyed by progress token
+        private final Map<Object, Exchange> progress = new ConcurrentHashMap<>();
+
+        private volatile String sessionId;
+
+        /**
+         * Opens the exchange of a POST for its requests.
+         *
+         * @param stream The SSE stream of the POST, or null to collect the responses.
+         */
+        private Exchange open(List<McpSchema.JSONRPCMessage> messages, ServerResponse.SseBuilder stream) {
+            Exchange exchange = new Exchange(stream);
+            for (McpSchema.JSONRPCMessage message : messages) {
+                if (message instanceof McpSchema.JSONRPCRequest request) {
+                    exchange.requestIds.add(request.id());
+                    if (requests.put(request.id(), exchange) != null) {
+                        log.warn("Request id {} of session {} is already in flight", request.id(), sessionId);
+                    }
+                    Object token = progressToken(request);
+                    if (stream != null && token != null) {
+                        exchange.progressTokens.add(token);
+                        progress.put(token, exchange);
+                    }
+                }
+            }
+            return exchange;
+        }
+
+        private void release(Exchange exchange) {
+            exchange.requestIds.forEach(requestId -> requests.remove(requestId, exchange));
+            exchange.progressTokens.forEach(token -> progress.remove(token, exchange));
+        }
+
+        @Override
+        public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+            Exchange exchange = null;
+            if (message instanceof McpSchema.JSONRPCResponse response && response.id() != null) {
+                exchange = requests.get(response.id());
+            } else if (message instanceof McpSchema.JSONRPCNotification) {
+                Object token = progressToken(message);
+                exchange = token != null ? progress.get(token) : null;
+            }
+            if (exchange == null) {
+                log.debug("Dropping server message without an open exchange: {}", message);
+                return Mono.empty();
+            }
+            return exchange.send(message);
+        }
+
+        @Override
+        public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+            return objectMapper.convertValue(data, typeRef);
+        }
+
+        @Override
+        public Mono<Void> closeGracefully() {
+            return Mono.fromRunnable(this::close);
+        }
+
+        @Override
+        public void close() {
+            if (sessionId != null) {
+                sessions.remove(sessionId);
+            }
+        }
+    }
+}
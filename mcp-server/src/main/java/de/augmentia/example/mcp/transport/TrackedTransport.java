@@ -0,0 +1,78 @@
+package de.augmentia.example.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session transport that counts the messages sent to the client and those still waiting to be written.
+ * A session whose client stops reading, or whose connection fails, is closed instead of piling up messages.
+ */
+@Slf4j
+class TrackedTransport implements McpServerTransport {
+
+    private final McpServerTransport delegate;
+    private final int maxPendingMessages;
+    private final AtomicLong messagesSent = new AtomicLong();
+    private final AtomicInteger pendingMessages = new AtomicInteger();
+
+    private volatile Runnable onFailure = () -> { };
+
+    /**
+     * @param delegate           The transport of the session.
+     * @param maxPendingMessages Messages that may wait for the client before the session is closed, 0 is unlimited.
+     */
+    TrackedTransport(McpServerTransport delegate, int maxPendingMessages) {
+        this.delegate = delegate;
+        this.maxPendingMessages = maxPendingMessages;
+    }
+
+    void setOnFailure(Runnable onFailure) {
+        this.onFailure = onFailure;
+    }
+
+    long getMessagesSent() {
+        return messagesSent.get();
+    }
+
+    int getPendingMessages() {
+        return pendingMessages.get();
+    }
+
+    @Override
+    public Mono<Void> sendMessage(McpSchema.JSONRPCMessage message) {
+        return Mono.defer(() -> {
+            int pending = pendingMessages.incrementAndGet();
+            if (maxPendingMessages > 0 && pending > maxPendingMessages) {
+                pendingMessages.decrementAndGet();
+                log.warn("Closing MCP session with {} messages waiting for the client", pending - 1);
+                onFailure.run();
+                return Mono.error(new IllegalStateException("Too many messages waiting for the client"));
+            }
+            return delegate.sendMessage(message)
+                    .doOnSuccess(ignored -> messagesSent.incrementAndGet())
+                    .doOnError(e -> onFailure.run())
+                    .doFinally(signal -> pendingMessages.decrementAndGet());
+        });
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+        return delegate.unmarshalFrom(data, typeRef);
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+        return delegate.closeGracefully();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -1,27 +1,55 @@
 
 package de.augmentia.example.mcp.controller;
 
+import de.augmentia.example.mcp.config.McpServerProperties;
 import de.augmentia.example.mcp.exception.ToolNotFoundException;
+import de.augmentia.example.mcp.model.RegistrationJob;
+import de.augmentia.example.mcp.model.ToolSearchHit;
+import de.augmentia.example.mcp.service.CatalogResponseCache;
+import de.augmentia.example.mcp.service.McpServerInstance;
+import de.augmentia.example.mcp.service.McpServerInstanceManager;
 import de.augmentia.example.mcp.service.McpServerService;
+import de.augmentia.example.mcp.service.RegistrationJobService;
+import de.augmentia.example.mcp.service.SpecSpool;
+import de.augmentia.example.mcp.transport.McpSessionInfo;
+import de.augmentia.example.mcp.transport.McpSessionRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.McpSchema;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(McpServerController.class)
+@Import(McpServerProperties.class)
 public class McpServerControllerTest {
 
     @Autowired
@@ -30,14 +58,85 @@ public class McpServerControllerTest {
     @MockBean
     private McpServerService mcpServerService;
 
+    @MockBean
+    private RegistrationJobService registrationJobService;
+
+    @MockBean
+    private McpServerInstanceManager mcpServerInstanceManager;
+
+    @MockBean
+    private McpSessionRegistry mcpSessionRegistry;
+
     @Autowired
     private ObjectMapper objectMapper;
 
     @Test
     public void getTools() throws Exception {
-        when(mcpServerService.getTools()).thenReturn(Collections.emptyList());
+        when(mcpServerService.getCatalogResponse(false, null, null, null))
+                .thenReturn(new CatalogResponseCache.Response("[]".getBytes(StandardCharsets.UTF_8), "\"1-0\""));
         mockMvc.perform(get("/api/tools"))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-0\""))
+                .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    public void getTools_whenNotModified() throws Exception {
+        when(mcpServerService.getCatalogResponse(false, null, null, null))
+                .thenReturn(new CatalogResponseCache.Response("[]".getBytes(StandardCharsets.UTF_8), "\"1-0\""));
+        mockMvc.perform(get("/api/tools").header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getTools_compressed() throws Exception {
+        String json = "[" + "\"tool\",".repeat(1000) + "\"tool\"]";
+        CatalogResponseCache.Response catalog = new CatalogResponseCache.Response(json.getBytes(StandardCharsets.UTF_8), "\"1-0\"");
+        when(mcpServerService.getCatalogResponse(false, null, null, null)).thenReturn(catalog);
+
+        byte[] body = mockMvc.perform(get("/api/tools").header("Accept-Encoding", "deflate;q=0.5, gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"1-0-gzip\""))
+                .andExpect(header().stringValues("Vary", hasItem("Accept-Encoding")))
+                .andReturn().getResponse().getContentAsByteArray();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(json, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertSame(catalog.json("gzip"), catalog.json("gzip"));
+
+        mockMvc.perform(get("/api/tools").header("Accept-Encoding", "gzip;q=0, deflate"))
+                .andExpect(header().string("Content-Encoding", "deflate"));
+        mockMvc.perform(get("/api/tools").header("Accept-Encoding", "br"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("ETag", "\"1-0\""));
+    }
+
+    @Test
+    public void getTools_withLimit() throws Exception {
+        when(mcpServerService.getCatalogResponse(false, null, 10, null))
+                .thenReturn(new CatalogResponseCache.Response("{\"nextCursor\":\"next\"}".getBytes(StandardCharsets.UTF_8), "\"1-1\""));
+        mockMvc.perform(get("/api/tools").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    public void getTools_withInvalidCursor() throws Exception {
+        when(mcpServerService.getCatalogResponse(false, "bad", null, null)).thenThrow(new IllegalArgumentException("Invalid cursor: bad"));
+        mockMvc.perform(get("/api/tools").param("cursor", "bad"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void searchTools() throws Exception {
+        ToolSearchHit hit = new ToolSearchHit();
+        hit.setTool(new McpSchema.Tool("listInvoices", "Lists invoices", (McpSchema.JsonSchema) null));
+        hit.setScore(1.5);
+        when(mcpServerService.searchTools("invoice", 10, null)).thenReturn(List.of(hit));
+        mockMvc.perform(get("/api/tools/search").param("q", "invoice"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].tool.name").value("listInvoices"));
     }
 
     @Test
@@ -85,6 +184,69 @@ public class McpServerControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void registerOpenApi_async() throws Exception {
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("URL");
+        request.setSource("http://example.com/openapi.yml");
+
+        RegistrationJob job = new RegistrationJob();
+        job.setId("job-1");
+        when(registrationJobService.submit(any())).thenReturn(job);
+
+        mockMvc.perform(post("/api/register-openapi?async=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    public void registerOpenApi_asyncQueueFull() throws Exception {
+        when(registrationJobService.submit(any())).thenThrow(new RejectedExecutionException("full"));
+
+        mockMvc.perform(post("/api/register-openapi?async=true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"type\":\"URL\",\"source\":\"http://example.com/openapi.yml\"}"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    public void uploadOpenApi_rawBase64Body() throws Exception {
+        when(mcpServerService.registerOpenApiUpload(any(), any())).thenAnswer(invocation -> {
+            SpecSpool spec = invocation.getArgument(0);
+            try (InputStream in = spec.openStream()) {
+                assertEquals("openapi: 3.0.0", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            return List.of();
+        });
+
+        mockMvc.perform(post("/api/register-openapi/upload?base64=true")
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .content("b3BlbmFwaTogMy4wLjA="))
+                .andExpect(status().isOk());
+        verify(mcpServerService).registerOpenApiUpload(any(), any());
+    }
+
+    @Test
+    public void uploadOpenApi_multipart() throws Exception {
+        when(mcpServerService.registerOpenApiUpload(any(), any())).thenReturn(List.of());
+        MockMultipartFile file = new MockMultipartFile("file", "openapi.yml", "application/yaml",
+                "openapi: 3.0.0".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(multipart("/api/register-openapi/upload").file(file))
+                .andExpect(status().isOk());
+        verify(mcpServerService).registerOpenApiUpload(any(), any());
+    }
+
+    @Test
+    public void getRegistrationJob_whenJobDoesNotExist() throws Exception {
+        when(registrationJobService.getJob("unknown")).thenReturn(Optional.empty());
+        mockMvc.perform(get("/api/registration-jobs/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void updateToolDescription() throws Exception {
         McpServerController.UpdateToolDescriptionRequest request = new McpServerController.UpdateToolDescriptionRequest();
@@ -112,4 +274,40 @@ public class McpServerControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    public void getInstances() throws Exception {
+        McpServerService billingService = mock(McpServerService.class);
+        when(billingService.getTools()).thenReturn(List.of(new McpSchema.Tool("getInvoices", "Get invoices", "{}")));
+        McpServerInstance billing = new McpServerInstance("billing", "/billing", null, null, null, billingService);
+        when(mcpServerInstanceManager.getInstances()).thenReturn(List.of(billing));
+        when(mcpServerInstanceManager.getInstance("billing")).thenReturn(Optional.of(billing));
+
+        mockMvc.perform(get("/api/admin/instances"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("billing"))
+                .andExpect(jsonPath("$[0].sseEndpoint").value("/billing/sse"))
+                .andExpect(jsonPath("$[0].toolCount").value(1));
+        mockMvc.perform(get("/api/admin/instances/billing/tools"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("getInvoices"));
+        mockMvc.perform(get("/api/admin/instances/unknown/tools"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getSessions() throws Exception {
+        when(mcpSessionRegistry.getActiveSessions()).thenReturn(1);
+        when(mcpSessionRegistry.getMaxSessions()).thenReturn(10000);
+        when(mcpSessionRegistry.getSessions(100)).thenReturn(List.of(new McpSessionInfo("s-1", McpSessionRegistry.TRANSPORT_SSE,
+                Instant.EPOCH, Instant.EPOCH, 3, 2, 0, 0, 1)));
+
+        mockMvc.perform(get("/api/admin/sessions"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.activeSessions").value(1))
+                .andExpect(jsonPath("$.maxSessions").value(10000))
+                .andExpect(jsonPath("$.sessions[0].id").value("s-1"))
+                .andExpect(jsonPath("$.sessions[0].transport").value("sse"))
+                .andExpect(jsonPath("$.sessions[0].messagesReceived").value(3));
+    }
 }
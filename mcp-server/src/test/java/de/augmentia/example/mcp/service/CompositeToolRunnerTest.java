@@ -0,0 +1,103 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.augmentia.example.mcp.model.CompositeToolDef;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CompositeToolRunnerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final RestApiExecutorService apiExecutor = mock(RestApiExecutorService.class);
+    private final CompositeToolRunner runner = new CompositeToolRunner(apiExecutor,
+            tool -> tool.startsWith("unknown") ? null : "http://api", mapper);
+
+    private static CompositeToolDef.Step step(String id, String tool, Map<String, Object> arguments, String forEach) {
+        CompositeToolDef.Step step = new CompositeToolDef.Step();
+        step.setId(id);
+        step.setTool(tool);
+        step.setArguments(arguments);
+        step.setForEach(forEach);
+        return step;
+    }
+
+    private static String text(McpSchema.CallToolResult result) {
+        return ((McpSchema.TextContent) result.content().get(0)).text();
+    }
+
+    @Test
+    void run_passesResultsToLaterSteps() throws Exception {
+        CompositeToolDef composite = new CompositeToolDef();
+        composite.setName("customerOrders");
+        composite.getSteps().add(step("customer", "getCustomer", Map.of("id", "${input.customerId}"), null));
+        composite.getSteps().add(step("orders", "getOrder", Map.of("orderId", "${item.id}",
+                "note", "for ${customer.name}"), "${customer.orders}"));
+        when(apiExecutor.executeForJson("http://api", "getCustomer", Map.of("id", 7)))
+                .thenReturn(mapper.readTree("{\"name\": \"Ada\", \"orders\": [{\"id\": 1}, {\"id\": 2}]}"));
+        when(apiExecutor.executeForJson(eq("http://api"), eq("getOrder"), anyMap())).thenAnswer(invocation -> {
+            Map<String, Object> arguments = invocation.getArgument(2);
+            return mapper.createObjectNode().put("id", (Integer) arguments.get("orderId")).put("note", (String) arguments.get("note"));
+        });
+
+        McpSchema.CallToolResult result = runner.run(composite, Map.of("customerId", 7));
+
+        assertFalse(result.isError());
+        JsonNode json = mapper.readTree(text(result));
+        assertEquals("Ada", json.get("customer").get("name").asText());
+        assertEquals(2, json.get("orders").size());
+        assertEquals(2, json.get("orders").get(1).get("id").asInt());
+        assertEquals("for Ada", json.get("orders").get(0).get("note").asText());
+    }
+
+    @Test
+    void run_reportsFailedStep() throws Exception {
+        CompositeToolDef composite = new CompositeToolDef();
+        composite.setName("broken");
+        composite.getSteps().add(step("first", "getCustomer", Map.of(), null));
+        composite.getSteps().add(step("second", "unknownTool", Map.of(), null));
+        when(apiExecutor.executeForJson("http://api", "getCustomer", Map.of()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        McpSchema.CallToolResult result = runner.run(composite, Map.of());
+
+        assertTrue(result.isError());
+        assertTrue(text(result).startsWith("Error in step first (getCustomer): 404"));
+        verify(apiExecutor, times(1)).executeForJson(anyString(), anyString(), anyMap());
+    }
+
+    @Test
+    void resolve_keepsTypesOfWholeExpressions() throws Exception {
+        JsonNode context = mapper.readTree("{\"input\": {\"ids\": [1, 2], \"limit\": 5}}");
+
+        assertEquals(List.of(1, 2), runner.resolve("${input.ids}", context));
+        assertEquals(2, runner.resolve("${input.ids[1]}", context));
+        assertEquals("limit=5", runner.resolve("limit=${input.limit}", context));
+        assertNull(runner.resolve("${input.missing}", context));
+        assertEquals(Map.of("max", 5), runner.resolve(Map.of("max", "${input.limit}"), context));
+    }
+
+    @Test
+    void inputSchema_listsParameters() throws Exception {
+        CompositeToolDef composite = new CompositeToolDef();
+        CompositeToolDef.Parameter parameter = new CompositeToolDef.Parameter();
+        parameter.setName("customerId");
+        parameter.setType("integer");
+        parameter.setRequired(true);
+        composite.getParameters().add(parameter);
+
+        JsonNode schema = mapper.readTree(CompositeToolRunner.inputSchema(mapper, composite));
+
+        assertEquals("integer", schema.get("properties").get("customerId").get("type").asText());
+        assertEquals("customerId", schema.get("required").get(0).asText());
+    }
+}
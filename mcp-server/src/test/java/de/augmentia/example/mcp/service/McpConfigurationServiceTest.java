@@ -13,8 +13,11 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 
@@ -47,4 +50,30 @@ public class McpConfigurationServiceTest {
         McpServer mcpServer = mcpConfigurationService.loadMcpServerConfiguration();
         assertNotNull(mcpServer);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadMcpServerConfiguration_withInstances() {
+        ReflectionTestUtils.setField(mcpConfigurationService, "configResourcePath", "mcp-instances-config.yml");
+        when(resourceLoader.getResource(anyString())).thenReturn(new ClassPathResource("mcp-instances-config.yml"));
+
+        McpServer mcpServer = mcpConfigurationService.loadMcpServerConfiguration();
+
+        assertEquals(1, mcpServer.getTools().size());
+        assertNull(mcpServer.getMaxConcurrentCalls());
+        assertEquals(1, mcpServer.getToolProfiles().size());
+        assertEquals("support", mcpServer.getToolProfiles().get(0).getName());
+        assertEquals(List.of("testTool"), mcpServer.getToolProfiles().get(0).getSpecs());
+        assertEquals(List.of("tickets"), mcpServer.getToolProfiles().get(0).getTags());
+        assertEquals(List.of("get*"), mcpServer.getToolProfiles().get(0).getTools());
+        assertEquals(2, mcpServer.getInstances().size());
+        McpServer billing = mcpServer.getInstances().get(0);
+        assertEquals("billing", billing.getName());
+        assertEquals("/billing", billing.getPath());
+        assertEquals(4, billing.getMaxConcurrentCalls());
+        assertEquals(10.0, billing.getRateLimitPerSecond());
+        assertEquals("invoices", billing.getTools().get(0).getName());
+        McpServer hr = mcpServer.getInstances().get(1);
+        assertEquals("/hr", hr.getPath());
+        assertEquals(0, hr.getTools().size());
+    }
+}
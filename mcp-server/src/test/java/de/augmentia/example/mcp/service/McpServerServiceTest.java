@@ -1,10 +1,12 @@
 package de.augmentia.example.mcp.service;
 
 import de.augmentia.example.mcp.controller.McpServerController;
+import de.augmentia.example.mcp.exception.SpecNotFoundException;
 import de.augmentia.example.mcp.exception.ToolNotFoundException;
 import de.augmentia.example.mcp.exception.ToolRegistrationException;
 import de.augmentia.example.mcp.model.OpenApiDef;
 import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.model.PersistedSpec;
 import io.modelcontextprotocol.server.McpServerFeatures;
 import io.modelcontextprotocol.server.McpSyncServer;
 import io.modelcontextprotocol.spec.McpSchema;
@@ -17,6 +19,7 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -25,10 +28,14 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.util.Collections;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -59,8 +66,8 @@ public class McpServerServiceTest {
         mockTool = new McpSchema.Tool("testTool", "Test Description", (McpSchema.JsonSchema) null);
         // Reset internal state of McpServerService for each test
         ReflectionTestUtils.setField(mcpServerService, "tools", new java.util.ArrayList<>());
-        ReflectionTestUtils.setField(mcpServerService, "toolBaseUrls", new java.util.HashMap<>());
-        ReflectionTestUtils.setField(mcpServerService, "hardcodedToolHandlers", new java.util.HashMap<>());
+        ReflectionTestUtils.setField(mcpServerService, "toolBaseUrls", new java.util.concurrent.ConcurrentHashMap<>());
+        ReflectionTestUtils.setField(mcpServerService, "hardcodedToolHandlers", new java.util.concurrent.ConcurrentHashMap<>());
 
         // Create a temporary file for tests that need a config file
         mockConfigFile = File.createTempFile("test-config", ".yml");
@@ -84,8 +91,10 @@ public class McpServerServiceTest {
         when(mockResource.getInputStream()).thenAnswer(invocation -> new ClassPathResource("users-api.yml").getInputStream());
 
         // Mock OpenAPI conversion
-        when(converter.convertOpenApiToMcpTools(any(InputStream.class), any())).thenReturn(Collections.singletonList(mockTool));
-        when(apiExecutor.initialize(any(InputStream.class), any())).thenReturn("http://localhost:8110");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8110", java.util.List.of()));
 
 
         mcpServerService.initTools();
@@ -93,14 +102,16 @@ public class McpServerServiceTest {
         // Verify interactions
         verify(mcpConfigurationService).loadMcpServerConfiguration();
         verify(resourceLoader).getResource("classpath:/tools/users-api.yml");
-        verify(converter, times(1)).convertOpenApiToMcpTools(any(InputStream.class), any());
-        verify(apiExecutor, times(1)).initialize(any(InputStream.class), any());
-        verify(mcpSyncServer, times(1)).removeTool(anyString()); // Once for OpenAPI, once for TimeTool
-        verify(mcpSyncServer, times(1)).addTool(any(McpServerFeatures.SyncToolSpecification.class));
+        verify(converter, times(1)).convert(any(InputStream.class), any());
+        verify(apiExecutor, times(1)).readServers(any(InputStream.class), any());
+        verify(mcpSyncServer, times(3)).removeTool(anyString()); // Once for OpenAPI, search_tools and batch_invoke
+        verify(mcpSyncServer, times(3)).addTool(any(McpServerFeatures.SyncToolSpecification.class));
 
         // Verify tools are loaded
-        assertEquals(1, mcpServerService.getTools().size());
+        assertEquals(3, mcpServerService.getTools().size());
         assertTrue(mcpServerService.getTools().stream().anyMatch(t -> t.name().equals("testTool")));
+        assertTrue(mcpServerService.getTools().stream().anyMatch(t -> t.name().equals(McpServerService.SEARCH_TOOL_NAME)));
+        assertTrue(mcpServerService.getTools().stream().anyMatch(t -> t.name().equals(McpServerService.BATCH_TOOL_NAME)));
     }
 
     @Test
@@ -179,15 +190,17 @@ public class McpServerServiceTest {
         when(resourceLoader.getResource("http://example.com/openapi.yml")).thenReturn(mockResource);
                 when(mockResource.getInputStream()).thenAnswer(invocation -> new ClassPathResource("users-api.yml").getInputStream());
 
-        when(converter.convertOpenApiToMcpTools(any(InputStream.class), any())).thenReturn(Collections.singletonList(mockTool));
-        when(apiExecutor.initialize(any(InputStream.class), any())).thenReturn("http://localhost:8080");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
 
         doNothing().when(mcpServerService).updateMcpServerTools(); // Mock internal method
 
         mcpServerService.registerOpenApi(request);
 
-        verify(converter).convertOpenApiToMcpTools(any(InputStream.class), any());
-        verify(apiExecutor).initialize(any(InputStream.class), any());
+        verify(converter).convert(any(InputStream.class), any());
+        verify(apiExecutor).readServers(any(InputStream.class), any());
         verify(mcpServerService).updateMcpServerTools();
         assertEquals(1, mcpServerService.getTools().size());
         assertTrue(mcpServerService.getTools().stream().anyMatch(t -> t.name().equals("testTool")));
@@ -199,15 +212,17 @@ public class McpServerServiceTest {
         request.setType("BASE64");
         request.setSource("b3BlbmFwaTogMy4wLjA="); // Base64 for "openapi: 3.0.0"
 
-        when(converter.convertOpenApiToMcpTools(any(InputStream.class), any())).thenReturn(Collections.singletonList(mockTool));
-        when(apiExecutor.initialize(any(InputStream.class), any())).thenReturn("http://localhost:8080");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
 
         doNothing().when(mcpServerService).updateMcpServerTools(); // Mock internal method
 
         mcpServerService.registerOpenApi(request);
 
-        verify(converter).convertOpenApiToMcpTools(any(InputStream.class), any());
-        verify(apiExecutor).initialize(any(InputStream.class), any());
+        verify(converter).convert(any(InputStream.class), any());
+        verify(apiExecutor).readServers(any(InputStream.class), any());
         verify(mcpServerService).updateMcpServerTools();
         assertEquals(1, mcpServerService.getTools().size());
         assertTrue(mcpServerService.getTools().stream().anyMatch(t -> t.name().equals("testTool")));
@@ -234,12 +249,362 @@ public class McpServerServiceTest {
         Resource mockResource = mock(Resource.class);
         when(resourceLoader.getResource("http://example.com/openapi.yml")).thenReturn(mockResource);
                 when(mockResource.getInputStream()).thenAnswer(invocation -> new ClassPathResource("users-api.yml").getInputStream());
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
 
         mcpServerService.registerOpenApi(request);
 
         // Verify that the tool was not added again
         assertEquals(1, mcpServerService.getTools().size());
         verify(mcpServerService, never()).updateMcpServerTools(); // Should not update if no new tools added
+        verify(apiExecutor, never()).registerEndpoints(any(), any());
+    }
+
+        @Test
+    void registerOpenApiUpload_registersToolFromSpool() throws IOException, URISyntaxException {
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        try (SpecSpool spec = SpecSpool.spool(new ClassPathResource("users-api.yml").getInputStream(), false, 1024, 1024 * 1024)) {
+            assertEquals(java.util.List.of("testTool"),
+                    mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE));
+        }
+        assertEquals(1, mcpServerService.getTools().size());
+    }
+
+    @Test
+    void deleteTool_releasesSpecStructures() throws IOException, URISyntaxException {
+        McpSchema.Tool otherTool = new McpSchema.Tool("otherTool", "Other Description", (McpSchema.JsonSchema) null);
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("BASE64");
+        request.setSource("b3BlbmFwaTogMy4wLjA=");
+        request.setFriendlyName("users");
+
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(java.util.List.of(mockTool, otherTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        mcpServerService.registerOpenApi(request);
+        assertEquals(1, mcpServerService.getSpecs().size());
+        assertEquals("users", mcpServerService.getSpecs().get(0).getName());
+        assertEquals(2, mcpServerService.getSpecs().get(0).getToolCount());
+
+        mcpServerService.deleteTool("testTool");
+        verify(converter).releaseTool("testTool");
+        assertEquals(1, mcpServerService.getSpecs().get(0).getToolCount());
+        assertFalse(((java.util.Map<?, ?>) ReflectionTestUtils.getField(mcpServerService, "toolBaseUrls")).containsKey("testTool"));
+
+        mcpServerService.deleteTool("otherTool");
+        assertTrue(mcpServerService.getSpecs().isEmpty());
+        // Estimated on adoption and after the first delete; a released spec is not estimated again
+        verify(converter, times(2)).estimateRetainedBytes(any());
+        assertTrue(((java.util.Map<?, ?>) ReflectionTestUtils.getField(mcpServerService, "toolBaseUrls")).isEmpty());
     }
 
-    }
\ No newline at end of file
+    @Test
+    void registerOpenApi_bindsPathsOfAddedToolsOnly() throws IOException, URISyntaxException {
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("BASE64");
+        request.setSource("b3BlbmFwaTogMy4wLjA=");
+        Map.Entry<String, com.fasterxml.jackson.databind.JsonNode> pathItem =
+                Map.entry("/users", com.fasterxml.jackson.databind.node.JsonNodeFactory.instance.objectNode());
+
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of("testTool", pathItem)));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        mcpServerService.registerOpenApi(request);
+        mcpServerService.registerOpenApi(request); // Same tool again, skipped as duplicate
+
+        verify(converter, times(1)).bindPath("testTool", pathItem);
+        verify(apiExecutor, times(1)).registerEndpoints(eq("http://localhost:8080"), any());
+        assertEquals(1, mcpServerService.getSpecs().size());
+    }
+
+    @Test
+    void deleteSpec_removesAllToolsOfSpec() throws IOException, URISyntaxException {
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("BASE64");
+        request.setSource("b3BlbmFwaTogMy4wLjA=");
+
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        mcpServerService.registerOpenApi(request);
+        String specId = mcpServerService.getSpecs().get(0).getId();
+
+        mcpServerService.deleteSpec(specId);
+
+        verify(mcpSyncServer).removeTool("testTool");
+        verify(converter).releaseTool("testTool");
+        verify(apiExecutor).releaseEndpoints("http://localhost:8080");
+        assertTrue(mcpServerService.getTools().isEmpty());
+        assertTrue(mcpServerService.getSpecs().isEmpty());
+        assertThrows(SpecNotFoundException.class, () -> mcpServerService.deleteSpec(specId));
+    }
+
+    @Test
+    void deferSpec_compilesLazySpecOnFirstUse() throws IOException, URISyntaxException {
+        OpenApiDef lazySpec = new OpenApiDef();
+        lazySpec.setName("lazyUsers");
+        lazySpec.setRestApiUrl("classpath:/tools/users-api.yml");
+        lazySpec.setLazy(true);
+
+        Resource mockResource = mock(Resource.class);
+        when(resourceLoader.getResource(anyString())).thenReturn(mockResource);
+        when(mockResource.exists()).thenReturn(true);
+        when(mockResource.getInputStream()).thenAnswer(invocation -> new ClassPathResource("users-api.yml").getInputStream());
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8110", java.util.List.of()));
+
+        mcpServerService.deferSpec(lazySpec);
+        verify(converter, never()).convert(any(InputStream.class), any());
+
+        assertEquals(1, mcpServerService.getTools().size());
+        verify(mcpSyncServer).addTool(any(McpServerFeatures.SyncToolSpecification.class));
+        assertEquals("lazyUsers", mcpServerService.getSpecs().get(0).getName());
+
+        // Compiled only once
+        mcpServerService.getTools();
+        verify(converter, times(1)).convert(any(InputStream.class), any());
+    }
+
+    @Test
+    void syncPersistedSpecs_appliesChangesOfOtherReplicas() throws IOException, URISyntaxException {
+        PersistentToolRegistry registry = mock(PersistentToolRegistry.class);
+        mcpServerService.setPersistentRegistry(registry);
+
+        PersistedSpec persisted = new PersistedSpec();
+        persisted.setId("spec-1");
+        persisted.setName("users");
+        persisted.setBaseUrl("http://localhost:8080");
+        persisted.setVersion(3);
+        when(registry.getVersion()).thenReturn(3L);
+        when(registry.findChangedSince(0)).thenReturn(java.util.List.of(persisted));
+        when(registry.readTools(persisted)).thenReturn(java.util.List.of(mockTool));
+        when(registry.readPathItems(persisted)).thenReturn(java.util.Map.of());
+
+        assertEquals(1, mcpServerService.syncPersistedSpecs());
+        assertEquals(1, mcpServerService.getTools().size());
+        assertTrue(mcpServerService.getSpecs().get(0).isPersistent());
+        verify(mcpSyncServer).addTool(any(McpServerFeatures.SyncToolSpecification.class));
+        verify(apiExecutor, never()).readServers(any(), any());
+
+        // Nothing new: only the version is read
+        assertEquals(0, mcpServerService.syncPersistedSpecs());
+        verify(registry, times(1)).findChangedSince(anyLong());
+
+        PersistedSpec deleted = new PersistedSpec();
+        deleted.setId("spec-1");
+        deleted.setDeleted(true);
+        deleted.setVersion(4);
+        when(registry.getVersion()).thenReturn(4L);
+        when(registry.findChangedSince(3)).thenReturn(java.util.List.of(deleted));
+
+        assertEquals(1, mcpServerService.syncPersistedSpecs());
+        assertTrue(mcpServerService.getTools().isEmpty());
+        verify(mcpSyncServer, times(2)).removeTool("testTool"); // Before it was added, and on deletion
+        verify(registry, never()).markDeleted(anyString());
+    }
+
+    @Test
+    void registerOpenApi_persistsSpecOutsideServiceLock() throws IOException, URISyntaxException {
+        PersistentToolRegistry registry = mock(PersistentToolRegistry.class);
+        mcpServerService.setPersistentRegistry(registry);
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("BASE64");
+        request.setSource("b3BlbmFwaTogMy4wLjA=");
+
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+        java.util.concurrent.atomic.AtomicBoolean lockHeld = new java.util.concurrent.atomic.AtomicBoolean();
+        when(registry.save(any(), any(), any())).thenAnswer(invocation -> {
+            lockHeld.set(Thread.holdsLock(mcpServerService));
+            return 1L;
+        });
+        when(registry.markDeleted(anyString())).thenAnswer(invocation -> {
+            lockHeld.compareAndSet(false, Thread.holdsLock(mcpServerService));
+            return 2L;
+        });
+
+        mcpServerService.registerOpenApi(request);
+        assertTrue(mcpServerService.getSpecs().get(0).isPersistent());
+        mcpServerService.deleteSpec(mcpServerService.getSpecs().get(0).getId());
+
+        verify(registry).save(any(), any(), any());
+        verify(registry).markDeleted(anyString());
+        assertFalse(lockHeld.get());
+    }
+
+    @Test
+    void getTools_materializesStubsOnce() throws IOException, URISyntaxException {
+        McpSchema.Tool materialized = new McpSchema.Tool("testTool", "Test Description", "{\"type\":\"object\"}");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(Collections.singletonList(mockTool), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        when(converter.materializeTool(mockTool)).thenReturn(materialized);
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        try (SpecSpool spec = SpecSpool.spool(new ClassPathResource("users-api.yml").getInputStream(), false, 1024, 1024 * 1024)) {
+            mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE);
+        }
+        verify(converter, never()).materializeTool(any());
+
+        assertEquals(java.util.List.of(materialized), mcpServerService.getTools());
+        assertEquals(java.util.List.of(materialized), mcpServerService.listTools(null).tools());
+        verify(converter, times(1)).materializeTool(mockTool);
+    }
+
+    @Test
+    void getToolPage_walksCatalogInNameOrder() {
+        java.util.List<McpSchema.Tool> catalog = new java.util.ArrayList<>();
+        for (String name : java.util.List.of("delta", "alpha", "charlie", "bravo", "echo")) {
+            catalog.add(new McpSchema.Tool(name, name, "{\"type\":\"object\"}"));
+        }
+        ReflectionTestUtils.setField(mcpServerService, "tools", catalog);
+
+        de.augmentia.example.mcp.model.ToolPage first = mcpServerService.getToolPage(null, 2);
+        assertEquals(java.util.List.of("alpha", "bravo"), first.getTools().stream().map(McpSchema.Tool::name).toList());
+        assertNotNull(first.getNextCursor());
+
+        catalog.remove(1); // "alpha" is removed between two pages
+        de.augmentia.example.mcp.model.ToolPage second = mcpServerService.getToolPage(first.getNextCursor(), 2);
+        assertEquals(java.util.List.of("charlie", "delta"), second.getTools().stream().map(McpSchema.Tool::name).toList());
+
+        McpSchema.ListToolsResult last = mcpServerService.listTools(second.getNextCursor());
+        assertEquals(java.util.List.of("echo"), last.tools().stream().map(McpSchema.Tool::name).toList());
+        assertNull(last.nextCursor());
+
+        assertThrows(IllegalArgumentException.class, () -> mcpServerService.getToolPage("not a cursor", 2));
+    }
+
+    @Test
+    void getCatalogResponse_isSerializedOncePerCatalogVersion() {
+        java.util.List<McpSchema.Tool> catalog = new java.util.ArrayList<>();
+        catalog.add(new McpSchema.Tool("alpha", "alpha", "{\"type\":\"object\"}"));
+        ReflectionTestUtils.setField(mcpServerService, "tools", catalog);
+
+        CatalogResponseCache.Response first = mcpServerService.getCatalogResponse(false, null, null, null);
+        assertSame(first, mcpServerService.getCatalogResponse(false, null, null, null));
+        verify(mcpServerService, times(1)).getTools();
+        assertTrue(new String(first.json(), java.nio.charset.StandardCharsets.UTF_8).contains("\"alpha\""));
+
+        mcpServerService.deleteTool("alpha");
+        CatalogResponseCache.Response second = mcpServerService.getCatalogResponse(false, null, null, null);
+        assertNotEquals(first.etag(), second.etag());
+        assertEquals("[]", new String(second.json(), java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void searchTools_ranksIndexedTools() throws IOException, URISyntaxException {
+        McpSchema.Tool invoices = new McpSchema.Tool("listInvoices", "Lists the invoices of a customer", "{\"type\":\"object\"}");
+        McpSchema.Tool users = new McpSchema.Tool("getUserById", "Returns a single user", "{\"type\":\"object\"}");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(java.util.List.of(invoices, users), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        when(converter.getSearchTerms(anyString())).thenReturn(java.util.List.of());
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        try (SpecSpool spec = SpecSpool.spool(new ClassPathResource("users-api.yml").getInputStream(), false, 1024, 1024 * 1024)) {
+            mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE);
+        }
+
+        java.util.List<de.augmentia.example.mcp.model.ToolSearchHit> hits = mcpServerService.searchTools("customer invoice", 5);
+        assertEquals(1, hits.size());
+        assertEquals("listInvoices", hits.get(0).getTool().name());
+
+        mcpServerService.deleteTool("listInvoices");
+        assertTrue(mcpServerService.searchTools("customer invoice", 5).isEmpty());
+        assertEquals("getUserById", mcpServerService.searchTools("user", 5).get(0).getTool().name());
+    }
+
+    @Test
+    void toolProfile_limitsListedAndCalledTools() throws IOException, URISyntaxException {
+        de.augmentia.example.mcp.model.ToolProfile profile = new de.augmentia.example.mcp.model.ToolProfile();
+        profile.setName("readers");
+        profile.setTools(java.util.List.of("get*"));
+        profile.setTags(java.util.List.of("billing"));
+        McpServer config = new McpServer();
+        config.getToolProfiles().add(profile);
+        ReflectionTestUtils.setField(mcpServerService, "mcpServerConfig", config);
+
+        McpSchema.Tool getUser = new McpSchema.Tool("getUserById", "Returns a user", "{\"type\":\"object\"}");
+        McpSchema.Tool deleteUser = new McpSchema.Tool("deleteUser", "Deletes a user", "{\"type\":\"object\"}");
+        McpSchema.Tool listInvoices = new McpSchema.Tool("listInvoices", "Lists invoices", "{\"type\":\"object\"}");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(java.util.List.of(getUser, deleteUser, listInvoices), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        when(converter.getTags(anyString())).thenReturn(java.util.List.of());
+        when(converter.getTags("listInvoices")).thenReturn(java.util.List.of("billing"));
+        doNothing().when(mcpServerService).updateMcpServerTools();
+
+        try (SpecSpool spec = SpecSpool.spool(new ClassPathResource("users-api.yml").getInputStream(), false, 1024, 1024 * 1024)) {
+            mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE);
+        }
+
+        assertEquals(java.util.Set.of("getUserById", "listInvoices"), mcpServerService.profileToolNames("readers"));
+        assertEquals(java.util.List.of("getUserById", "listInvoices"),
+                mcpServerService.listTools(null, "readers").tools().stream().map(McpSchema.Tool::name).toList());
+        assertEquals(3, mcpServerService.listTools(null).tools().size());
+        assertThrows(IllegalArgumentException.class, () -> mcpServerService.getTools("unknown"));
+
+        mcpServerService.deleteTool("getUserById");
+        assertEquals(java.util.Set.of("listInvoices"), mcpServerService.profileToolNames("readers"));
+    }
+
+    @Test
+    void callBatchTool_returnsResultOrErrorOfEachCall() throws IOException, URISyntaxException {
+        McpSchema.Tool getUser = new McpSchema.Tool("getUserById", "Returns a user", "{\"type\":\"object\"}");
+        when(converter.convert(any(InputStream.class), any()))
+                .thenReturn(new OpenApiToMcpConverter.Conversion(java.util.List.of(getUser), Map.of()));
+        when(apiExecutor.readServers(any(InputStream.class), any()))
+                .thenReturn(new RestApiExecutorService.Servers("http://localhost:8080", java.util.List.of()));
+        when(apiExecutor.executeToolCallAsync(eq("http://localhost:8080"), eq("getUserById"), any(), isNull())).thenAnswer(invocation -> {
+            java.util.Map<String, Object> arguments = invocation.getArgument(2);
+            return Mono.just("0".equals(arguments.get("id"))
+                    ? new McpSchema.CallToolResult("Error executing API call: 404", true)
+                    : new McpSchema.CallToolResult("{\"id\": " + arguments.get("id") + "}", false));
+        });
+        doNothing().when(mcpServerService).updateMcpServerTools();
+        try (SpecSpool spec = SpecSpool.spool(new ClassPathResource("users-api.yml").getInputStream(), false, 1024, 1024 * 1024)) {
+            mcpServerService.registerOpenApiUpload(spec, McpServerService.RegistrationProgress.NONE);
+        }
+
+        McpSchema.CallToolResult result = mcpServerService.callBatchTool(java.util.Map.of("calls", java.util.List.of(
+                java.util.Map.of("tool", "getUserById", "arguments", java.util.Map.of("id", "1")),
+                java.util.Map.of("tool", "getUserById", "arguments", java.util.Map.of("id", "0")),
+                java.util.Map.of("tool", "unknownTool"),
+                java.util.Map.of("tool", "getUserById", "arguments", java.util.Map.of("id", "3")))), null);
+
+        assertFalse(result.isError());
+        com.fasterxml.jackson.databind.JsonNode batch = new com.fasterxml.jackson.databind.ObjectMapper()
+                .readTree(((McpSchema.TextContent) result.content().get(0)).text());
+        assertEquals(2, batch.get("succeeded").asInt());
+        assertEquals(2, batch.get("failed").asInt());
+        assertEquals(1, batch.get("results").get(0).get("result").get("id").asInt());
+        assertEquals("Error executing API call: 404", batch.get("results").get(1).get("error").asText());
+        assertEquals("Unknown tool: unknownTool", batch.get("results").get(2).get("error").asText());
+        assertEquals(3, batch.get("results").get(3).get("result").get("id").asInt());
+        assertTrue(mcpServerService.callBatchTool(java.util.Map.of("calls", java.util.List.of()), null).isError());
+    }
+}
@@ -7,7 +7,10 @@ import org.springframework.core.io.ClassPathResource;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class  OpenApiToMcpConverterTest {
 
@@ -17,4 +20,38 @@ public class  OpenApiToMcpConverterTest {
         List<McpSchema.Tool> result = openApiToMcpConverter.convertOpenApiToMcpTools(new ClassPathResource("users-api.yml").getInputStream(), null);
         assertNotNull(result);
     }
+
+    @Test
+    void testReleaseTool() throws java.io.IOException {
+        OpenApiToMcpConverter openApiToMcpConverter = new OpenApiToMcpConverter();
+        List<McpSchema.Tool> result = openApiToMcpConverter.convertOpenApiToMcpTools(new ClassPathResource("users-api.yml").getInputStream(), null);
+        List<String> names = result.stream().map(McpSchema.Tool::name).toList();
+        assertTrue(openApiToMcpConverter.estimateRetainedBytes(names) > 0);
+
+        names.forEach(openApiToMcpConverter::releaseTool);
+        assertTrue(openApiToMcpConverter.getPathMap().isEmpty());
+        assertEquals(0, openApiToMcpConverter.estimateRetainedBytes(names));
+    }
+
+    @Test
+    void testLazyMaterialization() throws java.io.IOException {
+        OpenApiToMcpConverter eager = new OpenApiToMcpConverter();
+        List<McpSchema.Tool> expected = eager.convertOpenApiToMcpTools(new ClassPathResource("users-api.yml").getInputStream(), null);
+
+        OpenApiToMcpConverter lazy = new OpenApiToMcpConverter();
+        lazy.setLazyMaterialization(true);
+        List<McpSchema.Tool> stubs = lazy.convertOpenApiToMcpTools(new ClassPathResource("users-api.yml").getInputStream(), null);
+
+        assertEquals(expected.size(), stubs.size());
+        for (int i = 0; i < stubs.size(); i++) {
+            assertNull(stubs.get(i).inputSchema());
+            assertEquals(expected.get(i).description(), stubs.get(i).description());
+            assertEquals(expected.get(i), lazy.materializeTool(stubs.get(i)));
+        }
+
+        OpenApiToMcpConverter.DispatchPlan plan = lazy.getDispatchPlan(stubs.get(0).name());
+        assertNotNull(plan);
+        assertTrue(plan.path().startsWith("/"));
+        assertNull(lazy.materializeTool(new McpSchema.Tool("unknown", "Unknown", (McpSchema.JsonSchema) null)));
+    }
 }
@@ -0,0 +1,121 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaginationTest {
+
+    private static final String LIST_USERS = """
+            {"parameters": [
+              {"name": "page", "in": "query", "schema": {"type": "integer", "default": 0}},
+              {"name": "size", "in": "query", "schema": {"type": "integer", "default": 3, "maximum": 100}},
+              {"name": "sort", "in": "query", "schema": {"type": "string"}}]}
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Pagination.Budget budget = new Pagination.Budget(1000, 1048576, 50, 4);
+
+    /**
+     * Serves 8 users in Spring Data pages of the requested size and records the requested pages.
+     */
+    private Pagination.PageFetcher users(List<Object> requestedPages, boolean withTotals) {
+        return arguments -> {
+            requestedPages.add(arguments.get("page"));
+            int page = (Integer) arguments.get("page");
+            int size = (Integer) arguments.get("size");
+            ObjectNode body = mapper.createObjectNode();
+            ArrayNode content = body.putArray("content");
+            for (int id = page * size; id < Math.min(8, (page + 1) * size); id++) {
+                content.addObject().put("id", id);
+            }
+            if (withTotals) {
+                body.put("totalElements", 8);
+            }
+            return new Pagination.Page(body, body.toString(), body.toString().length());
+        };
+    }
+
+    @Test
+    void fromOperation_detectsPageParameters() throws IOException {
+        assertNotNull(Pagination.fromOperation("GET", mapper.readTree(LIST_USERS)));
+        assertNull(Pagination.fromOperation("POST", mapper.readTree(LIST_USERS)));
+        assertNull(Pagination.fromOperation("GET", mapper.readTree("{\"parameters\": [{\"name\": \"page\", \"in\": \"query\"}]}")));
+        assertNull(Pagination.fromOperation("GET", mapper.readTree(LIST_USERS.replaceFirst("\\{", "{\"x-mcp-pagination\": false,"))));
+        assertNotNull(Pagination.fromOperation("GET", mapper.readTree(
+                "{\"parameters\": [{\"name\": \"offset\", \"in\": \"query\"}, {\"name\": \"limit\", \"in\": \"query\"}]}")));
+    }
+
+    @Test
+    void fromOperation_onlyConfiguresOperationsWithExtension() throws IOException {
+        assertFalse(Pagination.fromOperation("GET", mapper.readTree(LIST_USERS)).isConfigured());
+        assertTrue(Pagination.fromOperation("GET", mapper.readTree(
+                LIST_USERS.replaceFirst("\\{", "{\"x-mcp-pagination\": true,"))).isConfigured());
+        assertTrue(Pagination.fromOperation("GET", mapper.readTree(
+                LIST_USERS.replaceFirst("\\{", "{\"x-mcp-pagination\": {\"page_size\": 2},"))).isConfigured());
+    }
+
+    @Test
+    void appliesTo_returnsSinglePageForExplicitLimit() throws IOException {
+        Pagination pagination = Pagination.fromOperation("GET", mapper.readTree(
+                "{\"parameters\": [{\"name\": \"offset\", \"in\": \"query\"}, {\"name\": \"limit\", \"in\": \"query\"}]}"));
+
+        assertTrue(pagination.appliesTo(Map.of()));
+        assertFalse(pagination.appliesTo(Map.of("limit", 5)));
+        assertFalse(pagination.appliesTo(Map.of("offset", 10)));
+    }
+
+    @Test
+    void fetchAll_mergesPagesInOrder() throws Exception {
+        Pagination pagination = Pagination.fromOperation("GET", mapper.readTree(LIST_USERS));
+        List<Object> requestedPages = Collections.synchronizedList(new java.util.ArrayList<>());
+
+        Pagination.Result result = pagination.fetchAll(mapper, Map.of("sort", "id"), budget, users(requestedPages, true));
+
+        JsonNode content = result.merged().get("content");
+        assertEquals(8, content.size());
+        for (int i = 0; i < 8; i++) {
+            assertEquals(i, content.get(i).get("id").asInt());
+        }
+        assertEquals("(Merged 3 pages with 8 records.)", result.note());
+        assertEquals(3, requestedPages.size()); // The total stops the fetching after the last page
+        assertTrue(pagination.appliesTo(Map.of()));
+        assertFalse(pagination.appliesTo(Map.of("page", 2)));
+    }
+
+    @Test
+    void fetchAll_stopsAtShortPageOrBudget() throws Exception {
+        Pagination pagination = Pagination.fromOperation("GET", mapper.readTree(LIST_USERS));
+        List<Object> requestedPages = Collections.synchronizedList(new java.util.ArrayList<>());
+
+        Pagination.Result all = pagination.fetchAll(mapper, new HashMap<>(), budget, users(requestedPages, false));
+        assertEquals(8, all.merged().get("content").size());
+
+        Pagination.Result limited = pagination.fetchAll(mapper, Map.of(), new Pagination.Budget(5, 1048576, 50, 4),
+                users(new java.util.ArrayList<>(), false));
+        assertEquals(3, limited.merged().get("content").size());
+        assertEquals("(Merged 1 page with 3 records. More records may be available: call the tool with page=1 to continue.)",
+                limited.note());
+    }
+
+    @Test
+    void fetchAll_returnsFirstPageWithoutRecords() throws Exception {
+        Pagination pagination = Pagination.fromOperation("GET", mapper.readTree(LIST_USERS));
+
+        Pagination.Result result = pagination.fetchAll(mapper, Map.of(), budget,
+                arguments -> new Pagination.Page(null, "plain text", 10));
+
+        assertNull(result.merged());
+        assertEquals("plain text", result.firstPage().text());
+    }
+}
@@ -0,0 +1,98 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.model.PersistedSpec;
+import de.augmentia.example.mcp.model.RegistryState;
+import de.augmentia.example.mcp.model.SpecRecord;
+import de.augmentia.example.mcp.repository.PersistedSpecRepository;
+import de.augmentia.example.mcp.repository.RegistryStateRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DataJpaTest(properties = "mcp.registry.enabled=true")
+@Import(PersistentToolRegistry.class)
+public class PersistentToolRegistryTest {
+
+    @Autowired
+    private PersistentToolRegistry registry;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    @Test
+    void save_storesCompiledToolsAndIncrementsVersion() throws Exception {
+        assertEquals(0, registry.getVersion());
+
+        JsonNode pathItem = jsonMapper.readTree("{\"get\":{\"operationId\":\"getAllUsers\"}}");
+        McpSchema.Tool tool = new McpSchema.Tool("getAllUsers", "Get all users", "{\"type\":\"object\",\"properties\":{}}");
+        long version = registry.save(spec("spec-1"), List.of(tool),
+                Map.of("getAllUsers", new AbstractMap.SimpleImmutableEntry<>("/users", pathItem)));
+
+        assertEquals(1, version);
+        assertEquals(1, registry.getVersion());
+        List<PersistedSpec> all = registry.findAll();
+        assertEquals(1, all.size());
+        assertEquals("https://api.example.com", all.get(0).getBaseUrl());
+
+        List<McpSchema.Tool> tools = registry.readTools(all.get(0));
+        assertEquals(List.of(tool), tools);
+        Map<String, Map.Entry<String, JsonNode>> pathItems = registry.readPathItems(all.get(0));
+        assertEquals("/users", pathItems.get("getAllUsers").getKey());
+        assertEquals(pathItem, pathItems.get("getAllUsers").getValue());
+    }
+
+    @Test
+    void findChangedSince_returnsOnlyNewerChangesIncludingDeletions() {
+        registry.save(spec("spec-1"), List.of(), Map.of());
+        long afterFirst = registry.save(spec("spec-2"), List.of(), Map.of());
+        long deleted = registry.markDeleted("spec-1");
+
+        assertTrue(deleted > afterFirst);
+        List<PersistedSpec> changes = registry.findChangedSince(afterFirst);
+        assertEquals(1, changes.size());
+        assertEquals("spec-1", changes.get(0).getId());
+        assertTrue(changes.get(0).isDeleted());
+        assertEquals(List.of("spec-2"), registry.findAll().stream().map(PersistedSpec::getId).toList());
+    }
+
+    @Test
+    void save_usesStateRowCreatedConcurrentlyByAnotherReplica() {
+        PersistedSpecRepository specRepository = mock(PersistedSpecRepository.class);
+        RegistryStateRepository stateRepository = mock(RegistryStateRepository.class);
+        PersistentToolRegistry concurrentRegistry = new PersistentToolRegistry(specRepository, stateRepository,
+                mock(PlatformTransactionManager.class));
+        RegistryState state = new RegistryState();
+        state.setVersion(2);
+
+        when(specRepository.findById("spec-1")).thenReturn(Optional.empty());
+        when(stateRepository.incrementVersion(RegistryState.ID)).thenReturn(0, 1);
+        when(stateRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(stateRepository.findById(RegistryState.ID)).thenReturn(Optional.of(state));
+
+        assertEquals(2, concurrentRegistry.save(spec("spec-1"), List.of(), Map.of()));
+        verify(stateRepository, times(2)).incrementVersion(RegistryState.ID);
+    }
+
+    private SpecRecord spec(String id) {
+        SpecRecord spec = new SpecRecord();
+        spec.setId(id);
+        spec.setName("users");
+        spec.setSource("https://api.example.com/openapi.yml");
+        spec.setBaseUrl("https://api.example.com");
+        return spec;
+    }
+}
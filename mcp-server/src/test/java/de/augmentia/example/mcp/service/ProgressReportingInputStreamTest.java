@@ -0,0 +1,91 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgressReportingInputStreamTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final List<String> records = new ArrayList<>();
+    private final List<Long> progress = new ArrayList<>();
+
+    private final ToolProgressListener listener = (bytes, total, partialContent) -> {
+        progress.add(bytes);
+        if (partialContent != null) {
+            records.addAll(List.of(partialContent.split("\n")));
+        }
+    };
+
+    /**
+     * Reads the body through the stream in small chunks, so records span several reads.
+     */
+    private String read(byte[] body, MediaType contentType) throws Exception {
+        ProgressReportingInputStream stream = new ProgressReportingInputStream(new ByteArrayInputStream(body), jsonMapper,
+                contentType, (long) body.length, listener);
+        byte[] copy = readInChunks(stream);
+        stream.finish();
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readInChunks(InputStream stream) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[3];
+        int count;
+        while ((count = stream.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void read_forwardsNdjsonLines() throws Exception {
+        String body = "{\"id\":1}\n{\"id\":2}\n\n{\"id\":3}";
+
+        String result = read(body.getBytes(StandardCharsets.UTF_8), MediaType.parseMediaType("application/x-ndjson"));
+
+        assertEquals(body, result);
+        assertEquals(List.of("{\"id\":1}", "{\"id\":2}", "{\"id\":3}"), records);
+        assertEquals((long) body.length(), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    void read_forwardsArrayElements() throws Exception {
+        String body = "[{\"id\":1,\"tags\":[\"a\",\"b\"]}, 2, \"three\"]";
+
+        String result = read(body.getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON);
+
+        assertEquals(body, result);
+        assertEquals(List.of("{\"id\":1,\"tags\":[\"a\",\"b\"]}", "2", "\"three\""), records);
+    }
+
+    @Test
+    void read_onlyCountsBytesIfNotJson() throws Exception {
+        String result = read("<html>oops</html>".getBytes(StandardCharsets.UTF_8), MediaType.APPLICATION_JSON);
+
+        assertEquals("<html>oops</html>", result);
+        assertTrue(records.isEmpty());
+        assertEquals(17L, progress.get(progress.size() - 1));
+    }
+
+    @Test
+    void read_passesBinaryBodiesThroughUnchanged() throws Exception {
+        byte[] body = {(byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xff, '\n', '['};
+        ProgressReportingInputStream stream = new ProgressReportingInputStream(new ByteArrayInputStream(body), jsonMapper,
+                MediaType.IMAGE_PNG, null, listener);
+
+        assertArrayEquals(body, readInChunks(stream));
+        stream.close();
+        assertTrue(records.isEmpty());
+        assertEquals(List.of((long) body.length), progress);
+    }
+}
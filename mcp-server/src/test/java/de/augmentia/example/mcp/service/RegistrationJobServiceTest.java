@@ -0,0 +1,150 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.controller.McpServerController;
+import de.augmentia.example.mcp.exception.ToolRegistrationException;
+import de.augmentia.example.mcp.model.RegistrationJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RegistrationJobServiceTest {
+
+    @Mock
+    private McpServerService mcpServerService;
+
+    private RegistrationJobService registrationJobService;
+
+    @BeforeEach
+    void setUp() {
+        McpServerProperties properties = new McpServerProperties();
+        properties.getRegistration().setMaxConcurrentJobs(1);
+        properties.getRegistration().setQueueCapacity(1);
+        registrationJobService = new RegistrationJobService(mcpServerService, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registrationJobService.shutdown();
+    }
+
+    @Test
+    void submit_runsRegistrationInBackground() throws InterruptedException {
+        when(mcpServerService.registerOpenApi(any(), any())).thenAnswer(invocation -> {
+            McpServerService.RegistrationProgress progress = invocation.getArgument(1);
+            progress.update(50, "Converting operations to tools");
+            return List.of("getAllUsers");
+        });
+
+        RegistrationJob job = registrationJobService.submit(urlRequest());
+        awaitFinished(job);
+
+        assertEquals(RegistrationJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(List.of("getAllUsers"), job.getRegisteredTools());
+        assertTrue(registrationJobService.getJob(job.getId()).isPresent());
+    }
+
+    @Test
+    void submit_marksJobFailed() throws InterruptedException {
+        when(mcpServerService.registerOpenApi(any(), any())).thenThrow(new ToolRegistrationException("broken spec"));
+
+        RegistrationJob job = registrationJobService.submit(urlRequest());
+        awaitFinished(job);
+
+        assertEquals(RegistrationJob.Status.FAILED, job.getStatus());
+        assertEquals("broken spec", job.getMessage());
+    }
+
+    @Test
+    void cancel_stopsRunningJobBeforeRegistration() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mcpServerService.registerOpenApi(any(), any())).thenAnswer(invocation -> {
+            McpServerService.RegistrationProgress progress = invocation.getArgument(1);
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            progress.update(90, "Registering tools");
+            return List.of("getAllUsers");
+        });
+
+        RegistrationJob job = registrationJobService.submit(urlRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        registrationJobService.cancel(job.getId());
+        release.countDown();
+        awaitFinished(job);
+
+        assertEquals(RegistrationJob.Status.CANCELLED, job.getStatus());
+        assertTrue(job.getRegisteredTools().isEmpty());
+    }
+
+    @Test
+    void cancel_finishesQueuedJobWithoutRunningIt() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mcpServerService.registerOpenApi(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of("getAllUsers");
+        });
+
+        RegistrationJob running = registrationJobService.submit(urlRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        RegistrationJob queued = registrationJobService.submit(urlRequest());
+        registrationJobService.cancel(queued.getId());
+        assertEquals(RegistrationJob.Status.CANCELLED, queued.getStatus());
+        assertNotNull(queued.getFinishedAt());
+
+        release.countDown();
+        awaitFinished(running);
+        Thread.sleep(50);
+
+        // A job cancelled while queued is never started afterwards
+        assertEquals(RegistrationJob.Status.CANCELLED, queued.getStatus());
+        verify(mcpServerService, times(1)).registerOpenApi(any(), any());
+    }
+
+    @Test
+    void submit_rejectsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mcpServerService.registerOpenApi(any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        registrationJobService.submit(urlRequest()); // running
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        registrationJobService.submit(urlRequest()); // queued
+        assertThrows(RejectedExecutionException.class, () -> registrationJobService.submit(urlRequest()));
+        release.countDown();
+    }
+
+    private McpServerController.OpenApiRegistrationRequest urlRequest() {
+        McpServerController.OpenApiRegistrationRequest request = new McpServerController.OpenApiRegistrationRequest();
+        request.setType("URL");
+        request.setSource("http://example.com/openapi.yml");
+        return request;
+    }
+
+    private void awaitFinished(RegistrationJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Job did not finish in time");
+    }
+}
@@ -0,0 +1,76 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseShapeTest {
+
+    private static final String ORDERS = """
+            {"total": 3, "next": "abc",
+             "items": [
+               {"id": 1, "sku": "A-1", "note": "first order", "customer": {"id": 7, "name": "Ada", "address": "Main St"}},
+               {"id": 2, "sku": "B-2", "note": "second order", "customer": {"id": 8, "name": "Bob", "address": "High St"}},
+               {"id": 3, "sku": "C-3", "note": "third order", "customer": {"id": 9, "name": "Cy", "address": "Low St"}}
+             ]}
+            """;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private String apply(ResponseShape shape, String json) throws IOException {
+        return shape.apply(mapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void apply_keepsSelectedFields() throws IOException {
+        ResponseShape shape = ResponseShape.compile(List.of("$.total", "$.items[*].id", "$.items.customer['name']"), null, null);
+
+        JsonNode result = mapper.readTree(apply(shape, ORDERS));
+
+        assertEquals(3, result.get("total").asInt());
+        assertFalse(result.has("next"));
+        assertEquals(3, result.get("items").size());
+        JsonNode first = result.get("items").get(0);
+        assertEquals(1, first.get("id").asInt());
+        assertFalse(first.has("sku"));
+        assertEquals("Ada", first.get("customer").get("name").asText());
+        assertFalse(first.get("customer").has("address"));
+    }
+
+    @Test
+    void apply_limitsArraysAndStrings() throws IOException {
+        ResponseShape shape = ResponseShape.compile(List.of("$.items.*"), 2, 5);
+
+        String result = apply(shape, ORDERS);
+
+        assertTrue(result.endsWith("(Shortened by the response rules of the tool: 1 array elements dropped, 4 strings cut)"));
+        JsonNode items = mapper.readTree(result.substring(0, result.indexOf("\n(Shortened"))).get("items");
+        assertEquals(2, items.size());
+        assertEquals("first…", items.get(0).get("note").asText());
+        assertEquals("A-1", items.get(0).get("sku").asText());
+    }
+
+    @Test
+    void fromOperation_readsExtension() throws IOException {
+        JsonNode operation = mapper.readTree("{\"x-mcp-response\": {\"fields\": [\"$[*].id\"], \"max_items\": 1}}");
+
+        String result = apply(ResponseShape.fromOperation(operation), "[{\"id\": 1, \"name\": \"a\"}, {\"id\": 2}]");
+
+        assertEquals(1, mapper.readTree(result.substring(0, result.indexOf("\n("))).get(0).size());
+        assertNull(ResponseShape.fromOperation(mapper.readTree("{}")));
+    }
+
+    @Test
+    void compile_rejectsUnsupportedPaths() {
+        assertThrows(IllegalArgumentException.class, () -> ResponseShape.compile(List.of("$..id"), null, null));
+        assertThrows(IllegalArgumentException.class, () -> ResponseShape.compile(List.of("items.id"), null, null));
+        assertThrows(IllegalArgumentException.class, () -> ResponseShape.compile(List.of("$.items[0]"), null, null));
+    }
+}
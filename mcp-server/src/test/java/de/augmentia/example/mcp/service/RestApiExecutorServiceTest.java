@@ -1,19 +1,37 @@
 package de.augmentia.example.mcp.service;
 
+import de.augmentia.example.mcp.config.McpServerProperties;
 import de.augmentia.example.mcp.config.SecurityProperties;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import io.modelcontextprotocol.spec.McpSchema;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
+import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.headerDoesNotExist;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 public class RestApiExecutorServiceTest {
 
@@ -26,7 +44,7 @@ public class RestApiExecutorServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(securityProperties.getAllowedDomains()).thenReturn(Collections.singletonList("api.yourdomain.com"));
+        when(securityProperties.getAllowedDomains()).thenReturn(List.of("api.yourdomain.com", "api", "files"));
     }
 
     @Test
@@ -51,4 +69,206 @@ public class RestApiExecutorServiceTest {
             // ignore
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void executeToolCall_returnsImagesAndBinaryContent() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/files/{name}", "GET", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        server.expect(requestTo("http://api/files/logo")).andRespond(withSuccess(png, MediaType.IMAGE_PNG));
+        server.expect(requestTo("http://api/files/report")).andRespond(withSuccess(png, MediaType.APPLICATION_PDF));
+        server.expect(requestTo("http://api/files/data")).andRespond(withSuccess("{\"a\":1}", MediaType.APPLICATION_JSON));
+
+        McpSchema.ImageContent image = (McpSchema.ImageContent) executor.executeToolCall("http://api", "getFile",
+                Map.of("name", "logo"), null).content().get(0);
+        McpSchema.EmbeddedResource pdf = (McpSchema.EmbeddedResource) executor.executeToolCall("http://api", "getFile",
+                Map.of("name", "report"), null).content().get(0);
+        McpSchema.TextContent json = (McpSchema.TextContent) executor.executeToolCall("http://api", "getFile",
+                Map.of("name", "data"), null).content().get(0);
+
+        assertEquals("image/png", image.mimeType());
+        assertArrayEquals(png, Base64.getDecoder().decode(image.data()));
+        McpSchema.BlobResourceContents blob = (McpSchema.BlobResourceContents) pdf.resource();
+        assertEquals("application/pdf", blob.mimeType());
+        assertEquals("http://api/files/report", blob.uri());
+        assertEquals("{\n  \"a\" : 1\n}", json.text());
+        server.verify();
+    }
+
+    @Test
+    void executeToolCall_shapesResponseWhileReportingProgress() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        ResponseShape shape = ResponseShape.compile(List.of("$.id"), null, null);
+        when(converter.getDispatchPlan(any()))
+                .thenReturn(new OpenApiToMcpConverter.DispatchPlan("/users", "GET", null, shape, null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        String body = "[{\"id\": 1, \"name\": \"a\"}, {\"id\": 2, \"name\": \"b\"}]";
+        server.expect(requestTo("http://api/users")).andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+        List<String> records = new ArrayList<>();
+        List<Long> progress = new ArrayList<>();
+
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api", "listUsers", Map.of(),
+                (value, total, partialContent) -> {
+                    progress.add(value);
+                    if (partialContent != null) {
+                        records.addAll(List.of(partialContent.split("\n")));
+                    }
+                });
+
+        String text = ((McpSchema.TextContent) result.content().get(0)).text();
+        assertTrue(text.contains("\"id\""));
+        assertFalse(text.contains("\"name\""));
+        assertEquals(List.of("{\"id\":1,\"name\":\"a\"}", "{\"id\":2,\"name\":\"b\"}"), records);
+        assertEquals((long) body.length(), progress.get(progress.size() - 1));
+        server.verify();
+    }
+
+    @Test
+    void executeToolCallAsync_pollsAcceptedJobUntilItHasFinished() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/reports", "POST", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        McpServerProperties properties = new McpServerProperties();
+        properties.getAsyncJobs().setInitialDelayMillis(1);
+        executor.setMcpServerProperties(properties);
+        server.expect(requestTo("http://api/reports"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED).location(URI.create("/jobs/7")));
+        server.expect(requestTo("http://api/jobs/7"))
+                .andRespond(withSuccess("{\"status\": \"running\", \"progress\": 40}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://api/jobs/7"))
+                .andRespond(withSuccess("{\"status\": \"succeeded\", \"resultUrl\": \"/jobs/7/result\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://api/jobs/7/result"))
+                .andRespond(withSuccess("{\"rows\": 3}", MediaType.APPLICATION_JSON));
+        List<Long> progress = new ArrayList<>();
+
+        McpSchema.CallToolResult result = executor.executeToolCallAsync("http://api", "createReport", Map.of(),
+                (value, total, partialContent) -> progress.add(value)).block(Duration.ofSeconds(10));
+
+        assertFalse(result.isError());
+        assertEquals("{\n  \"rows\" : 3\n}", ((McpSchema.TextContent) result.content().get(0)).text());
+        assertEquals(List.of(40L), progress);
+        server.verify();
+    }
+
+    @Test
+    void executeToolCall_stopsWaitingForJobAfterBlockingTimeout() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/reports", "POST", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        McpServerProperties properties = new McpServerProperties();
+        properties.getAsyncJobs().setInitialDelayMillis(60000);
+        properties.getAsyncJobs().setBlockingTimeoutSeconds(1);
+        executor.setMcpServerProperties(properties);
+        server.expect(requestTo("http://api/reports"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED).location(URI.create("/jobs/7")));
+
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api", "createReport", Map.of(), null);
+
+        assertTrue(result.isError());
+        assertEquals("The operation is still running after 1 seconds. Its status is at http://api/jobs/7",
+                ((McpSchema.TextContent) result.content().get(0)).text());
+        server.verify();
+    }
+
+    @Test
+    void executeToolCall_doesNotFollowJobUrlsOutsideAllowedDomains() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/reports", "POST", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        server.expect(requestTo("http://api/reports"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED).location(URI.create("http://169.254.169.254/latest/meta-data")));
+
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api", "createReport", Map.of(), null);
+
+        assertTrue(result.isError());
+        assertTrue(((McpSchema.TextContent) result.content().get(0)).text().contains("not allowed"));
+        server.verify(); // No poll was sent
+    }
+
+    @Test
+    void executeToolCall_sendsCredentialOfJobOnlyToItsOwnHost() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/reports", "POST", null));
+        when(securityProperties.getApiKeys()).thenReturn(Map.of("POST", "secret"));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        McpServerProperties properties = new McpServerProperties();
+        properties.getAsyncJobs().setInitialDelayMillis(1);
+        executor.setMcpServerProperties(properties);
+        server.expect(requestTo("http://api/reports"))
+                .andExpect(header("Authorization", "Bearer secret"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED).location(URI.create("/jobs/9")));
+        server.expect(requestTo("http://api/jobs/9"))
+                .andExpect(header("Authorization", "Bearer secret"))
+                .andRespond(withSuccess("{\"status\": \"done\", \"resultUrl\": \"http://files/9\"}", MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://files/9"))
+                .andExpect(headerDoesNotExist("Authorization"))
+                .andRespond(withSuccess("{\"rows\": 1}", MediaType.APPLICATION_JSON));
+
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api", "createReport", Map.of("name", "q1"), null);
+
+        assertFalse(result.isError());
+        server.verify();
+    }
+
+    @Test
+    void executeToolCall_returnsFailedJobAsError() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/reports", "POST", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        McpServerProperties properties = new McpServerProperties();
+        properties.getAsyncJobs().setInitialDelayMillis(1);
+        executor.setMcpServerProperties(properties);
+        server.expect(requestTo("http://api/reports"))
+                .andRespond(withStatus(HttpStatus.ACCEPTED).contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"statusUrl\": \"http://api/jobs/8\"}"));
+        server.expect(requestTo("http://api/jobs/8"))
+                .andRespond(withSuccess("{\"state\": \"FAILED\", \"error\": \"disk full\"}", MediaType.APPLICATION_JSON));
+
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api", "createReport", Map.of(), null);
+
+        assertTrue(result.isError());
+        assertTrue(((McpSchema.TextContent) result.content().get(0)).text().contains("disk full"));
+        server.verify();
+    }
+
+    @Test
+    void executeToolCall_movesCallsAwayFromFailingEndpoint() {
+        RestTemplate restTemplate = new RestTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        OpenApiToMcpConverter converter = mock(OpenApiToMcpConverter.class);
+        when(converter.getDispatchPlan(any())).thenReturn(new OpenApiToMcpConverter.DispatchPlan("/users", "GET", null));
+        RestApiExecutorService executor = new RestApiExecutorService(restTemplate, securityProperties, converter);
+        McpServerProperties.Upstream upstream = new McpServerProperties.Upstream();
+        upstream.setHealthCheckIntervalSeconds(0);
+        upstream.setFailureThreshold(1);
+        UpstreamBalancer balancer = new UpstreamBalancer(upstream);
+        executor.setUpstreamBalancer(balancer);
+        executor.registerEndpoints("http://api.yourdomain.com", List.of("http://api.yourdomain.com/", "http://other.com"));
+        balancer.register("http://api.yourdomain.com", List.of("http://replica"));
+        server.expect(requestTo("http://api.yourdomain.com/users")).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo("http://replica/users")).andRespond(withSuccess("[]", MediaType.APPLICATION_JSON));
+
+        McpSchema.CallToolResult failed = executor.executeToolCall("http://api.yourdomain.com", "listUsers", Map.of(), null);
+        McpSchema.CallToolResult result = executor.executeToolCall("http://api.yourdomain.com", "listUsers", Map.of(), null);
+
+        assertTrue(failed.isError());
+        assertFalse(result.isError());
+        assertEquals(List.of("http://api.yourdomain.com", "http://replica"), balancer.getEndpoints("http://api.yourdomain.com"));
+        server.verify();
+    }
+}
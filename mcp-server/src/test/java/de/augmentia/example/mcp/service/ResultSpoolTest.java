@@ -0,0 +1,82 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResultSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private ResultSpool spool;
+
+    private ResultSpool createSpool(long maxDiskBytes) throws IOException {
+        McpServerProperties.ResultSpool properties = new McpServerProperties.ResultSpool();
+        properties.setDirectory(directory.toString());
+        properties.setThresholdBytes(4);
+        properties.setMaxDiskBytes(maxDiskBytes);
+        properties.setMaxReadBytes(9);
+        properties.setPreviewBytes(5);
+        spool = new ResultSpool(properties);
+        return spool;
+    }
+
+    @AfterEach
+    void tearDown() {
+        spool.shutdown();
+    }
+
+    @Test
+    void spool_readsResultInRanges() throws IOException {
+        createSpool(1024);
+        byte[] content = "[1,2,3,\"äöü\"]".getBytes(StandardCharsets.UTF_8);
+
+        ResultSpool.SpooledResult result = spool.spool("export", "application/json",
+                Arrays.copyOf(content, 5), new ByteArrayInputStream(content, 5, content.length - 5));
+
+        assertEquals(content.length, result.size());
+        assertEquals("[1,2,", result.preview());
+        assertTrue(spool.describe(result).contains(result.uri()));
+        assertTrue(spool.exceedsThreshold(5));
+
+        McpSchema.TextResourceContents first = (McpSchema.TextResourceContents) spool.read(result.uri()).contents().get(0);
+        // The range ends before the second byte of the 'ä'
+        assertEquals(result.uri() + "?offset=0&length=8", first.uri());
+        assertEquals("[1,2,3,\"", first.text());
+        McpSchema.TextResourceContents second = (McpSchema.TextResourceContents) spool.read(result.uri() + "?offset=8&length=100")
+                .contents().get(0);
+        assertEquals("äöü", second.text().substring(0, 3));
+        assertNull(spool.read("file:///etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> spool.read(result.uri() + "?offset=1000"));
+    }
+
+    @Test
+    void spool_rejectsResultsOverQuotaAndDeletesExpired() throws IOException {
+        createSpool(10);
+        ResultSpool.SpooledResult result = spool.spool("export", "text/plain", "12345".getBytes(),
+                new ByteArrayInputStream("678".getBytes()));
+
+        assertThrows(IOException.class, () -> spool.spool("export", "text/plain", "12345".getBytes(),
+                new ByteArrayInputStream("678".getBytes())));
+        assertEquals(8, spool.getUsedBytes());
+        assertEquals(1, spool.getResultCount());
+
+        assertEquals(1, spool.deleteExpired(Instant.now().plusSeconds(3600)));
+        assertFalse(Files.exists(result.file()));
+        assertEquals(0, spool.getUsedBytes());
+        assertThrows(IllegalArgumentException.class, () -> spool.read(result.uri()));
+    }
+}
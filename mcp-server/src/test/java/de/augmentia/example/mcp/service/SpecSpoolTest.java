@@ -0,0 +1,63 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.exception.InvalidOpenApiSpecException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpecSpoolTest {
+
+    private static final byte[] SPEC = "openapi: 3.0.0\ninfo:\n  title: Test\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void spool_keepsSmallSpecInMemory() throws IOException {
+        try (SpecSpool spool = SpecSpool.spool(new ByteArrayInputStream(SPEC), false, 1024, 4096)) {
+            assertFalse(spool.isOnDisk());
+            assertEquals(SPEC.length, spool.size());
+            assertArrayEquals(SPEC, read(spool));
+        }
+    }
+
+    @Test
+    void spool_spoolsLargeSpecToDiskAndCanBeReadTwice() throws IOException {
+        try (SpecSpool spool = SpecSpool.spool(new ByteArrayInputStream(SPEC), false, 8, 4096)) {
+            assertTrue(spool.isOnDisk());
+            assertArrayEquals(SPEC, read(spool));
+            assertArrayEquals(SPEC, read(spool));
+        }
+    }
+
+    @Test
+    void spool_decodesBase64WhileCopying() throws IOException {
+        byte[] encoded = Base64.getMimeEncoder().encode(SPEC);
+        try (SpecSpool spool = SpecSpool.spool(new ByteArrayInputStream(encoded), true, 8, 4096)) {
+            assertEquals(SPEC.length, spool.size());
+            assertArrayEquals(SPEC, read(spool));
+        }
+    }
+
+    @Test
+    void spool_rejectsOversizedSpec() {
+        assertThrows(InvalidOpenApiSpecException.class,
+                () -> SpecSpool.spool(new ByteArrayInputStream(SPEC), false, 8, 16));
+    }
+
+    @Test
+    void close_releasesSpool() throws IOException {
+        SpecSpool spool = SpecSpool.spool(new ByteArrayInputStream(SPEC), false, 8, 4096);
+        spool.close();
+        assertThrows(IOException.class, spool::openStream);
+    }
+
+    private byte[] read(SpecSpool spool) throws IOException {
+        try (InputStream in = spool.openStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import de.augmentia.example.mcp.exception.ToolRegistrationException;
+import de.augmentia.example.mcp.model.McpServer;
+import de.augmentia.example.mcp.model.OpenApiDef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StartupToolLoaderTest {
+
+    @Mock
+    private McpServerService mcpServerService;
+
+    private StartupToolLoader startupToolLoader;
+
+    private final OpenApiDef critical = spec("users", false, true);
+    private final OpenApiDef optional = spec("orders", false, false);
+    private final OpenApiDef lazy = spec("reports", true, false);
+
+    @BeforeEach
+    void setUp() {
+        McpServerProperties properties = new McpServerProperties();
+        properties.getStartup().setRetryIntervalSeconds(0);
+        properties.getStartup().setMaxAttempts(3);
+        startupToolLoader = new StartupToolLoader(mcpServerService, properties);
+
+        McpServer mcpServer = new McpServer();
+        mcpServer.setTools(List.of(critical, optional, lazy));
+        when(mcpServerService.resetTools()).thenReturn(mcpServer);
+    }
+
+    @AfterEach
+    void tearDown() {
+        startupToolLoader.shutdown();
+    }
+
+    @Test
+    void loadTools_becomesReadyWhenCriticalSpecsAreLoaded() throws InterruptedException {
+        when(mcpServerService.loadSpec(critical)).thenReturn(List.of("getAllUsers"));
+        when(mcpServerService.loadSpec(optional)).thenReturn(List.of("getOrders"));
+
+        startupToolLoader.loadTools();
+        awaitState(StartupToolLoader.State.READY);
+
+        verify(mcpServerService, timeout(5000)).loadSpec(optional);
+        verify(mcpServerService).deferSpec(lazy);
+        verify(mcpServerService, never()).loadSpec(lazy);
+        assertTrue(startupToolLoader.getPendingCriticalSpecs().isEmpty());
+    }
+
+    @Test
+    void loadTools_retriesFailedCriticalSpec() throws InterruptedException {
+        when(mcpServerService.loadSpec(critical))
+                .thenThrow(new ToolRegistrationException("spec source unavailable"))
+                .thenReturn(List.of("getAllUsers"));
+        lenient().when(mcpServerService.loadSpec(optional)).thenReturn(List.of());
+
+        startupToolLoader.loadTools();
+        awaitState(StartupToolLoader.State.READY);
+
+        verify(mcpServerService, times(2)).loadSpec(critical);
+        assertTrue(startupToolLoader.getFailedSpecs().isEmpty());
+    }
+
+    @Test
+    void loadTools_failsWhileCriticalSpecExhaustsAttemptsAndRecovers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+        when(mcpServerService.loadSpec(critical)).thenAnswer(invocation -> {
+            if (attempts.incrementAndGet() <= 3) {
+                throw new ToolRegistrationException("invalid spec");
+            }
+            release.await(5, TimeUnit.SECONDS);
+            return List.of("getAllUsers");
+        });
+        lenient().when(mcpServerService.loadSpec(optional)).thenReturn(List.of());
+
+        startupToolLoader.loadTools();
+        awaitState(StartupToolLoader.State.FAILED);
+
+        assertFalse(startupToolLoader.isReady());
+        assertEquals("invalid spec", startupToolLoader.getFailedSpecs().get("users"));
+
+        // Critical specs are retried beyond max-attempts
+        release.countDown();
+        awaitState(StartupToolLoader.State.READY);
+        assertEquals(4, attempts.get());
+        assertNull(startupToolLoader.getFailureMessage());
+    }
+
+    private void awaitState(StartupToolLoader.State expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (startupToolLoader.getState() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, startupToolLoader.getState());
+    }
+
+    private static OpenApiDef spec(String name, boolean lazy, boolean critical) {
+        OpenApiDef def = new OpenApiDef();
+        def.setName(name);
+        def.setRestApiUrl("http://localhost/" + name + ".yml");
+        def.setLazy(lazy);
+        def.setCritical(critical);
+        return def;
+    }
+}
@@ -0,0 +1,63 @@
+package de.augmentia.example.mcp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TabularEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void encode_writesUniformArrayAsTable() throws IOException {
+        String users = """
+                [{"id": 1, "name": "Ada", "email": "ada@example.com", "roles": ["admin"]},
+                 {"id": 2, "name": "Lovelace, Ada", "email": null, "roles": []},
+                 {"id": 3, "name": "", "roles": []}]
+                """;
+
+        String result = TabularEncoder.encode(mapper, mapper.readTree(users));
+
+        assertTrue(result.startsWith("(Tabular encoding: CSV with a header row"));
+        assertTrue(result.contains("% smaller.)"));
+        assertTrue(result.endsWith("""
+                id,name,email,roles
+                1,Ada,ada@example.com,"[""admin""]"
+                2,"Lovelace, Ada",,[]
+                3,"",,[]
+                """));
+    }
+
+    @Test
+    void encode_writesArraysOfObjectAsTables() throws IOException {
+        String page = "{\"total\": 2, \"items\": [{\"id\": 1, \"sku\": \"A\"}, {\"id\": 2, \"sku\": \"B\"}]}";
+
+        String result = TabularEncoder.encode(mapper, mapper.readTree(page));
+
+        assertTrue(result.endsWith("total: 2\nitems: 2 rows\nid,sku\n1,A\n2,B\n"));
+    }
+
+    @Test
+    void encode_keepsOtherValuesAsJson() throws IOException {
+        assertNull(TabularEncoder.encode(mapper, mapper.readTree("[1, 2, 3]")));
+        assertNull(TabularEncoder.encode(mapper, mapper.readTree("[{\"id\": 1}]")));
+        assertNull(TabularEncoder.encode(mapper, mapper.readTree("[{\"a\": 1, \"b\": 2, \"c\": 3}, {\"d\": 4}]")));
+    }
+
+    @Test
+    void responseShape_encodesShapedResponseAsTable() throws IOException {
+        ResponseShape shape = ResponseShape.compile(List.of("$.id", "$.name"), null, null, ResponseShape.FORMAT_TABLE);
+        String json = "[{\"id\": 1, \"name\": \"Ada\", \"bio\": \"...\"}, {\"id\": 2, \"name\": \"Bob\", \"bio\": \"...\"}]";
+
+        String result = shape.apply(mapper, new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertTrue(result.endsWith("id,name\n1,Ada\n2,Bob\n"));
+        assertThrows(IllegalArgumentException.class, () -> ResponseShape.compile(List.of(), null, null, "xml"));
+    }
+}
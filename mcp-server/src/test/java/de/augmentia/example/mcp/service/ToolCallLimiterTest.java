@@ -0,0 +1,39 @@
+package de.augmentia.example.mcp.service;
+
+import de.augmentia.example.mcp.model.McpServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ToolCallLimiterTest {
+
+    @Test
+    void of_withoutLimits_isUnlimited() {
+        assertSame(ToolCallLimiter.UNLIMITED, ToolCallLimiter.of(new McpServer()));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ToolCallLimiter.UNLIMITED.tryAcquire());
+        }
+    }
+
+    @Test
+    void tryAcquire_rejectsBeyondConcurrencyLimit() {
+        ToolCallLimiter limiter = new ToolCallLimiter(2, null);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void tryAcquire_rejectsBeyondRateLimit() {
+        ToolCallLimiter limiter = new ToolCallLimiter(null, 3.0);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+}
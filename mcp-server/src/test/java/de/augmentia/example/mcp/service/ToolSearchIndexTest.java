@@ -0,0 +1,50 @@
+package de.augmentia.example.mcp.service;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ToolSearchIndexTest {
+
+    private static McpSchema.Tool tool(String name, String description) {
+        return new McpSchema.Tool(name, description, (McpSchema.JsonSchema) null);
+    }
+
+    @Test
+    void tokenize_splitsCamelCaseAndSeparators() {
+        assertEquals(List.of("get", "user", "by", "id"), ToolSearchIndex.tokenize("getUserById"));
+        assertEquals(List.of("list", "orders", "v", "2"), ToolSearchIndex.tokenize("list_orders-v2"));
+        assertEquals(List.of("order", "id"), ToolSearchIndex.tokenize("order_id"));
+    }
+
+    @Test
+    void search_ranksNameMatchesFirst() {
+        ToolSearchIndex index = new ToolSearchIndex();
+        index.add(tool("createInvoice", "Creates an invoice"), List.of("billing"));
+        index.add(tool("getCustomer", "Returns the customer of an invoice"), List.of("customers"));
+        index.add(tool("deleteUser", "Deletes a user"), List.of("users"));
+
+        List<ToolSearchIndex.Hit> hits = index.search("invoice", 10);
+        assertEquals(2, hits.size());
+        assertEquals("createInvoice", hits.get(0).toolName());
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+
+        assertEquals("createInvoice", index.search("billing", 10).get(0).toolName());
+        assertTrue(index.search("unrelated", 10).isEmpty());
+    }
+
+    @Test
+    void remove_dropsToolFromPostings() {
+        ToolSearchIndex index = new ToolSearchIndex();
+        index.add(tool("createInvoice", "Creates an invoice"), List.of());
+        index.add(tool("createInvoice", "Creates an invoice again"), List.of());
+        assertEquals(1, index.size());
+
+        index.remove("createInvoice");
+        assertEquals(0, index.size());
+        assertTrue(index.search("invoice", 10).isEmpty());
+    }
+}
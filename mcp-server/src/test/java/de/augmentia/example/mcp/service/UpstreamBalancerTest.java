@@ -0,0 +1,130 @@
+package de.augmentia.example.mcp.service;
+
+import com.sun.net.httpserver.HttpServer;
+import de.augmentia.example.mcp.config.McpServerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamBalancerTest {
+
+    private UpstreamBalancer balancer;
+
+    private UpstreamBalancer createBalancer(int failureThreshold) {
+        McpServerProperties.Upstream properties = new McpServerProperties.Upstream();
+        properties.setHealthCheckIntervalSeconds(0);
+        properties.setHealthCheckTimeoutMillis(1000);
+        properties.setFailureThreshold(failureThreshold);
+        balancer = new UpstreamBalancer(properties);
+        balancer.register("http://api", List.of("http://replica"));
+        return balancer;
+    }
+
+    @AfterEach
+    void tearDown() {
+        balancer.shutdown();
+    }
+
+    private UpstreamBalancer.Lease leaseTo(String url) {
+        for (int i = 0; i < 10; i++) {
+            UpstreamBalancer.Lease lease = balancer.acquire("http://api");
+            if (lease.url().equals(url)) {
+                return lease;
+            }
+            lease.release();
+        }
+        throw new AssertionError("No lease to " + url);
+    }
+
+    @Test
+    void acquire_prefersEndpointWithFewerCallsInFlight() {
+        createBalancer(3);
+
+        UpstreamBalancer.Lease first = balancer.acquire("http://api");
+        UpstreamBalancer.Lease second = balancer.acquire("http://api");
+        first.complete(false);
+        UpstreamBalancer.Lease third = balancer.acquire("http://api");
+
+        assertNotEquals(first.url(), second.url());
+        assertEquals(first.url(), third.url());
+    }
+
+    @Test
+    void complete_ejectsEndpointAfterConsecutiveFailures() {
+        createBalancer(2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        balancer.bindTo(registry);
+
+        leaseTo("http://api").complete(true);
+        leaseTo("http://api").complete(false); // A success resets the count
+        leaseTo("http://api").complete(true);
+        assertEquals(1.0, registry.get("mcp.upstream.endpoint.healthy").tag("endpoint", "http://api").gauge().value());
+        leaseTo("http://api").complete(true);
+
+        for (int i = 0; i < 5; i++) {
+            UpstreamBalancer.Lease lease = balancer.acquire("http://api");
+            assertEquals("http://replica", lease.url());
+            lease.complete(false);
+        }
+        assertEquals(0.0, registry.get("mcp.upstream.endpoint.healthy").tag("endpoint", "http://api").gauge().value());
+        assertEquals(3.0, registry.get("mcp.upstream.endpoint.failures").tag("endpoint", "http://api").functionCounter().count());
+    }
+
+    @Test
+    void acquire_usesEjectedEndpointsIfNoneIsHealthy() {
+        createBalancer(1);
+
+        leaseTo("http://api").complete(true);
+        leaseTo("http://replica").complete(true);
+
+        assertNotNull(balancer.acquire("http://api").url());
+    }
+
+    @Test
+    void unregister_dropsPoolAndMetricsWithLastOwner() {
+        createBalancer(3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        balancer.bindTo(registry);
+        balancer.register("http://api", List.of("http://replica"));
+        balancer.register("http://other", List.of("http://replica"));
+
+        balancer.unregister("http://api");
+        assertEquals(List.of("http://api", "http://replica"), balancer.getEndpoints("http://api"));
+
+        balancer.unregister("http://api");
+        assertNull(registry.find("mcp.upstream.endpoint.calls").tag("endpoint", "http://api").functionCounter());
+        // Still in the pool of another API
+        assertNotNull(registry.find("mcp.upstream.endpoint.calls").tag("endpoint", "http://replica").functionCounter());
+    }
+
+    @Test
+    void probe_ejectsEndpointsThatDoNotAnswer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            createBalancer(3);
+            String healthy = "http://127.0.0.1:" + server.getAddress().getPort();
+            balancer.register("http://127.0.0.1:1", List.of(healthy));
+
+            balancer.probe().join();
+
+            for (int i = 0; i < 5; i++) {
+                UpstreamBalancer.Lease lease = balancer.acquire("http://127.0.0.1:1");
+                assertEquals(healthy, lease.url());
+                lease.complete(false);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.augmentia.example.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class InterceptingServerSessionTest {
+
+    @Mock
+    private McpServerSession delegate;
+    @Mock
+    private McpServerTransport transport;
+
+    private InterceptingServerSession session;
+
+    @BeforeEach
+    void setUp() {
+        when(delegate.getId()).thenReturn("session-1");
+        McpRequestInterceptor toolsList = (context, request) ->
+                new McpSchema.ListToolsResult(List.of(new McpSchema.Tool("ping", "Ping", "{}")), null);
+        session = new InterceptingServerSession(delegate, transport, Map.of(McpSchema.METHOD_TOOLS_LIST, toolsList));
+    }
+
+    @Test
+    void handle_answersInterceptedRequest() {
+        when(transport.sendMessage(any())).thenReturn(Mono.empty());
+
+        session.handle(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_LIST, 7, null)).block();
+
+        ArgumentCaptor<McpSchema.JSONRPCMessage> sent = ArgumentCaptor.forClass(McpSchema.JSONRPCMessage.class);
+        verify(transport).sendMessage(sent.capture());
+        McpSchema.JSONRPCResponse response = (McpSchema.JSONRPCResponse) sent.getValue();
+        assertEquals(7, response.id());
+        assertEquals("ping", ((McpSchema.ListToolsResult) response.result()).tools().get(0).name());
+        verify(delegate, never()).handle(any());
+    }
+
+    @Test
+    void handle_delegatesOtherMessages() {
+        McpSchema.JSONRPCRequest call = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 8, Map.of());
+        when(delegate.handle(call)).thenReturn(Mono.empty());
+
+        session.handle(call).block();
+
+        verify(delegate).handle(call);
+        verifyNoInteractions(transport);
+        assertEquals("session-1", session.getId());
+    }
+
+    @Test
+    void handle_sendsResultOfAsynchronousInterceptor() {
+        when(transport.sendMessage(any())).thenReturn(Mono.empty());
+        McpRequestInterceptor toolsCall = (context, request) ->
+                Mono.fromCallable(() -> new McpSchema.CallToolResult("done", false)).subscribeOn(Schedulers.boundedElastic());
+        session = new InterceptingServerSession(delegate, transport, Map.of(McpSchema.METHOD_TOOLS_CALL, toolsCall));
+
+        session.handle(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 11, Map.of())).block();
+
+        ArgumentCaptor<McpSchema.JSONRPCMessage> sent = ArgumentCaptor.forClass(McpSchema.JSONRPCMessage.class);
+        verify(transport).sendMessage(sent.capture());
+        McpSchema.JSONRPCResponse response = (McpSchema.JSONRPCResponse) sent.getValue();
+        assertEquals(11, response.id());
+        assertFalse(((McpSchema.CallToolResult) response.result()).isError());
+        assertEquals(0, session.getInFlightRequests());
+    }
+
+    @Test
+    void handle_cancelsRequestOnCancelledNotification() {
+        McpSchema.JSONRPCRequest call = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 9, Map.of());
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(delegate.handle(call)).thenReturn(Mono.<Void>never().doOnCancel(() -> cancelled.set(true)));
+
+        session.handle(call).subscribe();
+        assertEquals(1, session.getInFlightRequests());
+        session.handle(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION,
+                InterceptingServerSession.METHOD_NOTIFICATION_CANCELLED, Map.of("requestId", 9, "reason", "User aborted"))).block();
+
+        assertTrue(cancelled.get());
+        assertEquals(0, session.getInFlightRequests());
+        verify(delegate, times(1)).handle(any());
+    }
+
+    @Test
+    void close_interruptsRunningToolCall() throws InterruptedException {
+        McpSchema.JSONRPCRequest call = new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, McpSchema.METHOD_TOOLS_CALL, 10, Map.of());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        // Like a sync tool of the SDK, which blocks on the upstream call on a worker thread
+        when(delegate.handle(call)).thenReturn(Mono.fromCallable(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "done";
+        }).subscribeOn(Schedulers.boundedElastic()).then());
+
+        session.handle(call).subscribe();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        session.close();
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(delegate).close();
+    }
+}
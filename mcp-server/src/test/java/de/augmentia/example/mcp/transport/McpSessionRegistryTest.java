@@ -0,0 +1,106 @@
+package de.augmentia.example.mcp.transport;
+
+import de.augmentia.example.mcp.config.McpServerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class McpSessionRegistryTest {
+
+    private static final String INITIALIZE = """
+            {"jsonrpc":"2.0","id":1,"method":"initialize","params":{"protocolVersion":"2024-11-05",\
+            "capabilities":{},"clientInfo":{"name":"test","version":"1.0"}}}""";
+
+    private McpSessionRegistry registry;
+    private McpSyncServer mcpSyncServer;
+    private StreamableHttpEndpoint endpoint;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        McpServerProperties.Sessions properties = new McpServerProperties.Sessions();
+        properties.setMaxSessions(1);
+        properties.setIdleTimeoutSeconds(60);
+        registry = new McpSessionRegistry(properties);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        InterceptingSseServerTransportProvider provider = new InterceptingSseServerTransportProvider(objectMapper, "", "/mcp/message", "/sse");
+        provider.setSessionRegistry(registry);
+        mcpSyncServer = McpServer.sync(provider)
+                .serverInfo("test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .build();
+        endpoint = new StreamableHttpEndpoint(objectMapper, "/mcp", provider);
+        mockMvc = MockMvcBuilders.routerFunctions(endpoint.getRouterFunction(), provider.getRouterFunction()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.closeAll();
+        mcpSyncServer.closeGracefully();
+        registry.shutdown();
+    }
+
+    @Test
+    void limitsAndEvictsIdleSessions() throws Exception {
+        mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content(INITIALIZE))
+                .andExpect(status().isOk());
+        assertEquals(1, registry.getActiveSessions());
+        assertEquals(1, registry.getMessagesReceived());
+        assertEquals(1, registry.getMessagesSent());
+        McpSessionInfo info = registry.getSessions(10).get(0);
+        assertEquals(McpSessionRegistry.TRANSPORT_STREAMABLE_HTTP, info.transport());
+        assertEquals(0, info.inFlightRequests());
+
+        mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content(INITIALIZE))
+                .andExpect(status().isServiceUnavailable());
+        mockMvc.perform(get("/sse"))
+                .andExpect(status().isServiceUnavailable());
+        assertEquals(2, registry.getRejectedSessions());
+
+        assertEquals(0, registry.evictIdle(System.currentTimeMillis()));
+        assertEquals(1, registry.evictIdle(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(61)));
+        assertEquals(0, registry.getActiveSessions());
+        assertEquals(0, endpoint.getSessionCount());
+        assertEquals(1, registry.getEvictedSessions());
+        // Traffic of closed sessions is kept in the totals
+        assertEquals(1, registry.getMessagesReceived());
+    }
+
+    @Test
+    void closesSessionWhenTooManyMessagesArePending() {
+        McpServerTransport slowClient = mock(McpServerTransport.class);
+        when(slowClient.sendMessage(any())).thenReturn(Mono.never());
+        TrackedTransport transport = new TrackedTransport(slowClient, 1);
+        AtomicBoolean closed = new AtomicBoolean();
+        transport.setOnFailure(() -> closed.set(true));
+        McpSchema.JSONRPCNotification message = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/message", null);
+
+        transport.sendMessage(message).subscribe();
+        assertEquals(1, transport.getPendingMessages());
+        assertFalse(closed.get());
+
+        assertThrows(IllegalStateException.class, () -> transport.sendMessage(message).block());
+        assertTrue(closed.get());
+    }
+}
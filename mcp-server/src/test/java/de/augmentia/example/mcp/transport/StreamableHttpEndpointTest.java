@@ -0,0 +1,149 @@
+package de.augmentia.example.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.server.McpSyncServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class StreamableHttpEndpointTest {
+
+    private static final String INITIALIZE = """
+            {"jsonrpc":"2.0","id":1,"method":"initialize","params":{"protocolVersion":"2024-11-05",\
+            "capabilities":{},"clientInfo":{"name":"test","version":"1.0"}}}""";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private McpSyncServer mcpSyncServer;
+    private StreamableHttpEndpoint endpoint;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        InterceptingSseServerTransportProvider provider = new InterceptingSseServerTransportProvider(objectMapper, "", "/mcp/message", "/sse");
+        mcpSyncServer = McpServer.sync(provider)
+                .serverInfo("test", "1.0.0")
+                .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+                .tools(new McpServerFeatures.SyncToolSpecification(new McpSchema.Tool("echo", "Echo", "{\"type\":\"object\"}"),
+                                (exchange, arguments) -> new McpSchema.CallToolResult("echo " + arguments.get("text"), false)),
+                        new McpServerFeatures.SyncToolSpecification(new McpSchema.Tool("slow", "Slow", "{\"type\":\"object\"}"),
+                                (exchange, arguments) -> {
+                                    try {
+                                        release.await(5, TimeUnit.SECONDS);
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                    return new McpSchema.CallToolResult("slow done", false);
+                                }))
+                .build();
+        endpoint = new StreamableHttpEndpoint(objectMapper, "/mcp", provider);
+        mockMvc = MockMvcBuilders.routerFunctions(endpoint.getRouterFunction()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.closeAll();
+        mcpSyncServer.closeGracefully();
+    }
+
+    @Test
+    void sessionLifecycle() throws Exception {
+        String sessionId = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content(INITIALIZE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.result.serverInfo.name").value("test"))
+                .andReturn().getResponse().getHeader(StreamableHttpEndpoint.SESSION_HEADER);
+        assertEquals(1, endpoint.getSessionCount());
+
+        mockMvc.perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"))
+                .andExpect(status().isAccepted());
+
+        perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/list\"},"
+                                + "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"hi\"}}}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].result.tools[0].name").value("echo"))
+                .andExpect(jsonPath("$[1].result.content[0].text").value("echo hi"));
+
+        mockMvc.perform(delete("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":4,\"method\":\"tools/list\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void concurrentRequestsOfOneSessionReceiveOnlyTheirOwnResponses() throws Exception {
+        String sessionId = mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON).content(INITIALIZE))
+                .andReturn().getResponse().getHeader(StreamableHttpEndpoint.SESSION_HEADER);
+        mockMvc.perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}"));
+
+        // Streamed request that is still running while the second request is handled
+        MvcResult streamed = mockMvc.perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON, MediaType.TEXT_EVENT_STREAM)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":10,\"method\":\"tools/call\","
+                                + "\"params\":{\"name\":\"slow\",\"arguments\":{},\"_meta\":{\"progressToken\":\"p10\"}}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        perform(post("/mcp").header(StreamableHttpEndpoint.SESSION_HEADER, sessionId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":11,\"method\":\"tools/call\","
+                                + "\"params\":{\"name\":\"echo\",\"arguments\":{\"text\":\"hi\"}}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(11))
+                .andExpect(jsonPath("$.result.content[0].text").value("echo hi"));
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!streamed.getResponse().getContentAsString().contains("slow done") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        String events = streamed.getResponse().getContentAsString();
+        assertTrue(events.contains("\"id\":10"));
+        assertTrue(events.contains("slow done"));
+        assertFalse(events.contains("echo hi"));
+    }
+
+    @Test
+    void rejectsRequestsWithoutSession() throws Exception {
+        mockMvc.perform(post("/mcp").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/list\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/mcp"))
+                .andExpect(status().isMethodNotAllowed());
+    }
+
+    /**
+     * Performs a request and, if it is answered asynchronously, waits for the answer.
+     */
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
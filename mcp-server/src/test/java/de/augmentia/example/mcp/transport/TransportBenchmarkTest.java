@@ -0,0 +1,206 @@
+package de.augmentia.example.mcp.transport;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Compares the SSE and the Streamable HTTP transport: open connections, heap per session and tool call latency.
+ * Skipped by default, run it with {@code mvn test -Dtest=TransportBenchmarkTest -Dbenchmark=true}
+ * and optionally {@code -Dbenchmark.sessions=200 -Dbenchmark.calls=20}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "server.tomcat.mbeanregistry.enabled=true")
+public class TransportBenchmarkTest {
+
+    private static final String INITIALIZE = "{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"initialize\",\"params\":"
+            + "{\"protocolVersion\":\"2024-11-05\",\"capabilities\":{},\"clientInfo\":{\"name\":\"benchmark\",\"version\":\"1.0\"}}}";
+    private static final String INITIALIZED = "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}";
+    private static final String CALL = "{\"jsonrpc\":\"2.0\",\"id\":%d,\"method\":\"tools/call\","
+            + "\"params\":{\"name\":\"search_tools\",\"arguments\":{\"query\":\"user\"}}}";
+
+    private final int sessions = Integer.getInteger("benchmark.sessions", 100);
+    private final int calls = Integer.getInteger("benchmark.calls", 10);
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void compareTransports() throws Exception {
+        // Streamable HTTP first, so that its connection count is not inflated by closing SSE streams
+        Result streamable = runStreamableHttp();
+        Result sse = runSse();
+        System.out.printf("%n%-16s %12s %16s %10s %10s%n", "transport", "connections", "heap/session", "p50 ms", "p95 ms");
+        for (Result result : List.of(sse, streamable)) {
+            System.out.printf("%-16s %12d %14d B %10.2f %10.2f%n", result.transport(), result.connections(),
+                    result.heapPerSession(), result.percentile(50), result.percentile(95));
+        }
+        assertEquals((long) sessions * calls, sse.latencies().size());
+        assertEquals((long) sessions * calls, streamable.latencies().size());
+    }
+
+    private Result runSse() throws Exception {
+        long heapBefore = usedHeap();
+        List<SseSession> open = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            SseSession session = new SseSession();
+            post(session.messageEndpoint, INITIALIZE, null);
+            assertNotNull(session.awaitResponse(0));
+            post(session.messageEndpoint, INITIALIZED, null);
+            open.add(session);
+        }
+        long heapPerSession = (usedHeap() - heapBefore) / sessions;
+        int connections = connectionCount();
+
+        List<Double> latencies = new ArrayList<>();
+        for (int call = 1; call <= calls; call++) {
+            for (SseSession session : open) {
+                long start = System.nanoTime();
+                post(session.messageEndpoint, CALL.formatted(call), null);
+                assertNotNull(session.awaitResponse(call));
+                latencies.add((System.nanoTime() - start) / 1e6);
+            }
+        }
+        open.forEach(SseSession::close);
+        return new Result("SSE", connections, heapPerSession, latencies);
+    }
+
+    private Result runStreamableHttp() throws Exception {
+        String endpoint = "/mcp";
+        long heapBefore = usedHeap();
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            HttpResponse<String> response = post(endpoint, INITIALIZE, null);
+            String sessionId = response.headers().firstValue(StreamableHttpEndpoint.SESSION_HEADER).orElseThrow();
+            post(endpoint, INITIALIZED, sessionId);
+            sessionIds.add(sessionId);
+        }
+        long heapPerSession = (usedHeap() - heapBefore) / sessions;
+        int connections = connectionCount();
+
+        List<Double> latencies = new ArrayList<>();
+        for (int call = 1; call <= calls; call++) {
+            for (String sessionId : sessionIds) {
+                long start = System.nanoTime();
+                HttpResponse<String> response = post(endpoint, CALL.formatted(call), sessionId);
+                assertEquals(200, response.statusCode());
+                latencies.add((System.nanoTime() - start) / 1e6);
+            }
+        }
+        for (String sessionId : sessionIds) {
+            httpClient.send(HttpRequest.newBuilder(uri(endpoint)).DELETE()
+                    .header(StreamableHttpEndpoint.SESSION_HEADER, sessionId).build(), HttpResponse.BodyHandlers.discarding());
+        }
+        return new Result("Streamable HTTP", connections, heapPerSession, latencies);
+    }
+
+    private HttpResponse<String> post(String path, String body, String sessionId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json, text/event-stream")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (sessionId != null) {
+            request.header(StreamableHttpEndpoint.SESSION_HEADER, sessionId);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Open connections of the embedded Tomcat, including idle keep-alive connections.
+     */
+    private static int connectionCount() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        int count = 0;
+        for (ObjectName name : server.queryNames(new ObjectName("Tomcat:type=ThreadPool,name=*"), null)) {
+            count += ((Number) server.getAttribute(name, "connectionCount")).intValue();
+        }
+        return count;
+    }
+
+    private record Result(String transport, int connections, long heapPerSession, List<Double> latencies) {
+
+        double percentile(int percentile) {
+            List<Double> sorted = new ArrayList<>(latencies);
+            Collections.sort(sorted);
+            return sorted.get(Math.max(0, (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1));
+        }
+    }
+
+    /**
+     * An SSE session: the stream stays open and carries the responses to the POSTed messages.
+     */
+    private class SseSession {
+
+        private final BlockingQueue<String> data = new LinkedBlockingQueue<>();
+        private volatile Stream<String> lines;
+        private final String messageEndpoint;
+
+        SseSession() throws InterruptedException {
+            httpClient.sendAsync(HttpRequest.newBuilder(uri("/sse")).header("Accept", "text/event-stream").build(),
+                    HttpResponse.BodyHandlers.ofLines()).thenAccept(response -> {
+                lines = response.body();
+                Thread reader = new Thread(() -> {
+                    try {
+                        lines.filter(line -> line.startsWith("data:")).forEach(line -> data.add(line.substring(5).trim()));
+                    } catch (RuntimeException e) {
+                        // Stream closed
+                    }
+                });
+                reader.setDaemon(true);
+                reader.start();
+            });
+            messageEndpoint = data.poll(10, TimeUnit.SECONDS); // The first event is the message endpoint
+        }
+
+        void close() {
+            if (lines != null) {
+                lines.close();
+            }
+        }
+
+        String awaitResponse(int id) throws InterruptedException {
+            String marker = "\"id\":" + id + ",";
+            String line;
+            while ((line = data.poll(10, TimeUnit.SECONDS)) != null) {
+                if (line.contains(marker)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+    }
+}